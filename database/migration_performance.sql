@@ -0,0 +1,460 @@
+-- ============================================================
+-- Migration Script: Performance Indexes and Summary Tables
+-- ============================================================
+-- Brings an EXISTING database up to date with the indexes and
+-- tables added to schema.sql for query performance
+-- Run this on your EXISTING database without losing data
+-- ============================================================
+
+USE chms_db;
+
+-- ============================================================
+-- Users: keyset pagination on (created_at, user_id)
+-- ============================================================
+ALTER TABLE users
+    ADD INDEX idx_created_user (created_at, user_id) COMMENT 'Keyset pagination of user listings';
+
+-- ============================================================
+-- System statistics summary table
+-- ============================================================
+CREATE TABLE system_stats (
+    stats_id TINYINT PRIMARY KEY DEFAULT 1,
+    total_users INT NOT NULL DEFAULT 0,
+    active_users INT NOT NULL DEFAULT 0,
+    total_mothers INT NOT NULL DEFAULT 0,
+    total_doctors INT NOT NULL DEFAULT 0,
+    total_admins INT NOT NULL DEFAULT 0,
+    total_children INT NOT NULL DEFAULT 0,
+    open_growth_alerts INT NOT NULL DEFAULT 0 COMMENT 'Unresolved growth alerts',
+    pending_appointments INT NOT NULL DEFAULT 0 COMMENT 'Appointments SCHEDULED or CONFIRMED',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    CONSTRAINT chk_single_row CHECK (stats_id = 1)
+) ENGINE=InnoDB;
+
+INSERT INTO system_stats (stats_id) VALUES (1);
+
+-- Recompute system_stats from scratch (initial load or repair)
+DELIMITER //
+CREATE PROCEDURE sp_rebuild_system_stats()
+BEGIN
+    INSERT IGNORE INTO system_stats (stats_id) VALUES (1);
+    
+    UPDATE system_stats SET
+        total_users = (SELECT COUNT(*) FROM users),
+        active_users = (SELECT COUNT(*) FROM users WHERE is_active = TRUE),
+        total_mothers = (SELECT COUNT(*) FROM users WHERE role = 'MOTHER'),
+        total_doctors = (SELECT COUNT(*) FROM users WHERE role = 'DOCTOR'),
+        total_admins = (SELECT COUNT(*) FROM users WHERE role = 'ADMIN'),
+        total_children = (SELECT COUNT(*) FROM children),
+        open_growth_alerts = (SELECT COUNT(*) FROM growth_alerts WHERE is_resolved = FALSE),
+        pending_appointments = (SELECT COUNT(*) FROM appointments WHERE status IN ('SCHEDULED', 'CONFIRMED'))
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+-- Triggers: system_stats maintenance
+-- Cascaded deletes do not fire triggers, so parent BEFORE DELETE triggers
+-- subtract their dependent rows themselves
+DELIMITER //
+CREATE TRIGGER after_user_insert_stats
+AFTER INSERT ON users
+FOR EACH ROW
+BEGIN
+    UPDATE system_stats SET
+        total_users = total_users + 1,
+        active_users = active_users + IF(NEW.is_active, 1, 0),
+        total_mothers = total_mothers + IF(NEW.role = 'MOTHER', 1, 0),
+        total_doctors = total_doctors + IF(NEW.role = 'DOCTOR', 1, 0),
+        total_admins = total_admins + IF(NEW.role = 'ADMIN', 1, 0)
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_user_update_stats
+AFTER UPDATE ON users
+FOR EACH ROW
+BEGIN
+    IF NEW.role <> OLD.role OR NOT (NEW.is_active <=> OLD.is_active) THEN
+        UPDATE system_stats SET
+            active_users = active_users + IF(NEW.is_active, 1, 0) - IF(OLD.is_active, 1, 0),
+            total_mothers = total_mothers + IF(NEW.role = 'MOTHER', 1, 0) - IF(OLD.role = 'MOTHER', 1, 0),
+            total_doctors = total_doctors + IF(NEW.role = 'DOCTOR', 1, 0) - IF(OLD.role = 'DOCTOR', 1, 0),
+            total_admins = total_admins + IF(NEW.role = 'ADMIN', 1, 0) - IF(OLD.role = 'ADMIN', 1, 0)
+        WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER before_user_delete_stats
+BEFORE DELETE ON users
+FOR EACH ROW
+BEGIN
+    -- Deleting a mother cascades to her children, their alerts and appointments
+    UPDATE system_stats SET
+        total_users = total_users - 1,
+        active_users = active_users - IF(OLD.is_active, 1, 0),
+        total_mothers = total_mothers - IF(OLD.role = 'MOTHER', 1, 0),
+        total_doctors = total_doctors - IF(OLD.role = 'DOCTOR', 1, 0),
+        total_admins = total_admins - IF(OLD.role = 'ADMIN', 1, 0),
+        total_children = total_children -
+            (SELECT COUNT(*) FROM children WHERE mother_id = OLD.user_id),
+        open_growth_alerts = open_growth_alerts -
+            (SELECT COUNT(*) FROM growth_alerts ga
+             INNER JOIN children c ON ga.child_id = c.child_id
+             WHERE c.mother_id = OLD.user_id AND ga.is_resolved = FALSE),
+        pending_appointments = pending_appointments -
+            (SELECT COUNT(*) FROM appointments a
+             INNER JOIN children c ON a.child_id = c.child_id
+             WHERE c.mother_id = OLD.user_id AND a.status IN ('SCHEDULED', 'CONFIRMED'))
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_child_insert_stats
+AFTER INSERT ON children
+FOR EACH ROW
+BEGIN
+    UPDATE system_stats SET total_children = total_children + 1 WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER before_child_delete_stats
+BEFORE DELETE ON children
+FOR EACH ROW
+BEGIN
+    -- Deleting a child cascades to its alerts and appointments
+    UPDATE system_stats SET
+        total_children = total_children - 1,
+        open_growth_alerts = open_growth_alerts -
+            (SELECT COUNT(*) FROM growth_alerts WHERE child_id = OLD.child_id AND is_resolved = FALSE),
+        pending_appointments = pending_appointments -
+            (SELECT COUNT(*) FROM appointments WHERE child_id = OLD.child_id AND status IN ('SCHEDULED', 'CONFIRMED'))
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER before_health_record_delete_stats
+BEFORE DELETE ON health_records
+FOR EACH ROW
+BEGIN
+    -- Deleting a health record cascades to the alerts it raised
+    UPDATE system_stats SET
+        open_growth_alerts = open_growth_alerts -
+            (SELECT COUNT(*) FROM growth_alerts WHERE record_id = OLD.record_id AND is_resolved = FALSE)
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_growth_alert_insert_stats
+AFTER INSERT ON growth_alerts
+FOR EACH ROW
+BEGIN
+    IF NEW.is_resolved = FALSE THEN
+        UPDATE system_stats SET open_growth_alerts = open_growth_alerts + 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_growth_alert_update_stats
+AFTER UPDATE ON growth_alerts
+FOR EACH ROW
+BEGIN
+    IF NOT (NEW.is_resolved <=> OLD.is_resolved) THEN
+        UPDATE system_stats SET
+            open_growth_alerts = open_growth_alerts
+                + IF(NEW.is_resolved = FALSE, 1, 0) - IF(OLD.is_resolved = FALSE, 1, 0)
+        WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_growth_alert_delete_stats
+AFTER DELETE ON growth_alerts
+FOR EACH ROW
+BEGIN
+    IF OLD.is_resolved = FALSE THEN
+        UPDATE system_stats SET open_growth_alerts = open_growth_alerts - 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_appointment_insert_stats
+AFTER INSERT ON appointments
+FOR EACH ROW
+BEGIN
+    IF NEW.status IN ('SCHEDULED', 'CONFIRMED') THEN
+        UPDATE system_stats SET pending_appointments = pending_appointments + 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_appointment_update_stats
+AFTER UPDATE ON appointments
+FOR EACH ROW
+BEGIN
+    IF NEW.status <> OLD.status THEN
+        UPDATE system_stats SET
+            pending_appointments = pending_appointments
+                + IF(NEW.status IN ('SCHEDULED', 'CONFIRMED'), 1, 0)
+                - IF(OLD.status IN ('SCHEDULED', 'CONFIRMED'), 1, 0)
+        WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_appointment_delete_stats
+AFTER DELETE ON appointments
+FOR EACH ROW
+BEGIN
+    IF OLD.status IN ('SCHEDULED', 'CONFIRMED') THEN
+        UPDATE system_stats SET pending_appointments = pending_appointments - 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+-- Initial load
+CALL sp_rebuild_system_stats();
+
+-- ============================================================
+-- Appointments: date search with time filter and keyset pagination
+-- ============================================================
+ALTER TABLE appointments
+    ADD INDEX idx_date_time (appointment_date, appointment_time, appointment_id) COMMENT 'Date search ordering and keyset pagination';
+
+-- ============================================================
+-- Audit logs: monthly range partitioning on created_at
+-- Partitioned tables cannot have foreign keys, and the primary key
+-- must include created_at. Rebuilds the table; run off-peak.
+-- AuditLogRetentionJob adds later months and archives expired ones.
+-- ============================================================
+SET @audit_fk = (SELECT CONSTRAINT_NAME FROM INFORMATION_SCHEMA.REFERENTIAL_CONSTRAINTS
+                 WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_logs' LIMIT 1);
+SET @drop_fk = IF(@audit_fk IS NULL, 'SELECT 1',
+                  CONCAT('ALTER TABLE audit_logs DROP FOREIGN KEY ', @audit_fk));
+PREPARE stmt FROM @drop_fk;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+ALTER TABLE audit_logs
+    MODIFY created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (log_id, created_at),
+    DROP INDEX idx_created_at,
+    ADD INDEX idx_created_log (created_at, log_id) COMMENT 'Keyset pagination of audit browsing';
+
+ALTER TABLE audit_logs
+PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+    PARTITION p202601 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+    PARTITION p202602 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+    PARTITION p202603 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+    PARTITION p202604 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+    PARTITION p202605 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+    PARTITION p202606 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+    PARTITION p202607 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+    PARTITION p202608 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+    PARTITION p202609 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+    PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+    PARTITION p202611 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+    PARTITION p202612 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
+
+-- ============================================================
+-- Trigger: audit_logs.user_id cleanup
+-- audit_logs is partitioned and cannot have a foreign key, so the
+-- former ON DELETE SET NULL behaviour is kept here
+-- ============================================================
+DELIMITER //
+CREATE TRIGGER before_user_delete_audit
+BEFORE DELETE ON users
+FOR EACH ROW
+BEGIN
+    UPDATE audit_logs SET user_id = NULL WHERE user_id = OLD.user_id;
+END //
+DELIMITER ;
+
+-- ============================================================
+-- Table: user_sessions
+-- Purpose: Logged-in sessions shared by all application nodes
+-- (used when session.store=jdbc; see SessionStore)
+-- ============================================================
+CREATE TABLE user_sessions (
+    session_key CHAR(43) PRIMARY KEY COMMENT 'SHA-256 of the session cookie, base64url',
+    user_id INT NOT NULL,
+    principal VARBINARY(512) NOT NULL COMMENT 'Binary SessionPrincipal',
+    created_at TIMESTAMP(3) NOT NULL,
+    last_access_at TIMESTAMP(3) NOT NULL,
+    last_write_at TIMESTAMP(3) NULL COMMENT 'Last data write, for read-your-writes on every node',
+    
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    INDEX idx_user_id (user_id),
+    INDEX idx_last_access (last_access_at)
+) ENGINE=InnoDB;
+
+-- ============================================================
+-- Notifications: unread lookups and read notification purge
+-- idx_user_unread also serves the user_id foreign key
+-- ============================================================
+ALTER TABLE notifications
+    ADD INDEX idx_user_unread (user_id, is_read, created_at) COMMENT 'Unread notifications of a user, newest first',
+    ADD INDEX idx_read_purge (is_read, read_at) COMMENT 'Purge of old read notifications',
+    DROP INDEX idx_user_id,
+    DROP INDEX idx_is_read;
+
+-- ============================================================
+-- Growth alerts: accept WASTED
+-- after_health_record_insert copies growth_status into alert_type, so a WASTED
+-- health record failed its own insert (and a whole batched insert with it)
+-- ============================================================
+ALTER TABLE growth_alerts
+    MODIFY alert_type ENUM('UNDERWEIGHT', 'OVERWEIGHT', 'STUNTED', 'WASTED', 'RAPID_WEIGHT_LOSS', 'RAPID_WEIGHT_GAIN', 'NO_GROWTH') NOT NULL;
+
+-- ============================================================
+-- Health records: latest records of a child (growth trend state rebuild)
+-- idx_child_assessment also serves the child_id foreign key
+-- ============================================================
+ALTER TABLE health_records
+    ADD INDEX idx_child_assessment (child_id, assessment_date) COMMENT 'Latest records of a child (growth trend)',
+    DROP INDEX idx_child_id;
+
+-- ============================================================
+-- Children: last checkup date for the overdue checkup scan
+-- Kept up to date by triggers on health_records; OverdueCheckupJob
+-- reads the children whose checkup became due since its last run
+-- ============================================================
+ALTER TABLE children
+    ADD COLUMN last_checkup_date DATE NULL COMMENT 'Latest health record assessment date (maintained by triggers)' AFTER is_active,
+    ADD INDEX idx_checkup_due (last_checkup_date, created_at) COMMENT 'Children whose checkup became due in a date range';
+
+UPDATE children c SET
+    c.last_checkup_date = (SELECT MAX(hr.assessment_date) FROM health_records hr WHERE hr.child_id = c.child_id),
+    c.updated_at = c.updated_at;
+
+CREATE TABLE job_watermarks (
+    job_name VARCHAR(50) PRIMARY KEY,
+    watermark DATE NOT NULL COMMENT 'End of the range processed so far (exclusive)',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB;
+
+DELIMITER //
+CREATE TRIGGER after_health_record_insert_checkup
+AFTER INSERT ON health_records
+FOR EACH ROW
+BEGIN
+    UPDATE children SET last_checkup_date = NEW.assessment_date, updated_at = updated_at
+    WHERE child_id = NEW.child_id
+      AND (last_checkup_date IS NULL OR last_checkup_date < NEW.assessment_date);
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_health_record_delete_checkup
+AFTER DELETE ON health_records
+FOR EACH ROW
+BEGIN
+    UPDATE children SET
+        last_checkup_date = (SELECT MAX(assessment_date) FROM health_records WHERE child_id = OLD.child_id),
+        updated_at = updated_at
+    WHERE child_id = OLD.child_id AND last_checkup_date = OLD.assessment_date;
+END //
+DELIMITER ;
+
+DROP PROCEDURE IF EXISTS sp_check_overdue_checkups;
+DELIMITER //
+CREATE PROCEDURE sp_check_overdue_checkups()
+BEGIN
+    SELECT 
+        c.child_id,
+        c.unique_profile_id,
+        c.full_name AS child_name,
+        u.full_name AS mother_name,
+        u.email AS mother_email,
+        u.phone_number AS mother_phone,
+        c.last_checkup_date AS last_checkup,
+        DATEDIFF(CURDATE(), c.last_checkup_date) AS days_since_checkup,
+        TIMESTAMPDIFF(MONTH, c.date_of_birth, CURDATE()) AS child_age_months
+    FROM children c
+    INNER JOIN users u ON c.mother_id = u.user_id
+    WHERE c.is_active = TRUE
+      AND (c.last_checkup_date < CURDATE() - INTERVAL 35 DAY OR c.last_checkup_date IS NULL)
+    ORDER BY days_since_checkup DESC;
+END //
+DELIMITER ;
+
+-- ============================================================
+-- Growth alerts: doctor alert inbox, keyset paged over idx_alert_queue
+-- (severity is an ENUM, so its index order is LOW < MEDIUM < HIGH < CRITICAL).
+-- view_active_alerts no longer sorts all open alerts on every read
+-- ============================================================
+ALTER TABLE growth_alerts
+    ADD INDEX idx_alert_queue (is_resolved, severity, created_at) COMMENT 'Alert inbox: open alerts by severity, newest first',
+    DROP INDEX idx_resolved;
+
+CREATE OR REPLACE VIEW view_active_alerts AS
+SELECT 
+    ga.*,
+    c.full_name AS child_name,
+    c.date_of_birth,
+    u.full_name AS mother_name,
+    u.phone_number AS mother_phone
+FROM growth_alerts ga
+INNER JOIN children c ON ga.child_id = c.child_id
+INNER JOIN users u ON c.mother_id = u.user_id
+WHERE ga.is_resolved = FALSE;
+
+-- ============================================================
+-- Children: when the last checkup date changed, so OverdueCheckupJob
+-- also reminds children whose checkup moved below its watermark
+-- (back-dated health records, records committed after a scan, deletions)
+-- ============================================================
+ALTER TABLE children
+    ADD COLUMN checkup_changed_at TIMESTAMP NULL COMMENT 'When last_checkup_date last changed (maintained by triggers)' AFTER last_checkup_date,
+    ADD INDEX idx_checkup_changed (checkup_changed_at) COMMENT 'Children whose last checkup changed since the previous overdue scan';
+
+DROP TRIGGER IF EXISTS after_health_record_insert_checkup;
+DELIMITER //
+CREATE TRIGGER after_health_record_insert_checkup
+AFTER INSERT ON health_records
+FOR EACH ROW
+BEGIN
+    UPDATE children SET last_checkup_date = NEW.assessment_date, checkup_changed_at = CURRENT_TIMESTAMP,
+        updated_at = updated_at
+    WHERE child_id = NEW.child_id
+      AND (last_checkup_date IS NULL OR last_checkup_date < NEW.assessment_date);
+END //
+DELIMITER ;
+
+DROP TRIGGER IF EXISTS after_health_record_delete_checkup;
+DELIMITER //
+CREATE TRIGGER after_health_record_delete_checkup
+AFTER DELETE ON health_records
+FOR EACH ROW
+BEGIN
+    UPDATE children SET
+        last_checkup_date = (SELECT MAX(assessment_date) FROM health_records WHERE child_id = OLD.child_id),
+        checkup_changed_at = CURRENT_TIMESTAMP,
+        updated_at = updated_at
+    WHERE child_id = OLD.child_id AND last_checkup_date = OLD.assessment_date;
+END //
+DELIMITER ;
+
+-- ============================================================
+-- Growth alerts: resolution time, so CriticalAlertQueue reads only the
+-- alerts resolved since its last refresh instead of re-checking all it holds
+-- ============================================================
+ALTER TABLE growth_alerts
+    ADD COLUMN resolved_at TIMESTAMP NULL COMMENT 'When the alert was resolved (alert queue refresh)' AFTER resolved_date,
+    ADD INDEX idx_resolved_at (resolved_at) COMMENT 'Alerts resolved since the last alert queue refresh';
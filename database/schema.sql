@@ -28,7 +28,8 @@ CREATE TABLE users (
     
     INDEX idx_email (email),
     INDEX idx_role (role),
-    INDEX idx_active (is_active)
+    INDEX idx_active (is_active),
+    INDEX idx_created_user (created_at, user_id) COMMENT 'Keyset pagination of user listings'
 ) ENGINE=InnoDB;
 
 -- ============================================================
@@ -51,13 +52,17 @@ CREATE TABLE children (
     address TEXT,
     medical_history TEXT COMMENT 'Pre-existing conditions, allergies',
     is_active BOOLEAN DEFAULT TRUE,
+    last_checkup_date DATE NULL COMMENT 'Latest health record assessment date (maintained by triggers)',
+    checkup_changed_at TIMESTAMP NULL COMMENT 'When last_checkup_date last changed (maintained by triggers)',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     
     FOREIGN KEY (mother_id) REFERENCES users(user_id) ON DELETE CASCADE,
     INDEX idx_mother_id (mother_id),
     INDEX idx_dob (date_of_birth),
-    INDEX idx_active (is_active)
+    INDEX idx_active (is_active),
+    INDEX idx_checkup_due (last_checkup_date, created_at) COMMENT 'Children whose checkup became due in a date range',
+    INDEX idx_checkup_changed (checkup_changed_at) COMMENT 'Children whose last checkup changed since the previous overdue scan'
 ) ENGINE=InnoDB;
 
 -- ============================================================
@@ -86,7 +91,7 @@ CREATE TABLE health_records (
     
     FOREIGN KEY (child_id) REFERENCES children(child_id) ON DELETE CASCADE,
     FOREIGN KEY (doctor_id) REFERENCES users(user_id) ON DELETE SET NULL,
-    INDEX idx_child_id (child_id),
+    INDEX idx_child_assessment (child_id, assessment_date) COMMENT 'Latest records of a child (growth trend)',
     INDEX idx_doctor_id (doctor_id),
     INDEX idx_assessment_date (assessment_date),
     INDEX idx_growth_status (growth_status)
@@ -113,7 +118,8 @@ CREATE TABLE appointments (
     INDEX idx_child_id (child_id),
     INDEX idx_doctor_id (doctor_id),
     INDEX idx_appointment_date (appointment_date),
-    INDEX idx_status (status)
+    INDEX idx_status (status),
+    INDEX idx_date_time (appointment_date, appointment_time, appointment_id) COMMENT 'Date search ordering and keyset pagination'
 ) ENGINE=InnoDB;
 
 -- ============================================================
@@ -147,11 +153,12 @@ CREATE TABLE growth_alerts (
     alert_id INT PRIMARY KEY AUTO_INCREMENT,
     child_id INT NOT NULL,
     record_id INT NOT NULL,
-    alert_type ENUM('UNDERWEIGHT', 'OVERWEIGHT', 'STUNTED', 'RAPID_WEIGHT_LOSS', 'RAPID_WEIGHT_GAIN', 'NO_GROWTH') NOT NULL,
+    alert_type ENUM('UNDERWEIGHT', 'OVERWEIGHT', 'STUNTED', 'WASTED', 'RAPID_WEIGHT_LOSS', 'RAPID_WEIGHT_GAIN', 'NO_GROWTH') NOT NULL,
     severity ENUM('LOW', 'MEDIUM', 'HIGH', 'CRITICAL') DEFAULT 'MEDIUM',
     description TEXT NOT NULL,
     is_resolved BOOLEAN DEFAULT FALSE,
     resolved_date DATE,
+    resolved_at TIMESTAMP NULL COMMENT 'When the alert was resolved (alert queue refresh)',
     resolved_by INT COMMENT 'Doctor who resolved the alert',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     
@@ -160,7 +167,8 @@ CREATE TABLE growth_alerts (
     FOREIGN KEY (resolved_by) REFERENCES users(user_id) ON DELETE SET NULL,
     INDEX idx_child_id (child_id),
     INDEX idx_alert_type (alert_type),
-    INDEX idx_resolved (is_resolved)
+    INDEX idx_alert_queue (is_resolved, severity, created_at) COMMENT 'Alert inbox: open alerts by severity, newest first',
+    INDEX idx_resolved_at (resolved_at) COMMENT 'Alerts resolved since the last alert queue refresh'
 ) ENGINE=InnoDB;
 
 -- ============================================================
@@ -168,7 +176,7 @@ CREATE TABLE growth_alerts (
 -- Purpose: Track all critical operations for security and compliance
 -- ============================================================
 CREATE TABLE audit_logs (
-    log_id INT PRIMARY KEY AUTO_INCREMENT,
+    log_id INT AUTO_INCREMENT,
     user_id INT,
     action VARCHAR(100) NOT NULL COMMENT 'CREATE, UPDATE, DELETE, LOGIN, LOGOUT',
     table_name VARCHAR(50) COMMENT 'Affected table',
@@ -177,14 +185,33 @@ CREATE TABLE audit_logs (
     new_value TEXT COMMENT 'New value (for creates/updates)',
     ip_address VARCHAR(45),
     user_agent TEXT,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     
-    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE SET NULL,
+    -- Partitioned tables cannot have foreign keys, and every unique key must
+    -- include the partitioning column; user_id is not enforced against users
+    PRIMARY KEY (log_id, created_at),
     INDEX idx_user_id (user_id),
     INDEX idx_action (action),
     INDEX idx_table_name (table_name),
-    INDEX idx_created_at (created_at)
-) ENGINE=InnoDB;
+    INDEX idx_created_log (created_at, log_id) COMMENT 'Keyset pagination of audit browsing'
+) ENGINE=InnoDB
+-- Monthly partitions; AuditLogRetentionJob adds future months and archives expired ones
+PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (
+    PARTITION p_history VALUES LESS THAN (UNIX_TIMESTAMP('2026-01-01 00:00:00')),
+    PARTITION p202601 VALUES LESS THAN (UNIX_TIMESTAMP('2026-02-01 00:00:00')),
+    PARTITION p202602 VALUES LESS THAN (UNIX_TIMESTAMP('2026-03-01 00:00:00')),
+    PARTITION p202603 VALUES LESS THAN (UNIX_TIMESTAMP('2026-04-01 00:00:00')),
+    PARTITION p202604 VALUES LESS THAN (UNIX_TIMESTAMP('2026-05-01 00:00:00')),
+    PARTITION p202605 VALUES LESS THAN (UNIX_TIMESTAMP('2026-06-01 00:00:00')),
+    PARTITION p202606 VALUES LESS THAN (UNIX_TIMESTAMP('2026-07-01 00:00:00')),
+    PARTITION p202607 VALUES LESS THAN (UNIX_TIMESTAMP('2026-08-01 00:00:00')),
+    PARTITION p202608 VALUES LESS THAN (UNIX_TIMESTAMP('2026-09-01 00:00:00')),
+    PARTITION p202609 VALUES LESS THAN (UNIX_TIMESTAMP('2026-10-01 00:00:00')),
+    PARTITION p202610 VALUES LESS THAN (UNIX_TIMESTAMP('2026-11-01 00:00:00')),
+    PARTITION p202611 VALUES LESS THAN (UNIX_TIMESTAMP('2026-12-01 00:00:00')),
+    PARTITION p202612 VALUES LESS THAN (UNIX_TIMESTAMP('2027-01-01 00:00:00')),
+    PARTITION p_future VALUES LESS THAN MAXVALUE
+);
 
 -- ============================================================
 -- Table: notifications
@@ -205,11 +232,61 @@ CREATE TABLE notifications (
     FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
     FOREIGN KEY (related_child_id) REFERENCES children(child_id) ON DELETE CASCADE,
     FOREIGN KEY (related_appointment_id) REFERENCES appointments(appointment_id) ON DELETE CASCADE,
-    INDEX idx_user_id (user_id),
-    INDEX idx_is_read (is_read),
+    INDEX idx_user_unread (user_id, is_read, created_at) COMMENT 'Unread notifications of a user, newest first',
+    INDEX idx_read_purge (is_read, read_at) COMMENT 'Purge of old read notifications',
     INDEX idx_created_at (created_at)
 ) ENGINE=InnoDB;
 
+-- ============================================================
+-- Table: user_sessions
+-- Purpose: Logged-in sessions shared by all application nodes
+-- (used when session.store=jdbc; see SessionStore)
+-- ============================================================
+CREATE TABLE user_sessions (
+    session_key CHAR(43) PRIMARY KEY COMMENT 'SHA-256 of the session cookie, base64url',
+    user_id INT NOT NULL,
+    principal VARBINARY(512) NOT NULL COMMENT 'Binary SessionPrincipal',
+    created_at TIMESTAMP(3) NOT NULL,
+    last_access_at TIMESTAMP(3) NOT NULL,
+    last_write_at TIMESTAMP(3) NULL COMMENT 'Last data write, for read-your-writes on every node',
+    
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE,
+    INDEX idx_user_id (user_id),
+    INDEX idx_last_access (last_access_at)
+) ENGINE=InnoDB;
+
+-- ============================================================
+-- Table: system_stats
+-- Purpose: Single-row summary of system totals for the admin dashboard
+-- Maintained incrementally by the *_stats triggers below
+-- ============================================================
+CREATE TABLE system_stats (
+    stats_id TINYINT PRIMARY KEY DEFAULT 1,
+    total_users INT NOT NULL DEFAULT 0,
+    active_users INT NOT NULL DEFAULT 0,
+    total_mothers INT NOT NULL DEFAULT 0,
+    total_doctors INT NOT NULL DEFAULT 0,
+    total_admins INT NOT NULL DEFAULT 0,
+    total_children INT NOT NULL DEFAULT 0,
+    open_growth_alerts INT NOT NULL DEFAULT 0 COMMENT 'Unresolved growth alerts',
+    pending_appointments INT NOT NULL DEFAULT 0 COMMENT 'Appointments SCHEDULED or CONFIRMED',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    
+    CONSTRAINT chk_single_row CHECK (stats_id = 1)
+) ENGINE=InnoDB;
+
+INSERT INTO system_stats (stats_id) VALUES (1);
+
+-- ============================================================
+-- Table: job_watermarks
+-- Purpose: Progress of incremental background jobs (e.g. OverdueCheckupJob)
+-- ============================================================
+CREATE TABLE job_watermarks (
+    job_name VARCHAR(50) PRIMARY KEY,
+    watermark DATE NOT NULL COMMENT 'End of the range processed so far (exclusive)',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+) ENGINE=InnoDB;
+
 -- ============================================================
 -- Views for easier data access
 -- ============================================================
@@ -270,8 +347,7 @@ SELECT
 FROM growth_alerts ga
 INNER JOIN children c ON ga.child_id = c.child_id
 INNER JOIN users u ON c.mother_id = u.user_id
-WHERE ga.is_resolved = FALSE
-ORDER BY ga.severity DESC, ga.created_at DESC;
+WHERE ga.is_resolved = FALSE;
 
 -- ============================================================
 -- Stored Procedures
@@ -324,19 +400,36 @@ BEGIN
         u.full_name AS mother_name,
         u.email AS mother_email,
         u.phone_number AS mother_phone,
-        MAX(hr.assessment_date) AS last_checkup,
-        DATEDIFF(CURDATE(), MAX(hr.assessment_date)) AS days_since_checkup,
+        c.last_checkup_date AS last_checkup,
+        DATEDIFF(CURDATE(), c.last_checkup_date) AS days_since_checkup,
         TIMESTAMPDIFF(MONTH, c.date_of_birth, CURDATE()) AS child_age_months
     FROM children c
     INNER JOIN users u ON c.mother_id = u.user_id
-    LEFT JOIN health_records hr ON c.child_id = hr.child_id
     WHERE c.is_active = TRUE
-    GROUP BY c.child_id, c.unique_profile_id, c.full_name, u.full_name, u.email, u.phone_number, c.date_of_birth
-    HAVING days_since_checkup > 35 OR days_since_checkup IS NULL
+      AND (c.last_checkup_date < CURDATE() - INTERVAL 35 DAY OR c.last_checkup_date IS NULL)
     ORDER BY days_since_checkup DESC;
 END //
 DELIMITER ;
 
+-- Recompute system_stats from scratch (initial load or repair)
+DELIMITER //
+CREATE PROCEDURE sp_rebuild_system_stats()
+BEGIN
+    INSERT IGNORE INTO system_stats (stats_id) VALUES (1);
+    
+    UPDATE system_stats SET
+        total_users = (SELECT COUNT(*) FROM users),
+        active_users = (SELECT COUNT(*) FROM users WHERE is_active = TRUE),
+        total_mothers = (SELECT COUNT(*) FROM users WHERE role = 'MOTHER'),
+        total_doctors = (SELECT COUNT(*) FROM users WHERE role = 'DOCTOR'),
+        total_admins = (SELECT COUNT(*) FROM users WHERE role = 'ADMIN'),
+        total_children = (SELECT COUNT(*) FROM children),
+        open_growth_alerts = (SELECT COUNT(*) FROM growth_alerts WHERE is_resolved = FALSE),
+        pending_appointments = (SELECT COUNT(*) FROM appointments WHERE status IN ('SCHEDULED', 'CONFIRMED'))
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
 -- ============================================================
 -- Triggers
 -- ============================================================
@@ -410,6 +503,223 @@ BEGIN
 END //
 DELIMITER ;
 
+-- ============================================================
+-- Triggers: system_stats maintenance
+-- Note: MySQL does not fire triggers for rows removed by ON DELETE CASCADE,
+-- so the parent BEFORE DELETE triggers subtract their dependent rows themselves
+-- ============================================================
+
+DELIMITER //
+CREATE TRIGGER after_user_insert_stats
+AFTER INSERT ON users
+FOR EACH ROW
+BEGIN
+    UPDATE system_stats SET
+        total_users = total_users + 1,
+        active_users = active_users + IF(NEW.is_active, 1, 0),
+        total_mothers = total_mothers + IF(NEW.role = 'MOTHER', 1, 0),
+        total_doctors = total_doctors + IF(NEW.role = 'DOCTOR', 1, 0),
+        total_admins = total_admins + IF(NEW.role = 'ADMIN', 1, 0)
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_user_update_stats
+AFTER UPDATE ON users
+FOR EACH ROW
+BEGIN
+    IF NEW.role <> OLD.role OR NOT (NEW.is_active <=> OLD.is_active) THEN
+        UPDATE system_stats SET
+            active_users = active_users + IF(NEW.is_active, 1, 0) - IF(OLD.is_active, 1, 0),
+            total_mothers = total_mothers + IF(NEW.role = 'MOTHER', 1, 0) - IF(OLD.role = 'MOTHER', 1, 0),
+            total_doctors = total_doctors + IF(NEW.role = 'DOCTOR', 1, 0) - IF(OLD.role = 'DOCTOR', 1, 0),
+            total_admins = total_admins + IF(NEW.role = 'ADMIN', 1, 0) - IF(OLD.role = 'ADMIN', 1, 0)
+        WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER before_user_delete_stats
+BEFORE DELETE ON users
+FOR EACH ROW
+BEGIN
+    -- Deleting a mother cascades to her children, their alerts and appointments
+    UPDATE system_stats SET
+        total_users = total_users - 1,
+        active_users = active_users - IF(OLD.is_active, 1, 0),
+        total_mothers = total_mothers - IF(OLD.role = 'MOTHER', 1, 0),
+        total_doctors = total_doctors - IF(OLD.role = 'DOCTOR', 1, 0),
+        total_admins = total_admins - IF(OLD.role = 'ADMIN', 1, 0),
+        total_children = total_children -
+            (SELECT COUNT(*) FROM children WHERE mother_id = OLD.user_id),
+        open_growth_alerts = open_growth_alerts -
+            (SELECT COUNT(*) FROM growth_alerts ga
+             INNER JOIN children c ON ga.child_id = c.child_id
+             WHERE c.mother_id = OLD.user_id AND ga.is_resolved = FALSE),
+        pending_appointments = pending_appointments -
+            (SELECT COUNT(*) FROM appointments a
+             INNER JOIN children c ON a.child_id = c.child_id
+             WHERE c.mother_id = OLD.user_id AND a.status IN ('SCHEDULED', 'CONFIRMED'))
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_child_insert_stats
+AFTER INSERT ON children
+FOR EACH ROW
+BEGIN
+    UPDATE system_stats SET total_children = total_children + 1 WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER before_child_delete_stats
+BEFORE DELETE ON children
+FOR EACH ROW
+BEGIN
+    -- Deleting a child cascades to its alerts and appointments
+    UPDATE system_stats SET
+        total_children = total_children - 1,
+        open_growth_alerts = open_growth_alerts -
+            (SELECT COUNT(*) FROM growth_alerts WHERE child_id = OLD.child_id AND is_resolved = FALSE),
+        pending_appointments = pending_appointments -
+            (SELECT COUNT(*) FROM appointments WHERE child_id = OLD.child_id AND status IN ('SCHEDULED', 'CONFIRMED'))
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER before_health_record_delete_stats
+BEFORE DELETE ON health_records
+FOR EACH ROW
+BEGIN
+    -- Deleting a health record cascades to the alerts it raised
+    UPDATE system_stats SET
+        open_growth_alerts = open_growth_alerts -
+            (SELECT COUNT(*) FROM growth_alerts WHERE record_id = OLD.record_id AND is_resolved = FALSE)
+    WHERE stats_id = 1;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_growth_alert_insert_stats
+AFTER INSERT ON growth_alerts
+FOR EACH ROW
+BEGIN
+    IF NEW.is_resolved = FALSE THEN
+        UPDATE system_stats SET open_growth_alerts = open_growth_alerts + 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_growth_alert_update_stats
+AFTER UPDATE ON growth_alerts
+FOR EACH ROW
+BEGIN
+    IF NOT (NEW.is_resolved <=> OLD.is_resolved) THEN
+        UPDATE system_stats SET
+            open_growth_alerts = open_growth_alerts
+                + IF(NEW.is_resolved = FALSE, 1, 0) - IF(OLD.is_resolved = FALSE, 1, 0)
+        WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_growth_alert_delete_stats
+AFTER DELETE ON growth_alerts
+FOR EACH ROW
+BEGIN
+    IF OLD.is_resolved = FALSE THEN
+        UPDATE system_stats SET open_growth_alerts = open_growth_alerts - 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_appointment_insert_stats
+AFTER INSERT ON appointments
+FOR EACH ROW
+BEGIN
+    IF NEW.status IN ('SCHEDULED', 'CONFIRMED') THEN
+        UPDATE system_stats SET pending_appointments = pending_appointments + 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_appointment_update_stats
+AFTER UPDATE ON appointments
+FOR EACH ROW
+BEGIN
+    IF NEW.status <> OLD.status THEN
+        UPDATE system_stats SET
+            pending_appointments = pending_appointments
+                + IF(NEW.status IN ('SCHEDULED', 'CONFIRMED'), 1, 0)
+                - IF(OLD.status IN ('SCHEDULED', 'CONFIRMED'), 1, 0)
+        WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_appointment_delete_stats
+AFTER DELETE ON appointments
+FOR EACH ROW
+BEGIN
+    IF OLD.status IN ('SCHEDULED', 'CONFIRMED') THEN
+        UPDATE system_stats SET pending_appointments = pending_appointments - 1 WHERE stats_id = 1;
+    END IF;
+END //
+DELIMITER ;
+
+-- ============================================================
+-- Trigger: audit_logs.user_id cleanup
+-- audit_logs is partitioned and cannot have a foreign key, so the
+-- former ON DELETE SET NULL behaviour is kept here
+-- ============================================================
+DELIMITER //
+CREATE TRIGGER before_user_delete_audit
+BEFORE DELETE ON users
+FOR EACH ROW
+BEGIN
+    UPDATE audit_logs SET user_id = NULL WHERE user_id = OLD.user_id;
+END //
+DELIMITER ;
+
+-- ============================================================
+-- Triggers: children.last_checkup_date maintenance
+-- updated_at is kept, as a checkup does not change the child's profile
+-- ============================================================
+DELIMITER //
+CREATE TRIGGER after_health_record_insert_checkup
+AFTER INSERT ON health_records
+FOR EACH ROW
+BEGIN
+    UPDATE children SET last_checkup_date = NEW.assessment_date, checkup_changed_at = CURRENT_TIMESTAMP,
+        updated_at = updated_at
+    WHERE child_id = NEW.child_id
+      AND (last_checkup_date IS NULL OR last_checkup_date < NEW.assessment_date);
+END //
+DELIMITER ;
+
+DELIMITER //
+CREATE TRIGGER after_health_record_delete_checkup
+AFTER DELETE ON health_records
+FOR EACH ROW
+BEGIN
+    UPDATE children SET
+        last_checkup_date = (SELECT MAX(assessment_date) FROM health_records WHERE child_id = OLD.child_id),
+        checkup_changed_at = CURRENT_TIMESTAMP,
+        updated_at = updated_at
+    WHERE child_id = OLD.child_id AND last_checkup_date = OLD.assessment_date;
+END //
+DELIMITER ;
+
 -- ============================================================
 -- Database is ready!
 -- ============================================================
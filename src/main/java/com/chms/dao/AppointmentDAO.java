@@ -1,10 +1,12 @@
 package com.chms.dao;
 
 import com.chms.model.Appointment;
+import com.chms.model.Page;
 import com.chms.util.DatabaseConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,41 +17,29 @@ import java.util.List;
 public class AppointmentDAO {
     private static final Logger logger = LoggerFactory.getLogger(AppointmentDAO.class);
 
+    static final String UPCOMING_BY_MOTHER_SQL =
+        "SELECT a.*, c.full_name as child_name, u.full_name as doctor_name " +
+        "FROM appointments a " +
+        "JOIN children c ON a.child_id = c.child_id " +
+        "JOIN users u ON a.doctor_id = u.user_id " +
+        "WHERE c.mother_id = ? AND a.appointment_date >= CURDATE() " +
+        "AND a.status IN ('SCHEDULED', 'CONFIRMED') " +
+        "ORDER BY a.appointment_date, a.appointment_time LIMIT 10";
+
     /**
      * Get upcoming appointments for a mother's children
      */
     public List<Appointment> getUpcomingAppointmentsByMotherId(int motherId) {
         List<Appointment> appointments = new ArrayList<>();
-        String sql = "SELECT a.*, c.full_name as child_name, u.full_name as doctor_name " +
-                    "FROM appointments a " +
-                    "JOIN children c ON a.child_id = c.child_id " +
-                    "JOIN users u ON a.doctor_id = u.user_id " +
-                    "WHERE c.mother_id = ? AND a.appointment_date >= CURDATE() " +
-                    "AND a.status IN ('SCHEDULED', 'CONFIRMED') " +
-                    "ORDER BY a.appointment_date, a.appointment_time LIMIT 10";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(UPCOMING_BY_MOTHER_SQL)) {
             
             pstmt.setInt(1, motherId);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                Appointment appointment = new Appointment();
-                appointment.setAppointmentId(rs.getInt("appointment_id"));
-                appointment.setChildId(rs.getInt("child_id"));
-                appointment.setDoctorId(rs.getInt("doctor_id"));
-                appointment.setAppointmentDate(rs.getDate("appointment_date"));
-                appointment.setAppointmentTime(rs.getTime("appointment_time"));
-                appointment.setAppointmentType(Appointment.AppointmentType.valueOf(rs.getString("appointment_type")));
-                appointment.setStatus(Appointment.AppointmentStatus.valueOf(rs.getString("status")));
-                appointment.setNotes(rs.getString("notes"));
-                
-                // Store child and doctor names as extra attributes
-                appointment.setChildName(rs.getString("child_name"));
-                appointment.setDoctorName(rs.getString("doctor_name"));
-                
-                appointments.add(appointment);
+                appointments.add(mapUpcomingForMother(rs));
             }
             
             logger.info("Retrieved {} upcoming appointments for mother ID: {}", appointments.size(), motherId);
@@ -63,6 +53,7 @@ public class AppointmentDAO {
 
     /**
      * Get upcoming appointments for a doctor
+     * @return Appointments, or null on error
      */
     public List<Appointment> getUpcomingAppointmentsByDoctorId(int doctorId) {
         List<Appointment> appointments = new ArrayList<>();
@@ -74,7 +65,7 @@ public class AppointmentDAO {
                     "AND a.status IN ('SCHEDULED', 'CONFIRMED') " +
                     "ORDER BY a.appointment_date, a.appointment_time LIMIT 20";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, doctorId);
@@ -100,6 +91,7 @@ public class AppointmentDAO {
             
         } catch (SQLException e) {
             logger.error("Error retrieving appointments for doctor ID: " + doctorId, e);
+            return null;
         }
         
         return appointments;
@@ -107,6 +99,7 @@ public class AppointmentDAO {
 
     /**
      * Get today's appointments for a doctor
+     * @return Appointments, or null on error
      */
     public List<Appointment> getTodayAppointmentsByDoctorId(int doctorId) {
         List<Appointment> appointments = new ArrayList<>();
@@ -117,7 +110,7 @@ public class AppointmentDAO {
                     "WHERE a.doctor_id = ? AND a.appointment_date = CURDATE() " +
                     "ORDER BY a.appointment_time";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, doctorId);
@@ -143,6 +136,7 @@ public class AppointmentDAO {
             
         } catch (SQLException e) {
             logger.error("Error retrieving today's appointments for doctor ID: " + doctorId, e);
+            return null;
         }
         
         return appointments;
@@ -162,7 +156,7 @@ public class AppointmentDAO {
                     "WHERE a.appointment_date = ? " +
                     "ORDER BY a.appointment_time";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, searchDate);
@@ -208,7 +202,7 @@ public class AppointmentDAO {
                     "WHERE a.appointment_date BETWEEN ? AND ? " +
                     "ORDER BY a.appointment_date, a.appointment_time";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, startDate);
@@ -240,4 +234,270 @@ public class AppointmentDAO {
         
         return appointments;
     }
+
+    /**
+     * Map a row of UPCOMING_BY_MOTHER_SQL to an Appointment with child and doctor names
+     */
+    static Appointment mapUpcomingForMother(ResultSet rs) throws SQLException {
+        Appointment appointment = new Appointment();
+        appointment.setAppointmentId(rs.getInt("appointment_id"));
+        appointment.setChildId(rs.getInt("child_id"));
+        appointment.setDoctorId(rs.getInt("doctor_id"));
+        appointment.setAppointmentDate(rs.getDate("appointment_date"));
+        appointment.setAppointmentTime(rs.getTime("appointment_time"));
+        appointment.setAppointmentType(Appointment.AppointmentType.valueOf(rs.getString("appointment_type")));
+        appointment.setStatus(Appointment.AppointmentStatus.valueOf(rs.getString("status")));
+        appointment.setNotes(rs.getString("notes"));
+        
+        // Store child and doctor names as extra attributes
+        appointment.setChildName(rs.getString("child_name"));
+        appointment.setDoctorName(rs.getString("doctor_name"));
+        return appointment;
+    }
+
+    /**
+     * Search appointments with all filters applied in SQL, ordered by date, time and ID.
+     * Results are paged with a keyset cursor on (appointment_date, appointment_time, appointment_id).
+     * @param criteria Search filters and page position
+     * @param pageSize Maximum number of appointments to return
+     * @return Page of appointments with child, doctor and mother names
+     */
+    public Page<Appointment> searchAppointments(AppointmentSearch criteria, int pageSize) {
+        List<Appointment> appointments = new ArrayList<>();
+        String sql = criteria.toSql() + " LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = criteria.bind(pstmt, 1);
+            // Fetch one extra row to find out whether another page exists
+            pstmt.setInt(index, pageSize + 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    appointments.add(mapSearchResult(rs));
+                }
+            }
+            
+            logger.info("Appointment search {} returned {} rows", criteria, appointments.size());
+            
+        } catch (SQLException e) {
+            logger.error("Error searching appointments: " + criteria, e);
+        }
+        
+        String nextCursor = null;
+        if (appointments.size() > pageSize) {
+            appointments.remove(pageSize);
+            nextCursor = AppointmentSearch.cursorOf(appointments.get(pageSize - 1));
+        }
+        return new Page<>(appointments, nextCursor);
+    }
+
+    /**
+     * Stream every appointment matching the search to a handler without building a list.
+     * The cursor of the search is ignored. The connection is held until the last row is handled.
+     * @param criteria Search filters
+     * @param handler Receives each appointment in date/time order
+     * @return Number of rows streamed
+     * @throws SQLException If the query fails
+     * @throws IOException If the handler fails
+     */
+    public int streamAppointments(AppointmentSearch criteria, RowHandler<Appointment> handler)
+            throws SQLException, IOException {
+        int count = 0;
+        String sql = criteria.toSql();
+        
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            pstmt.setFetchSize(DatabaseConnection.STREAMING_FETCH_SIZE);
+            criteria.bind(pstmt, 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapSearchResult(rs));
+                    count++;
+                }
+            }
+        }
+        
+        logger.info("Streamed {} appointments for {}", count, criteria);
+        return count;
+    }
+
+    /**
+     * Map a search row (appointment with child, doctor and mother names)
+     */
+    static Appointment mapSearchResult(ResultSet rs) throws SQLException {
+        Appointment appointment = mapUpcomingForMother(rs);
+        appointment.setMotherName(rs.getString("mother_name"));
+        return appointment;
+    }
+
+    /**
+     * Composable appointment search. Every filter is optional and becomes a
+     * predicate in the WHERE clause; values are always bound as parameters.
+     * <pre>
+     * new AppointmentSearch().between(start, end).nameContains("jane").timeBetween(from, to)
+     * </pre>
+     */
+    public static final class AppointmentSearch {
+        private static final String SELECT =
+            "SELECT a.*, c.full_name as child_name, u.full_name as doctor_name, " +
+            "m.full_name as mother_name " +
+            "FROM appointments a " +
+            "JOIN children c ON a.child_id = c.child_id " +
+            "JOIN users u ON a.doctor_id = u.user_id " +
+            "JOIN users m ON c.mother_id = m.user_id";
+        
+        private Date fromDate;
+        private Date toDate;
+        private String namePattern;
+        private Time fromTime;
+        private Time toTime;
+        private Date afterDate;
+        private Time afterTime;
+        private int afterId;
+        
+        /**
+         * Only appointments on the given date
+         */
+        public AppointmentSearch onDate(Date date) {
+            return between(date, date);
+        }
+        
+        /**
+         * Only appointments between two dates (inclusive)
+         */
+        public AppointmentSearch between(Date startDate, Date endDate) {
+            this.fromDate = startDate;
+            this.toDate = endDate;
+            return this;
+        }
+        
+        /**
+         * Only appointments whose child, mother or doctor name contains the text
+         * (case-insensitive through the column collation)
+         */
+        public AppointmentSearch nameContains(String text) {
+            if (text != null && !text.trim().isEmpty()) {
+                this.namePattern = "%" + escapeLike(text.trim()) + "%";
+            }
+            return this;
+        }
+        
+        /**
+         * Only appointments whose time of day is within the window (inclusive)
+         */
+        public AppointmentSearch timeBetween(Time startTime, Time endTime) {
+            this.fromTime = startTime;
+            this.toTime = endTime;
+            return this;
+        }
+        
+        /**
+         * Continue after the last row of a previous page
+         * @param cursor Cursor from {@link Page#getNextCursor()}; null or invalid values start from the beginning
+         */
+        public AppointmentSearch after(String cursor) {
+            this.afterDate = null;
+            if (cursor != null && !cursor.isEmpty()) {
+                try {
+                    String[] parts = cursor.split(",", 3);
+                    Date date = Date.valueOf(parts[0]);
+                    Time time = Time.valueOf(parts[1]);
+                    this.afterId = Integer.parseInt(parts[2]);
+                    this.afterTime = time;
+                    this.afterDate = date;
+                } catch (RuntimeException e) {
+                    logger.warn("Ignoring invalid appointment search cursor: {}", cursor);
+                }
+            }
+            return this;
+        }
+        
+        /**
+         * Build the SELECT statement (without LIMIT) for the current filters
+         */
+        String toSql() {
+            StringBuilder sql = new StringBuilder(SELECT);
+            List<String> predicates = new ArrayList<>();
+            if (fromDate != null) {
+                predicates.add("a.appointment_date >= ?");
+            }
+            if (toDate != null) {
+                predicates.add("a.appointment_date <= ?");
+            }
+            if (namePattern != null) {
+                predicates.add("(c.full_name LIKE ? OR m.full_name LIKE ? OR u.full_name LIKE ?)");
+            }
+            if (fromTime != null) {
+                predicates.add("a.appointment_time >= ?");
+            }
+            if (toTime != null) {
+                predicates.add("a.appointment_time <= ?");
+            }
+            if (afterDate != null) {
+                predicates.add("(a.appointment_date > ? OR (a.appointment_date = ? AND " +
+                              "(a.appointment_time > ? OR (a.appointment_time = ? AND a.appointment_id > ?))))");
+            }
+            if (!predicates.isEmpty()) {
+                sql.append(" WHERE ").append(String.join(" AND ", predicates));
+            }
+            sql.append(" ORDER BY a.appointment_date, a.appointment_time, a.appointment_id");
+            return sql.toString();
+        }
+        
+        /**
+         * Bind filter values in the same order as {@link #toSql()}
+         * @return Next free parameter index
+         */
+        int bind(PreparedStatement pstmt, int index) throws SQLException {
+            if (fromDate != null) {
+                pstmt.setDate(index++, fromDate);
+            }
+            if (toDate != null) {
+                pstmt.setDate(index++, toDate);
+            }
+            if (namePattern != null) {
+                pstmt.setString(index++, namePattern);
+                pstmt.setString(index++, namePattern);
+                pstmt.setString(index++, namePattern);
+            }
+            if (fromTime != null) {
+                pstmt.setTime(index++, fromTime);
+            }
+            if (toTime != null) {
+                pstmt.setTime(index++, toTime);
+            }
+            if (afterDate != null) {
+                pstmt.setDate(index++, afterDate);
+                pstmt.setDate(index++, afterDate);
+                pstmt.setTime(index++, afterTime);
+                pstmt.setTime(index++, afterTime);
+                pstmt.setInt(index++, afterId);
+            }
+            return index;
+        }
+        
+        static String cursorOf(Appointment appointment) {
+            return appointment.getAppointmentDate() + "," + appointment.getAppointmentTime() + ","
+                + appointment.getAppointmentId();
+        }
+        
+        private static String escapeLike(String text) {
+            return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        }
+        
+        @Override
+        public String toString() {
+            return "AppointmentSearch{" +
+                    "from=" + fromDate +
+                    ", to=" + toDate +
+                    ", name=" + namePattern +
+                    ", time=" + fromTime + "-" + toTime +
+                    ", after=" + (afterDate != null ? afterDate + " " + afterTime + " #" + afterId : null) +
+                    '}';
+        }
+    }
 }
@@ -1,13 +1,18 @@
 package com.chms.dao;
 
 import com.chms.model.AuditLog;
+import com.chms.model.Page;
 import com.chms.util.DatabaseConnection;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Data Access Object for AuditLog entity
@@ -16,6 +21,13 @@ public class AuditLogDAO {
     
     private static final Logger logger = LoggerFactory.getLogger(AuditLogDAO.class);
     
+    /** Catch-all partition for rows newer than the last monthly partition */
+    public static final String FUTURE_PARTITION = "p_future";
+    
+    // Partition names are interpolated into DDL, so only these shapes are accepted
+    private static final Pattern PARTITION_NAME = Pattern.compile("p_history|p\\d{6}");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    
     /**
      * Create a new audit log entry
      * @param auditLog AuditLog object
@@ -53,8 +65,54 @@ public class AuditLogDAO {
         return null;
     }
     
+    /**
+     * Insert several audit log entries in one JDBC batch and transaction.
+     * Each entry's createdAt is stored as its event time (current time if null).
+     * Generated IDs are not read back.
+     * @param auditLogs Entries to insert
+     * @return true if all entries were inserted, false if the batch was rolled back
+     */
+    public boolean createAuditLogs(List<AuditLog> auditLogs) {
+        String sql = "INSERT INTO audit_logs (user_id, action, table_name, record_id, " +
+                    "old_value, new_value, ip_address, user_agent, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                Timestamp now = new Timestamp(System.currentTimeMillis());
+                for (AuditLog auditLog : auditLogs) {
+                    pstmt.setObject(1, auditLog.getUserId());
+                    pstmt.setString(2, auditLog.getAction());
+                    pstmt.setString(3, auditLog.getTableName());
+                    pstmt.setObject(4, auditLog.getRecordId());
+                    pstmt.setString(5, auditLog.getOldValue());
+                    pstmt.setString(6, auditLog.getNewValue());
+                    pstmt.setString(7, auditLog.getIpAddress());
+                    pstmt.setString(8, auditLog.getUserAgent());
+                    pstmt.setTimestamp(9, auditLog.getCreatedAt() != null ? auditLog.getCreatedAt() : now);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                return true;
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating batch of {} audit logs", auditLogs.size(), e);
+        }
+        return false;
+    }
+    
     /**
      * Get all audit logs with pagination
+     * OFFSET paging slows down as the table grows; use {@link #getAuditLogsPage(String, int)} instead
      * @param offset Starting position
      * @param limit Number of records to fetch
      * @return List of audit logs
@@ -65,7 +123,7 @@ public class AuditLogDAO {
                     "LEFT JOIN users u ON al.user_id = u.user_id " +
                     "ORDER BY al.created_at DESC LIMIT ? OFFSET ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, limit);
@@ -82,6 +140,64 @@ public class AuditLogDAO {
         return logs;
     }
     
+    /**
+     * Get one page of audit logs, newest first, using keyset pagination on (created_at, log_id)
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param pageSize Maximum number of entries to return
+     * @return Page of audit logs with the cursor for the next page
+     */
+    public Page<AuditLog> getAuditLogsPage(String cursor, int pageSize) {
+        List<AuditLog> logs = new ArrayList<>();
+        Timestamp afterCreatedAt = null;
+        int afterLogId = 0;
+        
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = cursor.split(":", 2);
+                afterCreatedAt = new Timestamp(Long.parseLong(parts[0]));
+                afterLogId = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring invalid audit log page cursor: {}", cursor);
+                afterCreatedAt = null;
+            }
+        }
+        
+        String sql = "SELECT al.*, u.full_name as user_name FROM audit_logs al " +
+                    "LEFT JOIN users u ON al.user_id = u.user_id " +
+                    (afterCreatedAt != null
+                        ? "WHERE al.created_at < ? OR (al.created_at = ? AND al.log_id < ?) " : "") +
+                    "ORDER BY al.created_at DESC, al.log_id DESC LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (afterCreatedAt != null) {
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setInt(index++, afterLogId);
+            }
+            // Fetch one extra row to find out whether another page exists
+            pstmt.setInt(index, pageSize + 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    logs.add(extractAuditLogFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error getting audit logs page", e);
+        }
+        
+        String nextCursor = null;
+        if (logs.size() > pageSize) {
+            logs.remove(pageSize);
+            AuditLog last = logs.get(pageSize - 1);
+            nextCursor = last.getCreatedAt().getTime() + ":" + last.getLogId();
+        }
+        return new Page<>(logs, nextCursor);
+    }
+    
     /**
      * Get audit logs for a specific user
      * @param userId User ID
@@ -93,7 +209,7 @@ public class AuditLogDAO {
                     "LEFT JOIN users u ON al.user_id = u.user_id " +
                     "WHERE al.user_id = ? ORDER BY al.created_at DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, userId);
@@ -112,7 +228,7 @@ public class AuditLogDAO {
     /**
      * Get recent audit logs
      * @param limit Number of recent logs to fetch
-     * @return List of recent audit logs
+     * @return List of recent audit logs, or null on error
      */
     public List<AuditLog> getRecentAuditLogs(int limit) {
         List<AuditLog> logs = new ArrayList<>();
@@ -120,7 +236,7 @@ public class AuditLogDAO {
                     "LEFT JOIN users u ON al.user_id = u.user_id " +
                     "ORDER BY al.created_at DESC LIMIT ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, limit);
@@ -132,6 +248,7 @@ public class AuditLogDAO {
             }
         } catch (SQLException e) {
             logger.error("Error getting recent audit logs", e);
+            return null;
         }
         return logs;
     }
@@ -154,4 +271,139 @@ public class AuditLogDAO {
         log.setUserName(rs.getString("user_name"));
         return log;
     }
+    
+    // ============================================================
+    // Partition maintenance (audit_logs is range-partitioned by month)
+    // ============================================================
+    
+    /**
+     * Get the names of the audit_logs partitions in range order
+     * @return Partition names, or an empty list if the table is not partitioned
+     */
+    public List<String> getPartitionNames() {
+        List<String> partitions = new ArrayList<>();
+        String sql = "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'audit_logs' " +
+                    "AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            while (rs.next()) {
+                partitions.add(rs.getString(1));
+            }
+        } catch (SQLException e) {
+            logger.error("Error listing audit log partitions", e);
+        }
+        return partitions;
+    }
+    
+    /**
+     * Get the partition name that holds a month's entries, e.g. p202601
+     */
+    public static String partitionName(YearMonth month) {
+        return month.format(PARTITION_MONTH);
+    }
+    
+    /**
+     * Split a month off the front of the p_future partition
+     * @param month Month to add; must be later than every existing monthly partition
+     * @return true if the partition was created
+     */
+    public boolean addMonthlyPartition(YearMonth month) {
+        String sql = "ALTER TABLE audit_logs REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                    "PARTITION " + partitionName(month) + " VALUES LESS THAN (UNIX_TIMESTAMP('" +
+                    month.plusMonths(1).atDay(1) + " 00:00:00')), " +
+                    "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN MAXVALUE)";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            stmt.execute(sql);
+            logger.info("Added audit log partition {}", partitionName(month));
+            return true;
+            
+        } catch (SQLException e) {
+            logger.error("Error adding audit log partition for " + month, e);
+        }
+        return false;
+    }
+    
+    /**
+     * Stream every entry of one partition to a handler, in log_id order
+     * @param partition Partition name (p_history or pYYYYMM)
+     * @param handler Receives each entry
+     * @return Number of rows streamed
+     * @throws SQLException If the query fails
+     * @throws IOException If the handler fails
+     */
+    public int streamPartition(String partition, RowHandler<AuditLog> handler) throws SQLException, IOException {
+        requireValidPartition(partition);
+        int count = 0;
+        String sql = "SELECT al.*, NULL as user_name FROM audit_logs PARTITION (" + partition + ") al " +
+                    "ORDER BY al.log_id";
+        
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            pstmt.setFetchSize(DatabaseConnection.STREAMING_FETCH_SIZE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(extractAuditLogFromResultSet(rs));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Count the entries of one partition
+     * @param partition Partition name (p_history or pYYYYMM)
+     * @return Row count, or -1 on error
+     */
+    public long countPartition(String partition) {
+        requireValidPartition(partition);
+        String sql = "SELECT COUNT(*) FROM audit_logs PARTITION (" + partition + ")";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            logger.error("Error counting audit log partition " + partition, e);
+        }
+        return -1;
+    }
+    
+    /**
+     * Drop a partition and all entries in it
+     * @param partition Partition name (p_history or pYYYYMM)
+     * @return true if the partition was dropped
+     */
+    public boolean dropPartition(String partition) {
+        requireValidPartition(partition);
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement stmt = conn.createStatement()) {
+            
+            stmt.execute("ALTER TABLE audit_logs DROP PARTITION " + partition);
+            logger.info("Dropped audit log partition {}", partition);
+            return true;
+            
+        } catch (SQLException e) {
+            logger.error("Error dropping audit log partition " + partition, e);
+        }
+        return false;
+    }
+    
+    private static void requireValidPartition(String partition) {
+        if (partition == null || !PARTITION_NAME.matcher(partition).matches()) {
+            throw new IllegalArgumentException("Invalid audit log partition name: " + partition);
+        }
+    }
 }
@@ -2,12 +2,16 @@ package com.chms.dao;
 
 import com.chms.model.Child;
 import com.chms.util.DatabaseConnection;
+import com.chms.util.OwnershipIndex;
+import com.chms.util.TtlCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Data Access Object for Child entity
@@ -15,15 +19,26 @@ import java.util.List;
 public class ChildDAO {
     private static final Logger logger = LoggerFactory.getLogger(ChildDAO.class);
 
+    static final String CHILDREN_BY_MOTHER_SQL =
+        "SELECT * FROM children WHERE mother_id = ? ORDER BY date_of_birth DESC";
+
+    // child_id -> mother_id for authorization checks; warmed whenever children are read
+    private static final OwnershipIndex childOwners = new OwnershipIndex("childOwners",
+        Integer.parseInt(DatabaseConnection.getConfigProperty("child.ownerIndex.maxSize", "1000000")));
+
+    // Full profiles for the view and edit pages; entries are copies (Child is mutable)
+    private static final TtlCache<Integer, Child> childrenById = new TtlCache<>("childrenById",
+        Integer.parseInt(DatabaseConnection.getConfigProperty("child.cache.maxSize", "5000")),
+        Long.parseLong(DatabaseConnection.getConfigProperty("child.cache.ttlSeconds", "300")), TimeUnit.SECONDS);
+
     /**
      * Get all children for a specific mother
      */
     public List<Child> getChildrenByMotherId(int motherId) {
         List<Child> children = new ArrayList<>();
-        String sql = "SELECT * FROM children WHERE mother_id = ? ORDER BY date_of_birth DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(CHILDREN_BY_MOTHER_SQL)) {
             
             pstmt.setInt(1, motherId);
             ResultSet rs = pstmt.executeQuery();
@@ -43,6 +58,7 @@ public class ChildDAO {
 
     /**
      * Get all children under a doctor's care (children with appointments)
+     * @return Children, or null on error
      */
     public List<Child> getChildrenByDoctorId(int doctorId) {
         List<Child> children = new ArrayList<>();
@@ -51,7 +67,7 @@ public class ChildDAO {
                     "WHERE a.doctor_id = ? " +
                     "ORDER BY c.full_name";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setInt(1, doctorId);
@@ -65,15 +81,28 @@ public class ChildDAO {
             
         } catch (SQLException e) {
             logger.error("Error retrieving children for doctor ID: " + doctorId, e);
+            return null;
         }
         
         return children;
     }
 
     /**
-     * Get child by ID
+     * Get child by ID (cached)
      */
     public Child getChildById(int childId) {
+        return copyOf(childrenById.get(childId, this::loadChildById));
+    }
+
+    /**
+     * Get child by ID from the primary, bypassing the cache; for read-modify-write callers
+     */
+    public Child getChildForUpdate(int childId) {
+        return loadChildById(childId);
+    }
+
+    // Reads the primary so an entry cached right after an update never holds replica-lagged data
+    private Child loadChildById(int childId) {
         String sql = "SELECT * FROM children WHERE child_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -93,6 +122,41 @@ public class ChildDAO {
         return null;
     }
 
+    /**
+     * Get the mother of a child without loading the profile (answered from memory once known)
+     * @return Mother's user ID, or 0 if the child does not exist
+     */
+    public int getMotherIdOfChild(int childId) {
+        return childOwners.ownerOf(childId, this::loadMotherIdOfChild);
+    }
+
+    /**
+     * Check whether a child belongs to a mother
+     */
+    public boolean isChildOfMother(int childId, int motherId) {
+        return motherId > 0 && getMotherIdOfChild(childId) == motherId;
+    }
+
+    private int loadMotherIdOfChild(int childId) {
+        String sql = "SELECT mother_id FROM children WHERE child_id = ?";
+        
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, childId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error retrieving mother of child ID: " + childId, e);
+        }
+        
+        return 0;
+    }
+
     /**
      * Create a new child
      */
@@ -124,6 +188,7 @@ public class ChildDAO {
                 try (ResultSet rs = pstmt.getGeneratedKeys()) {
                     if (rs.next()) {
                         child.setChildId(rs.getInt(1));
+                        childOwners.put(child.getChildId(), child.getMotherId());
                         logger.info("Child created successfully with ID: {}", child.getChildId());
                         return child;
                     }
@@ -163,6 +228,7 @@ public class ChildDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
+                childrenById.invalidate(child.getChildId());
                 logger.info("Child updated successfully: {}", child.getChildId());
                 return true;
             }
@@ -187,6 +253,8 @@ public class ChildDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
+                childOwners.remove(childId);
+                childrenById.invalidate(childId);
                 logger.info("Child deleted successfully: {}", childId);
                 return true;
             }
@@ -204,7 +272,7 @@ public class ChildDAO {
         List<Child> children = new ArrayList<>();
         String sql = "SELECT * FROM children WHERE date_of_birth = ? ORDER BY full_name";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, dateOfBirth);
@@ -230,7 +298,7 @@ public class ChildDAO {
         List<Child> children = new ArrayList<>();
         String sql = "SELECT * FROM children WHERE date_of_birth BETWEEN ? AND ? ORDER BY date_of_birth DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, startDate);
@@ -251,9 +319,183 @@ public class ChildDAO {
     }
 
     /**
-     * Map ResultSet to Child object
+     * Stream children born between two dates to a handler without building a list.
+     * The connection is held until the last row is handled.
+     * @param startDate First date of birth (inclusive)
+     * @param endDate Last date of birth (inclusive)
+     * @param nameFilter Optional text the child's name must contain
+     * @param handler Receives each child, newest first
+     * @return Number of rows streamed
+     * @throws SQLException If the query fails
+     * @throws IOException If the handler fails
+     */
+    public int streamChildrenByDateRange(java.sql.Date startDate, java.sql.Date endDate, String nameFilter,
+                                         RowHandler<Child> handler) throws SQLException, IOException {
+        int count = 0;
+        boolean filterByName = nameFilter != null && !nameFilter.trim().isEmpty();
+        String sql = "SELECT * FROM children WHERE date_of_birth BETWEEN ? AND ? " +
+                    (filterByName ? "AND full_name LIKE ? " : "") +
+                    "ORDER BY date_of_birth DESC, child_id DESC";
+        
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            
+            pstmt.setFetchSize(DatabaseConnection.STREAMING_FETCH_SIZE);
+            pstmt.setDate(1, startDate);
+            pstmt.setDate(2, endDate);
+            if (filterByName) {
+                String text = nameFilter.trim().replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+                pstmt.setString(3, "%" + text + "%");
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapResultSetToChild(rs));
+                    count++;
+                }
+            }
+        }
+        
+        logger.info("Streamed {} children born between {} and {}", count, startDate, endDate);
+        return count;
+    }
+
+    /**
+     * Stream active children whose checkup became due in a range, without building a list.
+     * A child is due when its last checkup (or, without any checkup, its registration) falls in
+     * [from, to); both cases are range scans on idx_checkup_due. The connection is held until
+     * the last row is handled.
+     * @param from Start of the range (inclusive), or null for no lower bound
+     * @param to End of the range (exclusive)
+     * @param handler Receives each child
+     * @return Number of rows streamed
+     * @throws SQLException If a query fails
+     * @throws IOException If the handler fails
+     */
+    public int streamChildrenDueForCheckup(java.sql.Date from, java.sql.Date to,
+                                           RowHandler<Child> handler) throws SQLException, IOException {
+        int count = 0;
+        String checkedSql = "SELECT * FROM children WHERE " +
+                    (from != null ? "last_checkup_date >= ? AND " : "") +
+                    "last_checkup_date < ? AND is_active = TRUE";
+        String neverCheckedSql = "SELECT * FROM children WHERE last_checkup_date IS NULL AND " +
+                    (from != null ? "created_at >= ? AND " : "") +
+                    "created_at < ? AND is_active = TRUE";
+        
+        try (Connection conn = DatabaseConnection.getStreamingConnection()) {
+            count += streamDueQuery(conn, checkedSql, from, to, false, handler);
+            count += streamDueQuery(conn, neverCheckedSql, from, to, true, handler);
+        }
+        
+        logger.info("Streamed {} children due for a checkup ({} to {})", count, from, to);
+        return count;
+    }
+
+    /**
+     * Stream active children whose last checkup changed in a time range to a date before a
+     * given one (or was removed), e.g. by a back-dated health record. These children became
+     * due below the range already scanned by streamChildrenDueForCheckup. Range scan on
+     * idx_checkup_changed; reads the primary.
+     * @param checkupBefore Only children whose last checkup is before this date (or missing)
+     * @param changedFrom Start of the change range (inclusive)
+     * @param changedTo End of the change range (exclusive)
+     * @param handler Receives each child
+     * @return Number of rows streamed
+     * @throws SQLException If the query fails
+     * @throws IOException If the handler fails
+     */
+    public int streamChildrenWithCheckupMovedBefore(java.sql.Date checkupBefore, Timestamp changedFrom,
+                                                    Timestamp changedTo, RowHandler<Child> handler)
+            throws SQLException, IOException {
+        int count = 0;
+        String sql = "SELECT * FROM children WHERE checkup_changed_at >= ? AND checkup_changed_at < ? " +
+                    "AND (last_checkup_date < ? OR last_checkup_date IS NULL) AND is_active = TRUE";
+
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(DatabaseConnection.STREAMING_FETCH_SIZE);
+            pstmt.setTimestamp(1, changedFrom);
+            pstmt.setTimestamp(2, changedTo);
+            pstmt.setDate(3, checkupBefore);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapResultSetToChild(rs));
+                    count++;
+                }
+            }
+        }
+
+        logger.info("Streamed {} children whose checkup moved before {} ({} to {})",
+                    count, checkupBefore, changedFrom, changedTo);
+        return count;
+    }
+
+    private int streamDueQuery(Connection conn, String sql, java.sql.Date from, java.sql.Date to, boolean timestamps,
+                               RowHandler<Child> handler) throws SQLException, IOException {
+        int count = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            pstmt.setFetchSize(DatabaseConnection.STREAMING_FETCH_SIZE);
+            int index = 1;
+            if (from != null) {
+                if (timestamps) {
+                    pstmt.setTimestamp(index++, new Timestamp(from.getTime()));
+                } else {
+                    pstmt.setDate(index++, from);
+                }
+            }
+            if (timestamps) {
+                pstmt.setTimestamp(index, new Timestamp(to.getTime()));
+            } else {
+                pstmt.setDate(index, to);
+            }
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(mapResultSetToChild(rs));
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Drop the cached children of a mother (her children are deleted with her account)
+     */
+    static void evictChildrenOfMother(int motherId) {
+        childOwners.removeOwner(motherId);
+        childrenById.invalidateIf((childId, child) -> child.getMotherId() == motherId);
+    }
+
+    private static Child copyOf(Child child) {
+        if (child == null) {
+            return null;
+        }
+        Child copy = new Child();
+        copy.setChildId(child.getChildId());
+        copy.setUniqueProfileId(child.getUniqueProfileId());
+        copy.setFullName(child.getFullName());
+        copy.setDateOfBirth(child.getDateOfBirth());
+        copy.setGender(child.getGender());
+        copy.setBirthWeight(child.getBirthWeight());
+        copy.setBirthHeight(child.getBirthHeight());
+        copy.setBloodGroup(child.getBloodGroup());
+        copy.setMotherId(child.getMotherId());
+        copy.setFatherName(child.getFatherName());
+        copy.setFatherPhone(child.getFatherPhone());
+        copy.setEmergencyContact(child.getEmergencyContact());
+        copy.setAddress(child.getAddress());
+        copy.setMedicalHistory(child.getMedicalHistory());
+        copy.setLastCheckupDate(child.getLastCheckupDate());
+        copy.setCreatedAt(child.getCreatedAt());
+        copy.setUpdatedAt(child.getUpdatedAt());
+        return copy;
+    }
+
+    /**
+     * Map ResultSet to Child object (also records the child's mother in the ownership index)
      */
-    private Child mapResultSetToChild(ResultSet rs) throws SQLException {
+    static Child mapResultSetToChild(ResultSet rs) throws SQLException {
         Child child = new Child();
         child.setChildId(rs.getInt("child_id"));
         child.setUniqueProfileId(rs.getString("unique_profile_id"));
@@ -269,8 +511,10 @@ public class ChildDAO {
         child.setEmergencyContact(rs.getString("emergency_contact"));
         child.setAddress(rs.getString("address"));
         child.setMedicalHistory(rs.getString("medical_history"));
+        child.setLastCheckupDate(rs.getDate("last_checkup_date"));
         child.setCreatedAt(rs.getTimestamp("created_at"));
         child.setUpdatedAt(rs.getTimestamp("updated_at"));
+        childOwners.put(child.getChildId(), child.getMotherId());
         return child;
     }
 }
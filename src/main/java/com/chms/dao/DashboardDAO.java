@@ -0,0 +1,72 @@
+package com.chms.dao;
+
+import com.chms.model.Appointment;
+import com.chms.model.Child;
+import com.chms.model.MotherDashboard;
+import com.chms.model.Notification;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for dashboard views
+ * Loads all of a dashboard's result sets on a single pooled connection
+ */
+public class DashboardDAO {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardDAO.class);
+
+    /**
+     * Load a mother's children, upcoming appointments and unread notifications
+     * using one connection borrow
+     * @param motherId Mother's user ID
+     * @return Dashboard view, or null on error
+     */
+    public MotherDashboard getMotherDashboard(int motherId) {
+        List<Child> children = new ArrayList<>();
+        List<Appointment> upcomingAppointments = new ArrayList<>();
+        List<Notification> notifications = new ArrayList<>();
+        
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(ChildDAO.CHILDREN_BY_MOTHER_SQL)) {
+                pstmt.setInt(1, motherId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        children.add(ChildDAO.mapResultSetToChild(rs));
+                    }
+                }
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(AppointmentDAO.UPCOMING_BY_MOTHER_SQL)) {
+                pstmt.setInt(1, motherId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        upcomingAppointments.add(AppointmentDAO.mapUpcomingForMother(rs));
+                    }
+                }
+            }
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(NotificationDAO.UNREAD_BY_USER_SQL)) {
+                pstmt.setInt(1, motherId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        notifications.add(NotificationDAO.mapResultSetToNotification(rs));
+                    }
+                }
+            }
+            
+            logger.info("Loaded mother dashboard for ID {}: {} children, {} appointments, {} notifications",
+                       motherId, children.size(), upcomingAppointments.size(), notifications.size());
+            
+        } catch (SQLException e) {
+            logger.error("Error loading mother dashboard for ID: " + motherId, e);
+            return null;
+        }
+        
+        return new MotherDashboard(motherId, children, upcomingAppointments, notifications);
+    }
+}
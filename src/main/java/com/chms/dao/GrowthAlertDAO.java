@@ -0,0 +1,319 @@
+package com.chms.dao;
+
+import com.chms.model.GrowthAlert;
+import com.chms.model.Page;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Data Access Object for GrowthAlert entity
+ * Alerts for abnormal growth statuses are created by the after_health_record_insert
+ * trigger; this DAO stores the trend alerts computed in Java and serves the doctors'
+ * alert inbox.
+ */
+public class GrowthAlertDAO {
+    private static final Logger logger = LoggerFactory.getLogger(GrowthAlertDAO.class);
+
+    // IDs per SELECT ... IN (...) statement
+    private static final int ID_CHUNK_SIZE = 500;
+
+    private static final String ALERT_COLUMNS =
+        "SELECT ga.*, c.full_name AS child_name, c.date_of_birth, " +
+        "u.full_name AS mother_name, u.phone_number AS mother_phone FROM growth_alerts ga " +
+        "INNER JOIN children c ON ga.child_id = c.child_id " +
+        "INNER JOIN users u ON c.mother_id = u.user_id ";
+
+    /**
+     * Create a batch of growth alerts in one transaction
+     * @return true if all alerts were created; their generated IDs are set on the alerts
+     */
+    public boolean createGrowthAlerts(List<GrowthAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return true;
+        }
+        String sql = "INSERT INTO growth_alerts (child_id, record_id, alert_type, severity, description) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (GrowthAlert alert : alerts) {
+                    pstmt.setInt(1, alert.getChildId());
+                    pstmt.setInt(2, alert.getRecordId());
+                    pstmt.setString(3, alert.getAlertType().name());
+                    pstmt.setString(4, alert.getSeverity().name());
+                    pstmt.setString(5, alert.getDescription());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    for (GrowthAlert alert : alerts) {
+                        if (rs.next()) {
+                            alert.setAlertId(rs.getInt(1));
+                        }
+                    }
+                }
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating batch of {} growth alerts", alerts.size(), e);
+        }
+        return false;
+    }
+
+    /**
+     * Get one page of unresolved alerts, most severe and newest first, using keyset pagination
+     * on (severity, created_at, alert_id) over idx_alert_queue
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param pageSize Maximum number of alerts to return
+     * @return Page of alerts with the cursor for the next page, or null on error
+     */
+    public Page<GrowthAlert> getOpenAlertsPage(String cursor, int pageSize) {
+        List<GrowthAlert> alerts = new ArrayList<>();
+        GrowthAlert.Severity afterSeverity = null;
+        Timestamp afterCreatedAt = null;
+        int afterAlertId = 0;
+
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = cursor.split(":", 3);
+                afterSeverity = GrowthAlert.Severity.valueOf(parts[0]);
+                afterCreatedAt = new Timestamp(Long.parseLong(parts[1]));
+                afterAlertId = Integer.parseInt(parts[2]);
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring invalid growth alert page cursor: {}", cursor);
+                afterSeverity = null;
+            }
+        }
+
+        // Severity is an ENUM: rows after the cursor are the rest of its severity plus all lower ones
+        List<GrowthAlert.Severity> lower = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(ALERT_COLUMNS).append("WHERE ga.is_resolved = FALSE ");
+        if (afterSeverity != null) {
+            for (GrowthAlert.Severity severity : GrowthAlert.Severity.values()) {
+                if (severity.ordinal() < afterSeverity.ordinal()) {
+                    lower.add(severity);
+                }
+            }
+            sql.append("AND ((ga.severity = ? AND (ga.created_at < ? OR (ga.created_at = ? AND ga.alert_id < ?)))");
+            if (!lower.isEmpty()) {
+                sql.append(" OR ga.severity IN (").append(String.join(",", Collections.nCopies(lower.size(), "?"))).append(')');
+            }
+            sql.append(") ");
+        }
+        sql.append("ORDER BY ga.severity DESC, ga.created_at DESC, ga.alert_id DESC LIMIT ?");
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+
+            int index = 1;
+            if (afterSeverity != null) {
+                pstmt.setString(index++, afterSeverity.name());
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setInt(index++, afterAlertId);
+                for (GrowthAlert.Severity severity : lower) {
+                    pstmt.setString(index++, severity.name());
+                }
+            }
+            // Fetch one extra row to find out whether another page exists
+            pstmt.setInt(index, pageSize + 1);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    alerts.add(mapResultSetToGrowthAlert(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error getting growth alerts page", e);
+            return null;
+        }
+
+        String nextCursor = null;
+        if (alerts.size() > pageSize) {
+            alerts.remove(pageSize);
+            GrowthAlert last = alerts.get(pageSize - 1);
+            nextCursor = last.getSeverity().name() + ":" + last.getCreatedAt().getTime() + ":" + last.getAlertId();
+        }
+        return new Page<>(alerts, nextCursor);
+    }
+
+    /**
+     * Get unresolved alerts of at least the given severity with an ID above afterId (primary key range)
+     * @return Alerts in ID order, or null on error
+     */
+    public List<GrowthAlert> getOpenAlertsAfter(int afterId, GrowthAlert.Severity minSeverity) {
+        List<GrowthAlert> alerts = new ArrayList<>();
+        List<GrowthAlert.Severity> severities = new ArrayList<>();
+        for (GrowthAlert.Severity severity : GrowthAlert.Severity.values()) {
+            if (severity.ordinal() >= minSeverity.ordinal()) {
+                severities.add(severity);
+            }
+        }
+        String sql = ALERT_COLUMNS +
+                    "WHERE ga.alert_id > ? AND ga.is_resolved = FALSE AND ga.severity IN (" +
+                    String.join(",", Collections.nCopies(severities.size(), "?")) + ") ORDER BY ga.alert_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int index = 1;
+            pstmt.setInt(index++, afterId);
+            for (GrowthAlert.Severity severity : severities) {
+                pstmt.setString(index++, severity.name());
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    alerts.add(mapResultSetToGrowthAlert(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error getting growth alerts after ID: " + afterId, e);
+            return null;
+        }
+
+        return alerts;
+    }
+
+    /**
+     * Which of the given alerts are still unresolved (primary key lookups)
+     * @return IDs of the unresolved alerts, or null on error
+     */
+    public Set<Integer> getOpenAlertIds(Collection<Integer> alertIds) {
+        Set<Integer> open = new HashSet<>();
+        List<Integer> ids = new ArrayList<>(alertIds);
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int start = 0; start < ids.size(); start += ID_CHUNK_SIZE) {
+                List<Integer> chunk = ids.subList(start, Math.min(start + ID_CHUNK_SIZE, ids.size()));
+                String sql = "SELECT alert_id FROM growth_alerts WHERE alert_id IN (" +
+                            String.join(",", Collections.nCopies(chunk.size(), "?")) + ") AND is_resolved = FALSE";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        open.add(rs.getInt(1));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error checking status of {} growth alerts", alertIds.size(), e);
+            return null;
+        }
+
+        return open;
+    }
+
+    /**
+     * Get the alerts resolved at or after a time (range scan on idx_resolved_at)
+     * @return Alert ID to resolution time, in resolution order, or null on error
+     */
+    public Map<Integer, Timestamp> getAlertsResolvedSince(Timestamp since) {
+        Map<Integer, Timestamp> resolved = new LinkedHashMap<>();
+        String sql = "SELECT alert_id, resolved_at FROM growth_alerts WHERE resolved_at >= ? ORDER BY resolved_at";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setTimestamp(1, since);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    resolved.put(rs.getInt("alert_id"), rs.getTimestamp("resolved_at"));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error getting growth alerts resolved since: " + since, e);
+            return null;
+        }
+
+        return resolved;
+    }
+
+    /**
+     * Get the time of the latest alert resolution
+     * @return The time, the epoch if no alert was resolved yet, or null on error
+     */
+    public Timestamp getLatestResolvedAt() {
+        String sql = "SELECT MAX(resolved_at) FROM growth_alerts";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            Timestamp latest = rs.next() ? rs.getTimestamp(1) : null;
+            return latest != null ? latest : new Timestamp(0);
+
+        } catch (SQLException e) {
+            logger.error("Error getting the latest growth alert resolution", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Resolve an alert
+     * @return true if an unresolved alert was updated
+     */
+    public boolean resolveAlert(int alertId, int doctorId) {
+        String sql = "UPDATE growth_alerts SET is_resolved = TRUE, resolved_date = CURDATE(), " +
+                    "resolved_at = CURRENT_TIMESTAMP, resolved_by = ? WHERE alert_id = ? AND is_resolved = FALSE";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, doctorId);
+            pstmt.setInt(2, alertId);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error resolving growth alert ID: " + alertId, e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Map a row of growth_alerts joined with the child and mother to a GrowthAlert
+     */
+    static GrowthAlert mapResultSetToGrowthAlert(ResultSet rs) throws SQLException {
+        GrowthAlert alert = new GrowthAlert();
+        alert.setAlertId(rs.getInt("alert_id"));
+        alert.setChildId(rs.getInt("child_id"));
+        alert.setRecordId(rs.getInt("record_id"));
+        alert.setAlertType(GrowthAlert.AlertType.valueOf(rs.getString("alert_type")));
+        alert.setSeverity(GrowthAlert.Severity.valueOf(rs.getString("severity")));
+        alert.setDescription(rs.getString("description"));
+        alert.setResolved(rs.getBoolean("is_resolved"));
+        alert.setResolvedDate(rs.getDate("resolved_date"));
+        alert.setResolvedBy((Integer) rs.getObject("resolved_by"));
+        alert.setCreatedAt(rs.getTimestamp("created_at"));
+        alert.setChildName(rs.getString("child_name"));
+        alert.setChildDob(rs.getDate("date_of_birth"));
+        alert.setMotherName(rs.getString("mother_name"));
+        alert.setMotherPhone(rs.getString("mother_phone"));
+        return alert;
+    }
+}
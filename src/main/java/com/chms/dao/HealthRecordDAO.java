@@ -0,0 +1,258 @@
+package com.chms.dao;
+
+import com.chms.model.HealthRecord;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Data Access Object for HealthRecord entity
+ *
+ * Abnormal growth statuses raise a growth alert through the after_health_record_insert
+ * trigger. The trigger is FOR EACH ROW, so it also fires for every row of a batched
+ * (rewritten multi-row) insert.
+ */
+public class HealthRecordDAO {
+    private static final Logger logger = LoggerFactory.getLogger(HealthRecordDAO.class);
+
+    // bmi is a generated column and is never written
+    private static final String INSERT_SQL =
+        "INSERT INTO health_records (child_id, doctor_id, assessment_date, child_age_months, weight, height, " +
+        "head_circumference, temperature, growth_status, vaccination_status, nutrition_notes, health_notes, " +
+        "abnormalities_detected, next_checkup_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Rows per executeBatch; the driver splits larger statements at max_allowed_packet anyway
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Create a single health record
+     * @return The record with its generated ID, or null on failure
+     */
+    public HealthRecord createHealthRecord(HealthRecord record) {
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            bindInsert(pstmt, record);
+            int affectedRows = pstmt.executeUpdate();
+
+            if (affectedRows > 0) {
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    if (rs.next()) {
+                        record.setRecordId(rs.getInt(1));
+                        logger.info("Health record created with ID: {} for child ID: {}",
+                                    record.getRecordId(), record.getChildId());
+                        return record;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating health record for child ID: " + record.getChildId(), e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Create many health records in one transaction (e.g. a clinic day's assessments)
+     * Inserts are sent as JDBC batches, which the driver rewrites into multi-row INSERTs
+     * (rewriteBatchedStatements). Either all records are stored or none.
+     * @return true if all records were created; their generated IDs are set on the records
+     */
+    public boolean createHealthRecords(List<HealthRecord> records) {
+        if (records.isEmpty()) {
+            return true;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int start = 0; start < records.size(); start += BATCH_SIZE) {
+                    List<HealthRecord> chunk = records.subList(start, Math.min(start + BATCH_SIZE, records.size()));
+                    for (HealthRecord record : chunk) {
+                        bindInsert(pstmt, record);
+                        pstmt.addBatch();
+                    }
+                    pstmt.executeBatch();
+
+                    // One key per row, in batch order
+                    try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                        for (HealthRecord record : chunk) {
+                            if (!rs.next()) {
+                                throw new SQLException("Missing generated key for health record batch");
+                            }
+                            record.setRecordId(rs.getInt(1));
+                        }
+                    }
+                }
+                conn.commit();
+                logger.info("Created batch of {} health records", records.size());
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                for (HealthRecord record : records) {
+                    record.setRecordId(0);
+                }
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating batch of {} health records", records.size(), e);
+        }
+        return false;
+    }
+
+    /**
+     * Get all health records of a child, newest first
+     */
+    public List<HealthRecord> getHealthRecordsByChildId(int childId) {
+        List<HealthRecord> records = new ArrayList<>();
+        String sql = "SELECT hr.*, u.full_name as doctor_name FROM health_records hr " +
+                    "LEFT JOIN users u ON hr.doctor_id = u.user_id " +
+                    "WHERE hr.child_id = ? ORDER BY hr.assessment_date DESC, hr.record_id DESC";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, childId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                HealthRecord record = mapResultSetToHealthRecord(rs);
+                record.setDoctorName(rs.getString("doctor_name"));
+                records.add(record);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving health records for child ID: " + childId, e);
+        }
+
+        return records;
+    }
+
+    /**
+     * Get the latest health records of a child assessed before a given record, newest first
+     * Reads the primary, so a record inserted a moment ago is never missed.
+     * @param assessmentDate Assessment date of the given record
+     * @param recordId ID of the given record (orders records of the same day)
+     * @param limit Maximum number of records
+     */
+    public List<HealthRecord> getHealthRecordsBefore(int childId, Date assessmentDate, int recordId, int limit) {
+        List<HealthRecord> records = new ArrayList<>();
+        String sql = "SELECT * FROM health_records WHERE child_id = ? " +
+                    "AND (assessment_date < ? OR (assessment_date = ? AND record_id < ?)) " +
+                    "ORDER BY assessment_date DESC, record_id DESC LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, childId);
+            pstmt.setDate(2, assessmentDate);
+            pstmt.setDate(3, assessmentDate);
+            pstmt.setInt(4, recordId);
+            pstmt.setInt(5, limit);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                records.add(mapResultSetToHealthRecord(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving previous health records for child ID: " + childId, e);
+        }
+
+        return records;
+    }
+
+    /**
+     * Get the ID of the latest health record of a child assessed before a given record
+     * Reads the primary, like getHealthRecordsBefore.
+     * @return The record ID, 0 if there is none, or -1 on error
+     */
+    public int getLatestHealthRecordIdBefore(int childId, Date assessmentDate, int recordId) {
+        String sql = "SELECT record_id FROM health_records WHERE child_id = ? " +
+                    "AND (assessment_date < ? OR (assessment_date = ? AND record_id < ?)) " +
+                    "ORDER BY assessment_date DESC, record_id DESC LIMIT 1";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, childId);
+            pstmt.setDate(2, assessmentDate);
+            pstmt.setDate(3, assessmentDate);
+            pstmt.setInt(4, recordId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving the latest health record ID for child ID: " + childId, e);
+        }
+
+        return -1;
+    }
+
+    /**
+     * Bind the insert parameters; a doctor ID, head circumference or temperature of 0 is stored as NULL
+     */
+    private void bindInsert(PreparedStatement pstmt, HealthRecord record) throws SQLException {
+        pstmt.setInt(1, record.getChildId());
+        if (record.getDoctorId() > 0) {
+            pstmt.setInt(2, record.getDoctorId());
+        } else {
+            pstmt.setNull(2, Types.INTEGER);
+        }
+        pstmt.setDate(3, record.getAssessmentDate());
+        pstmt.setInt(4, record.getChildAgeMonths());
+        pstmt.setDouble(5, record.getWeight());
+        pstmt.setDouble(6, record.getHeight());
+        setOptionalDouble(pstmt, 7, record.getHeadCircumference());
+        setOptionalDouble(pstmt, 8, record.getTemperature());
+        pstmt.setString(9, record.getGrowthStatus().name());
+        pstmt.setString(10, record.getVaccinationStatus());
+        pstmt.setString(11, record.getNutritionNotes());
+        pstmt.setString(12, record.getHealthNotes());
+        pstmt.setString(13, record.getAbnormalitiesDetected());
+        pstmt.setDate(14, record.getNextCheckupDate());
+    }
+
+    private static void setOptionalDouble(PreparedStatement pstmt, int index, double value) throws SQLException {
+        if (value > 0) {
+            pstmt.setDouble(index, value);
+        } else {
+            pstmt.setNull(index, Types.DECIMAL);
+        }
+    }
+
+    /**
+     * Map ResultSet to HealthRecord object
+     */
+    static HealthRecord mapResultSetToHealthRecord(ResultSet rs) throws SQLException {
+        HealthRecord record = new HealthRecord();
+        record.setRecordId(rs.getInt("record_id"));
+        record.setChildId(rs.getInt("child_id"));
+        record.setDoctorId(rs.getInt("doctor_id"));
+        record.setAssessmentDate(rs.getDate("assessment_date"));
+        record.setChildAgeMonths(rs.getInt("child_age_months"));
+        record.setWeight(rs.getDouble("weight"));
+        record.setHeight(rs.getDouble("height"));
+        record.setBmi(rs.getDouble("bmi"));
+        record.setHeadCircumference(rs.getDouble("head_circumference"));
+        record.setTemperature(rs.getDouble("temperature"));
+        record.setGrowthStatus(HealthRecord.GrowthStatus.valueOf(rs.getString("growth_status")));
+        record.setVaccinationStatus(rs.getString("vaccination_status"));
+        record.setNutritionNotes(rs.getString("nutrition_notes"));
+        record.setHealthNotes(rs.getString("health_notes"));
+        record.setAbnormalitiesDetected(rs.getString("abnormalities_detected"));
+        record.setNextCheckupDate(rs.getDate("next_checkup_date"));
+        record.setCreatedAt(rs.getTimestamp("created_at"));
+        record.setUpdatedAt(rs.getTimestamp("updated_at"));
+        return record;
+    }
+}
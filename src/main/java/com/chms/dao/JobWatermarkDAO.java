@@ -0,0 +1,90 @@
+package com.chms.dao;
+
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * Data Access Object for job watermarks: how far an incremental background job has processed
+ * Watermarks are moved with compare-and-set, so when every application node runs the
+ * same job only one of them claims each range.
+ */
+public class JobWatermarkDAO {
+    private static final Logger logger = LoggerFactory.getLogger(JobWatermarkDAO.class);
+
+    /**
+     * Get the watermark of a job
+     * @return The watermark, or null if the job has never run (or on error)
+     */
+    public Date getWatermark(String jobName) {
+        String sql = "SELECT watermark FROM job_watermarks WHERE job_name = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, jobName);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return rs.getDate("watermark");
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving watermark of job: " + jobName, e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Move a job's watermark if it still has the expected value
+     * @param expected Current watermark, or null if the job has never run
+     * @param next New watermark
+     * @return true if this caller moved the watermark; false if another node did first (or on error)
+     */
+    public boolean compareAndSetWatermark(String jobName, Date expected, Date next) {
+        String sql = expected == null
+            ? "INSERT IGNORE INTO job_watermarks (job_name, watermark) VALUES (?, ?)"
+            : "UPDATE job_watermarks SET watermark = ? WHERE job_name = ? AND watermark = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            if (expected == null) {
+                pstmt.setString(1, jobName);
+                pstmt.setDate(2, next);
+            } else {
+                pstmt.setDate(1, next);
+                pstmt.setString(2, jobName);
+                pstmt.setDate(3, expected);
+            }
+            return pstmt.executeUpdate() == 1;
+
+        } catch (SQLException e) {
+            logger.error("Error moving watermark of job: " + jobName, e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Remove a job's watermark, so its next run starts from the beginning
+     */
+    public boolean deleteWatermark(String jobName) {
+        String sql = "DELETE FROM job_watermarks WHERE job_name = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, jobName);
+            pstmt.executeUpdate();
+            return true;
+
+        } catch (SQLException e) {
+            logger.error("Error deleting watermark of job: " + jobName, e);
+        }
+
+        return false;
+    }
+}
@@ -7,6 +7,7 @@ import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -15,33 +16,27 @@ import java.util.List;
 public class NotificationDAO {
     private static final Logger logger = LoggerFactory.getLogger(NotificationDAO.class);
 
+    // IDs per UPDATE ... IN (...) statement
+    private static final int MARK_READ_CHUNK_SIZE = 500;
+
+    static final String UNREAD_BY_USER_SQL =
+        "SELECT * FROM notifications WHERE user_id = ? AND is_read = FALSE " +
+        "ORDER BY created_at DESC LIMIT 20";
+
     /**
      * Get unread notifications for a user
      */
     public List<Notification> getUnreadNotificationsByUserId(int userId) {
         List<Notification> notifications = new ArrayList<>();
-        String sql = "SELECT * FROM notifications WHERE user_id = ? AND is_read = FALSE " +
-                    "ORDER BY created_at DESC LIMIT 20";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(UNREAD_BY_USER_SQL)) {
             
             pstmt.setInt(1, userId);
             ResultSet rs = pstmt.executeQuery();
             
             while (rs.next()) {
-                Notification notification = new Notification();
-                notification.setNotificationId(rs.getInt("notification_id"));
-                notification.setUserId(rs.getInt("user_id"));
-                notification.setNotificationType(Notification.NotificationType.valueOf(rs.getString("notification_type")));
-                notification.setTitle(rs.getString("title"));
-                notification.setMessage(rs.getString("message"));
-                notification.setRead(rs.getBoolean("is_read"));
-                notification.setRelatedChildId(rs.getInt("related_child_id"));
-                notification.setRelatedAppointmentId(rs.getInt("related_appointment_id"));
-                notification.setCreatedAt(rs.getTimestamp("created_at"));
-                
-                notifications.add(notification);
+                notifications.add(mapResultSetToNotification(rs));
             }
             
             logger.info("Retrieved {} unread notifications for user ID: {}", notifications.size(), userId);
@@ -52,4 +47,255 @@ public class NotificationDAO {
         
         return notifications;
     }
+
+    /**
+     * Create a batch of notifications in one transaction
+     * Call NotificationHub.wake() afterwards to push them to connected browsers right away.
+     * @return true if all notifications were created
+     */
+    public boolean createNotifications(List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return true;
+        }
+        String sql = "INSERT INTO notifications (user_id, notification_type, title, message, " +
+                    "related_child_id, related_appointment_id) VALUES (?, ?, ?, ?, ?, ?)";
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (Notification notification : notifications) {
+                    pstmt.setInt(1, notification.getUserId());
+                    pstmt.setString(2, notification.getNotificationType().name());
+                    pstmt.setString(3, notification.getTitle());
+                    pstmt.setString(4, notification.getMessage());
+                    pstmt.setObject(5, notification.getRelatedChildId(), Types.INTEGER);
+                    pstmt.setObject(6, notification.getRelatedAppointmentId(), Types.INTEGER);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+                conn.commit();
+                return true;
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating batch of {} notifications", notifications.size(), e);
+        }
+        return false;
+    }
+
+    /**
+     * Mark notifications as read, all chunks in one transaction (all or none).
+     * IDs that are not the user's or already read are ignored.
+     * @param userId Owner of the notifications
+     * @param notificationIds Notifications to mark
+     * @return Number of notifications marked read, or -1 on error
+     */
+    public int markAsRead(int userId, List<Integer> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            
+            try {
+                int updated = 0;
+                for (int from = 0; from < notificationIds.size(); from += MARK_READ_CHUNK_SIZE) {
+                    List<Integer> chunk = notificationIds.subList(from, Math.min(from + MARK_READ_CHUNK_SIZE, notificationIds.size()));
+                    String sql = "UPDATE notifications SET is_read = TRUE, read_at = CURRENT_TIMESTAMP " +
+                                "WHERE user_id = ? AND is_read = FALSE AND notification_id IN (" +
+                                String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+                    
+                    try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                        int index = 1;
+                        pstmt.setInt(index++, userId);
+                        for (Integer notificationId : chunk) {
+                            pstmt.setInt(index++, notificationId);
+                        }
+                        updated += pstmt.executeUpdate();
+                    }
+                }
+                conn.commit();
+                return updated;
+                
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error marking notifications read for user ID: " + userId, e);
+        }
+        
+        return -1;
+    }
+
+    /**
+     * Mark all of a user's notifications as read
+     * @return Number of notifications marked read, or -1 on error
+     */
+    public int markAllAsRead(int userId) {
+        String sql = "UPDATE notifications SET is_read = TRUE, read_at = CURRENT_TIMESTAMP " +
+                    "WHERE user_id = ? AND is_read = FALSE";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            return pstmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            logger.error("Error marking all notifications read for user ID: " + userId, e);
+        }
+        
+        return -1;
+    }
+
+    /**
+     * Delete up to batchSize notifications that were read before the cutoff
+     * @return Number of notifications deleted, or -1 on error
+     */
+    public int deleteReadNotificationsBefore(Timestamp readBefore, int batchSize) {
+        String sql = "DELETE FROM notifications WHERE is_read = TRUE AND read_at < ? LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setTimestamp(1, readBefore);
+            pstmt.setInt(2, batchSize);
+            return pstmt.executeUpdate();
+            
+        } catch (SQLException e) {
+            logger.error("Error purging read notifications", e);
+        }
+        
+        return -1;
+    }
+
+    /**
+     * Count unread notifications for a user
+     * @return Number of unread notifications, or -1 on error
+     */
+    public int countUnreadNotifications(int userId) {
+        String sql = "SELECT COUNT(*) FROM notifications WHERE user_id = ? AND is_read = FALSE";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error counting unread notifications for user ID: " + userId, e);
+        }
+        
+        return -1;
+    }
+
+    /**
+     * Get the highest notification ID
+     * @return Highest ID, 0 if there are no notifications, or -1 on error
+     */
+    public int getLatestNotificationId() {
+        String sql = "SELECT COALESCE(MAX(notification_id), 0) FROM notifications";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error retrieving latest notification ID", e);
+        }
+        
+        return -1;
+    }
+
+    /**
+     * Get notifications created after an ID, oldest first (primary key range scan)
+     * @param afterId Only notifications with a higher ID are returned
+     * @param limit Maximum number of notifications
+     */
+    public List<Notification> getNotificationsAfter(int afterId, int limit) {
+        List<Notification> notifications = new ArrayList<>();
+        String sql = "SELECT * FROM notifications WHERE notification_id > ? ORDER BY notification_id LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, afterId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    notifications.add(mapResultSetToNotification(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error retrieving notifications after ID: " + afterId, e);
+        }
+        
+        return notifications;
+    }
+
+    /**
+     * Get a user's unread notifications created after an ID, oldest first
+     * (used to replay what a reconnecting client missed)
+     */
+    public List<Notification> getUnreadNotificationsAfter(int userId, int afterId, int limit) {
+        List<Notification> notifications = new ArrayList<>();
+        String sql = "SELECT * FROM notifications WHERE user_id = ? AND is_read = FALSE AND notification_id > ? " +
+                    "ORDER BY notification_id LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, afterId);
+            pstmt.setInt(3, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    notifications.add(mapResultSetToNotification(rs));
+                }
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error retrieving notifications for user ID: " + userId + " after ID: " + afterId, e);
+        }
+        
+        return notifications;
+    }
+
+    /**
+     * Map ResultSet to Notification object
+     */
+    static Notification mapResultSetToNotification(ResultSet rs) throws SQLException {
+        Notification notification = new Notification();
+        notification.setNotificationId(rs.getInt("notification_id"));
+        notification.setUserId(rs.getInt("user_id"));
+        notification.setNotificationType(Notification.NotificationType.valueOf(rs.getString("notification_type")));
+        notification.setTitle(rs.getString("title"));
+        notification.setMessage(rs.getString("message"));
+        notification.setRead(rs.getBoolean("is_read"));
+        notification.setRelatedChildId(rs.getInt("related_child_id"));
+        notification.setRelatedAppointmentId(rs.getInt("related_appointment_id"));
+        notification.setCreatedAt(rs.getTimestamp("created_at"));
+        notification.setReadAt(rs.getTimestamp("read_at"));
+        return notification;
+    }
 }
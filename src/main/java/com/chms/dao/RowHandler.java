@@ -0,0 +1,18 @@
+package com.chms.dao;
+
+import java.io.IOException;
+
+/**
+ * Callback for DAO methods that stream rows instead of building a list
+ * @param <T> Row type
+ */
+@FunctionalInterface
+public interface RowHandler<T> {
+    
+    /**
+     * Handle one row; the object may be discarded once this returns
+     * @param row Mapped row
+     * @throws IOException If writing the row to its destination fails (aborts the stream)
+     */
+    void handle(T row) throws IOException;
+}
@@ -0,0 +1,67 @@
+package com.chms.dao;
+
+import com.chms.model.SystemStats;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.*;
+
+/**
+ * Data Access Object for the system_stats summary table
+ * The table is kept up to date by database triggers, so reads are a single primary-key lookup
+ */
+public class SystemStatsDAO {
+    private static final Logger logger = LoggerFactory.getLogger(SystemStatsDAO.class);
+
+    /**
+     * Get the current system totals
+     * @return SystemStats object, or null if the summary row is missing
+     */
+    public SystemStats getSystemStats() {
+        String sql = "SELECT * FROM system_stats WHERE stats_id = 1";
+        
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            if (rs.next()) {
+                SystemStats stats = new SystemStats();
+                stats.setTotalUsers(rs.getInt("total_users"));
+                stats.setActiveUsers(rs.getInt("active_users"));
+                stats.setTotalMothers(rs.getInt("total_mothers"));
+                stats.setTotalDoctors(rs.getInt("total_doctors"));
+                stats.setTotalAdmins(rs.getInt("total_admins"));
+                stats.setTotalChildren(rs.getInt("total_children"));
+                stats.setOpenGrowthAlerts(rs.getInt("open_growth_alerts"));
+                stats.setPendingAppointments(rs.getInt("pending_appointments"));
+                stats.setUpdatedAt(rs.getTimestamp("updated_at"));
+                return stats;
+            }
+            
+        } catch (SQLException e) {
+            logger.error("Error retrieving system statistics", e);
+        }
+        
+        return null;
+    }
+
+    /**
+     * Recompute all totals from the base tables (repair after manual data changes)
+     * @return true if the rebuild succeeded
+     */
+    public boolean rebuildSystemStats() {
+        try (Connection conn = DatabaseConnection.getConnection();
+             CallableStatement cstmt = conn.prepareCall("{CALL sp_rebuild_system_stats()}")) {
+            
+            cstmt.execute();
+            logger.info("System statistics rebuilt");
+            return true;
+            
+        } catch (SQLException e) {
+            logger.error("Error rebuilding system statistics", e);
+        }
+        
+        return false;
+    }
+}
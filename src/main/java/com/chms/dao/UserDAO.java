@@ -1,13 +1,18 @@
 package com.chms.dao;
 
+import com.chms.model.Page;
 import com.chms.model.User;
 import com.chms.util.DatabaseConnection;
+import com.chms.util.TtlCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Data Access Object for User entity
@@ -17,6 +22,29 @@ public class UserDAO {
     
     private static final Logger logger = LoggerFactory.getLogger(UserDAO.class);
     
+    // Columns needed for listings - never load password hashes for display
+    private static final String USER_SUMMARY_COLUMNS =
+        "user_id, email, full_name, phone_number, role, is_active, created_at, updated_at, last_login";
+    
+    // Read-through caches shared by all DAO instances. Entries are copies, so callers
+    // may modify the users they get back. last_login is not invalidated on login and
+    // may lag by up to the TTL.
+    private static final int CACHE_MAX_SIZE =
+        Integer.parseInt(DatabaseConnection.getConfigProperty("user.cache.maxSize", "10000"));
+    private static final long CACHE_TTL_SECONDS =
+        Long.parseLong(DatabaseConnection.getConfigProperty("user.cache.ttlSeconds", "300"));
+    private static final long NEGATIVE_CACHE_TTL_SECONDS =
+        Long.parseLong(DatabaseConnection.getConfigProperty("user.cache.negativeTtlSeconds", "60"));
+    
+    private static final TtlCache<Integer, User> usersById =
+        new TtlCache<>("usersById", CACHE_MAX_SIZE, CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+    // Keyed by lower-cased email (the email column uses a case-insensitive collation)
+    private static final TtlCache<String, User> usersByEmail =
+        new TtlCache<>("usersByEmail", CACHE_MAX_SIZE, CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+    // Emails known not to be registered, so repeated registration checks skip the database
+    private static final TtlCache<String, Boolean> unknownEmails =
+        new TtlCache<>("unknownEmails", CACHE_MAX_SIZE, NEGATIVE_CACHE_TTL_SECONDS, TimeUnit.SECONDS);
+    
     /**
      * Create a new user
      * @param user User object to create
@@ -42,6 +70,7 @@ public class UserDAO {
                 try (ResultSet rs = pstmt.getGeneratedKeys()) {
                     if (rs.next()) {
                         user.setUserId(rs.getInt(1));
+                        unknownEmails.invalidate(emailKey(user.getEmail()));
                         logger.info("User created successfully with ID: {}", user.getUserId());
                         return user;
                     }
@@ -54,11 +83,43 @@ public class UserDAO {
     }
     
     /**
-     * Get user by ID
+     * Get user by ID (cached)
      * @param userId User ID
      * @return User object or null if not found
      */
     public User getUserById(int userId) {
+        return copyOf(usersById.get(userId, this::loadUserById));
+    }
+    
+    /**
+     * Get user by ID (cached), telling a missing user apart from a database error
+     * @param userId User ID
+     * @return User object or null if not found
+     * @throws SQLException If the user could not be read
+     */
+    public User findUserById(int userId) throws SQLException {
+        User cached = usersById.get(userId);
+        if (cached != null) {
+            return copyOf(cached);
+        }
+        long version = usersById.version();
+        User user = queryUserById(userId);
+        if (user != null) {
+            usersById.putIfNotInvalidated(userId, user, version);
+        }
+        return copyOf(user);
+    }
+    
+    private User loadUserById(int userId) {
+        try {
+            return queryUserById(userId);
+        } catch (SQLException e) {
+            logger.error("Error getting user by ID: {}", userId, e);
+        }
+        return null;
+    }
+    
+    private User queryUserById(int userId) throws SQLException {
         String sql = "SELECT * FROM users WHERE user_id = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -67,22 +128,37 @@ public class UserDAO {
             pstmt.setInt(1, userId);
             
             try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    return extractUserFromResultSet(rs);
-                }
+                return rs.next() ? extractUserFromResultSet(rs) : null;
             }
-        } catch (SQLException e) {
-            logger.error("Error getting user by ID: {}", userId, e);
         }
-        return null;
     }
     
     /**
-     * Get user by email
+     * Get user by email (cached)
      * @param email User email
      * @return User object or null if not found
      */
     public User getUserByEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        return copyOf(usersByEmail.get(emailKey(email), key -> loadUserByEmail(email)));
+    }
+    
+    /**
+     * Get user by email for authentication, always from the primary database and never from
+     * the cache: a changed password or a deactivation must take effect on every node at once
+     * @param email User email
+     * @return User object or null if not found
+     */
+    public User getUserForLogin(String email) {
+        if (email == null) {
+            return null;
+        }
+        return loadUserByEmail(email);
+    }
+    
+    private User loadUserByEmail(String email) {
         String sql = "SELECT * FROM users WHERE email = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -110,7 +186,7 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users WHERE role = ? AND is_active = TRUE ORDER BY full_name";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setString(1, role.name());
@@ -134,7 +210,7 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users WHERE is_active = TRUE ORDER BY role, full_name";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             
@@ -169,6 +245,7 @@ public class UserDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
+                invalidateCachedUser(user.getUserId());
                 logger.info("User updated successfully: {}", user.getUserId());
                 return true;
             }
@@ -196,6 +273,7 @@ public class UserDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
+                invalidateCachedUser(userId);
                 logger.info("Password updated for user: {}", userId);
                 return true;
             }
@@ -242,6 +320,7 @@ public class UserDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
+                invalidateCachedUser(userId);
                 logger.info("User deactivated: {}", userId);
                 return true;
             }
@@ -267,6 +346,8 @@ public class UserDAO {
             int affectedRows = pstmt.executeUpdate();
             
             if (affectedRows > 0) {
+                invalidateCachedUser(userId);
+                ChildDAO.evictChildrenOfMother(userId);
                 logger.info("User deleted permanently: {}", userId);
                 return true;
             }
@@ -282,6 +363,18 @@ public class UserDAO {
      * @return true if email exists, false otherwise
      */
     public boolean emailExists(String email) {
+        if (email == null) {
+            return false;
+        }
+        String key = emailKey(email);
+        if (usersByEmail.get(key) != null) {
+            return true;
+        }
+        if (unknownEmails.get(key) != null) {
+            return false;
+        }
+        // Taken before the query, so a registration committed meanwhile is not cached as unknown
+        long version = unknownEmails.version();
         String sql = "SELECT COUNT(*) FROM users WHERE email = ?";
         
         try (Connection conn = DatabaseConnection.getConnection();
@@ -291,7 +384,11 @@ public class UserDAO {
             
             try (ResultSet rs = pstmt.executeQuery()) {
                 if (rs.next()) {
-                    return rs.getInt(1) > 0;
+                    boolean exists = rs.getInt(1) > 0;
+                    if (!exists) {
+                        unknownEmails.putIfNotInvalidated(key, Boolean.TRUE, version);
+                    }
+                    return exists;
                 }
             }
         } catch (SQLException e) {
@@ -302,13 +399,14 @@ public class UserDAO {
     
     /**
      * Get all users from the system
+     * Loads every row; listings should use {@link #getUsersPage(String, int)} instead
      * @return List of all users
      */
     public List<User> getAllUsers() {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users ORDER BY created_at DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             ResultSet rs = pstmt.executeQuery();
@@ -326,6 +424,89 @@ public class UserDAO {
         return users;
     }
     
+    /**
+     * Get one page of users, newest first, using keyset pagination on (created_at, user_id)
+     * Password hashes are not loaded.
+     * @param cursor Cursor returned by the previous page, or null for the first page
+     * @param pageSize Maximum number of users to return
+     * @return Page of users with the cursor for the next page, or null on error
+     */
+    public Page<User> getUsersPage(String cursor, int pageSize) {
+        List<User> users = new ArrayList<>();
+        Timestamp afterCreatedAt = null;
+        int afterUserId = 0;
+        
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] parts = cursor.split(":", 2);
+                afterCreatedAt = new Timestamp(Long.parseLong(parts[0]));
+                afterUserId = Integer.parseInt(parts[1]);
+            } catch (RuntimeException e) {
+                logger.warn("Ignoring invalid user page cursor: {}", cursor);
+                afterCreatedAt = null;
+            }
+        }
+        
+        String sql = "SELECT " + USER_SUMMARY_COLUMNS + " FROM users " +
+                    (afterCreatedAt != null ? "WHERE created_at < ? OR (created_at = ? AND user_id < ?) " : "") +
+                    "ORDER BY created_at DESC, user_id DESC LIMIT ?";
+        
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            
+            int index = 1;
+            if (afterCreatedAt != null) {
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setTimestamp(index++, afterCreatedAt);
+                pstmt.setInt(index++, afterUserId);
+            }
+            // Fetch one extra row to find out whether another page exists
+            pstmt.setInt(index, pageSize + 1);
+            
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(extractUserSummaryFromResultSet(rs));
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error retrieving users page", e);
+            return null;
+        }
+        
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users.remove(pageSize);
+            User last = users.get(pageSize - 1);
+            nextCursor = last.getCreatedAt().getTime() + ":" + last.getUserId();
+        }
+        return new Page<>(users, nextCursor);
+    }
+    
+    /**
+     * Count users per role with a single aggregate query
+     * @return Map of role to number of users (every role present, zero if none), or null on error
+     */
+    public Map<User.Role, Integer> getUserCountsByRole() {
+        Map<User.Role, Integer> counts = new EnumMap<>(User.Role.class);
+        for (User.Role role : User.Role.values()) {
+            counts.put(role, 0);
+        }
+        String sql = "SELECT role, COUNT(*) FROM users GROUP BY role";
+        
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            
+            while (rs.next()) {
+                counts.put(User.Role.valueOf(rs.getString(1)), rs.getInt(2));
+            }
+        } catch (SQLException e) {
+            logger.error("Error counting users by role", e);
+            return null;
+        }
+        return counts;
+    }
+    
     /**
      * Search users by registration date (created_at)
      * @param registrationDate Date to search for
@@ -335,7 +516,7 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users WHERE DATE(created_at) = ? ORDER BY created_at DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, registrationDate);
@@ -364,7 +545,7 @@ public class UserDAO {
         List<User> users = new ArrayList<>();
         String sql = "SELECT * FROM users WHERE DATE(created_at) BETWEEN ? AND ? ORDER BY created_at DESC";
         
-        try (Connection conn = DatabaseConnection.getConnection();
+        try (Connection conn = DatabaseConnection.getReadConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
             
             pstmt.setDate(1, startDate);
@@ -384,6 +565,41 @@ public class UserDAO {
         return users;
     }
     
+    /**
+     * Drop a user from the id and email caches. The email cache is scanned by user ID
+     * because the old email of an updated user is not known here.
+     * @param userId User ID
+     */
+    private static void invalidateCachedUser(int userId) {
+        usersById.invalidate(userId);
+        usersByEmail.invalidateIf((email, user) -> user.getUserId() == userId);
+    }
+    
+    private static String emailKey(String email) {
+        return email.toLowerCase();
+    }
+    
+    /**
+     * Copy a user so cached instances are never shared with callers
+     */
+    private static User copyOf(User user) {
+        if (user == null) {
+            return null;
+        }
+        User copy = new User();
+        copy.setUserId(user.getUserId());
+        copy.setEmail(user.getEmail());
+        copy.setPasswordHash(user.getPasswordHash());
+        copy.setFullName(user.getFullName());
+        copy.setPhoneNumber(user.getPhoneNumber());
+        copy.setRole(user.getRole());
+        copy.setActive(user.isActive());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setUpdatedAt(user.getUpdatedAt());
+        copy.setLastLogin(user.getLastLogin());
+        return copy;
+    }
+    
     /**
      * Extract User object from ResultSet
      * @param rs ResultSet
@@ -391,10 +607,21 @@ public class UserDAO {
      * @throws SQLException if error occurs
      */
     private User extractUserFromResultSet(ResultSet rs) throws SQLException {
+        User user = extractUserSummaryFromResultSet(rs);
+        user.setPasswordHash(rs.getString("password_hash"));
+        return user;
+    }
+    
+    /**
+     * Extract User object from ResultSet without the password hash
+     * @param rs ResultSet containing USER_SUMMARY_COLUMNS
+     * @return User object
+     * @throws SQLException if error occurs
+     */
+    private User extractUserSummaryFromResultSet(ResultSet rs) throws SQLException {
         User user = new User();
         user.setUserId(rs.getInt("user_id"));
         user.setEmail(rs.getString("email"));
-        user.setPasswordHash(rs.getString("password_hash"));
         user.setFullName(rs.getString("full_name"));
         user.setPhoneNumber(rs.getString("phone_number"));
         user.setRole(User.Role.valueOf(rs.getString("role")));
@@ -0,0 +1,296 @@
+package com.chms.dao;
+
+import com.chms.model.Vaccination;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data Access Object for Vaccination entity
+ */
+public class VaccinationDAO {
+    private static final Logger logger = LoggerFactory.getLogger(VaccinationDAO.class);
+
+    // IDs per SELECT ... IN (...) statement
+    private static final int ID_CHUNK_SIZE = 500;
+
+    /**
+     * Pending vaccination with its child's date of birth, for the due-date index
+     */
+    public static final class PendingVaccination {
+        private final int vaccinationId;
+        private final int childId;
+        private final int recommendedAgeMonths;
+        private final Date childDob;
+
+        public PendingVaccination(int vaccinationId, int childId, int recommendedAgeMonths, Date childDob) {
+            this.vaccinationId = vaccinationId;
+            this.childId = childId;
+            this.recommendedAgeMonths = recommendedAgeMonths;
+            this.childDob = childDob;
+        }
+
+        public int getVaccinationId() {
+            return vaccinationId;
+        }
+
+        public int getChildId() {
+            return childId;
+        }
+
+        public int getRecommendedAgeMonths() {
+            return recommendedAgeMonths;
+        }
+
+        public Date getChildDob() {
+            return childDob;
+        }
+    }
+
+    /**
+     * Create a child's vaccinations in one batch (a whole schedule)
+     * @return true if all vaccinations were created; their generated IDs are set on them
+     */
+    public boolean createVaccinations(List<Vaccination> vaccinations) {
+        if (vaccinations.isEmpty()) {
+            return true;
+        }
+        String sql = "INSERT INTO vaccinations (child_id, vaccine_name, recommended_age_months, status) " +
+                    "VALUES (?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (Vaccination vaccination : vaccinations) {
+                    pstmt.setInt(1, vaccination.getChildId());
+                    pstmt.setString(2, vaccination.getVaccineName());
+                    pstmt.setInt(3, vaccination.getRecommendedAgeMonths());
+                    pstmt.setString(4, vaccination.getStatus().name());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+
+                try (ResultSet rs = pstmt.getGeneratedKeys()) {
+                    for (Vaccination vaccination : vaccinations) {
+                        if (!rs.next()) {
+                            throw new SQLException("Missing generated key for vaccination batch");
+                        }
+                        vaccination.setVaccinationId(rs.getInt(1));
+                    }
+                }
+                conn.commit();
+                return true;
+
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Error creating batch of {} vaccinations", vaccinations.size(), e);
+        }
+        return false;
+    }
+
+    /**
+     * Get all vaccinations of a child in schedule order
+     */
+    public List<Vaccination> getVaccinationsByChildId(int childId) {
+        List<Vaccination> vaccinations = new ArrayList<>();
+        String sql = "SELECT v.*, u.full_name as doctor_name FROM vaccinations v " +
+                    "LEFT JOIN users u ON v.administered_by = u.user_id " +
+                    "WHERE v.child_id = ? ORDER BY v.recommended_age_months, v.vaccination_id";
+
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, childId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                Vaccination vaccination = mapResultSetToVaccination(rs);
+                vaccination.setDoctorName(rs.getString("doctor_name"));
+                vaccinations.add(vaccination);
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving vaccinations for child ID: " + childId, e);
+        }
+
+        return vaccinations;
+    }
+
+    /**
+     * Record a vaccination as administered
+     * @return true if a pending or delayed vaccination was updated
+     */
+    public boolean markAdministered(int vaccinationId, Date administeredDate, int doctorId, String batchNumber) {
+        String sql = "UPDATE vaccinations SET status = 'COMPLETED', administered_date = ?, administered_by = ?, " +
+                    "batch_number = ? WHERE vaccination_id = ? AND status IN ('PENDING', 'DELAYED')";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setDate(1, administeredDate);
+            pstmt.setInt(2, doctorId);
+            pstmt.setString(3, batchNumber);
+            pstmt.setInt(4, vaccinationId);
+            return pstmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.error("Error recording vaccination ID: " + vaccinationId + " as administered", e);
+        }
+
+        return false;
+    }
+
+    /**
+     * Stream pending or delayed vaccinations with an ID above afterId, in ID order (primary key range)
+     * @return Number of rows streamed
+     * @throws SQLException If the query fails
+     * @throws IOException If the handler fails
+     */
+    public int streamPendingVaccinationsAfter(int afterId, RowHandler<PendingVaccination> handler)
+            throws SQLException, IOException {
+        int count = 0;
+        String sql = "SELECT v.vaccination_id, v.child_id, v.recommended_age_months, c.date_of_birth " +
+                    "FROM vaccinations v JOIN children c ON v.child_id = c.child_id " +
+                    "WHERE v.vaccination_id > ? AND v.status IN ('PENDING', 'DELAYED') " +
+                    "ORDER BY v.vaccination_id";
+
+        try (Connection conn = DatabaseConnection.getStreamingConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(DatabaseConnection.STREAMING_FETCH_SIZE);
+            pstmt.setInt(1, afterId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    handler.handle(new PendingVaccination(rs.getInt("vaccination_id"), rs.getInt("child_id"),
+                                                          rs.getInt("recommended_age_months"), rs.getDate("date_of_birth")));
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Get those of the given vaccinations that are still pending or delayed (primary key lookups)
+     * @return Open vaccinations in ID order, or null on error
+     */
+    public List<Vaccination> getOpenVaccinations(List<Integer> vaccinationIds) {
+        List<Vaccination> vaccinations = new ArrayList<>();
+        if (vaccinationIds.isEmpty()) {
+            return vaccinations;
+        }
+
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            for (int start = 0; start < vaccinationIds.size(); start += ID_CHUNK_SIZE) {
+                List<Integer> chunk = vaccinationIds.subList(start, Math.min(start + ID_CHUNK_SIZE, vaccinationIds.size()));
+                String sql = "SELECT * FROM vaccinations WHERE vaccination_id IN (" +
+                            String.join(",", Collections.nCopies(chunk.size(), "?")) +
+                            ") AND status IN ('PENDING', 'DELAYED') ORDER BY vaccination_id";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        pstmt.setInt(i + 1, chunk.get(i));
+                    }
+                    ResultSet rs = pstmt.executeQuery();
+                    while (rs.next()) {
+                        vaccinations.add(mapResultSetToVaccination(rs));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.error("Error checking status of {} vaccinations", vaccinationIds.size(), e);
+            return null;
+        }
+
+        return vaccinations;
+    }
+
+    /**
+     * Get active children without any vaccinations from the primary (schedule creation failed).
+     * Children registered in the last few minutes are skipped, as their schedule may still be
+     * being created.
+     * @return Child IDs, or null on error
+     */
+    public List<Integer> getChildIdsWithoutSchedule(int limit) {
+        List<Integer> childIds = new ArrayList<>();
+        String sql = "SELECT c.child_id FROM children c " +
+                    "WHERE c.is_active = TRUE AND c.created_at < NOW() - INTERVAL 10 MINUTE " +
+                    "AND NOT EXISTS (SELECT 1 FROM vaccinations v WHERE v.child_id = c.child_id) " +
+                    "ORDER BY c.child_id LIMIT ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, limit);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                childIds.add(rs.getInt("child_id"));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving children without a vaccination schedule", e);
+            return null;
+        }
+
+        return childIds;
+    }
+
+    /**
+     * Get a child's pending or delayed vaccinations from the primary
+     * @return Open vaccinations in schedule order, or null on error
+     */
+    public List<Vaccination> getOpenVaccinationsByChildId(int childId) {
+        List<Vaccination> vaccinations = new ArrayList<>();
+        String sql = "SELECT * FROM vaccinations WHERE child_id = ? AND status IN ('PENDING', 'DELAYED') " +
+                    "ORDER BY recommended_age_months, vaccination_id";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, childId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                vaccinations.add(mapResultSetToVaccination(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error retrieving open vaccinations for child ID: " + childId, e);
+            return null;
+        }
+
+        return vaccinations;
+    }
+
+    /**
+     * Map ResultSet to Vaccination object
+     */
+    static Vaccination mapResultSetToVaccination(ResultSet rs) throws SQLException {
+        Vaccination vaccination = new Vaccination();
+        vaccination.setVaccinationId(rs.getInt("vaccination_id"));
+        vaccination.setChildId(rs.getInt("child_id"));
+        vaccination.setVaccineName(rs.getString("vaccine_name"));
+        vaccination.setRecommendedAgeMonths(rs.getInt("recommended_age_months"));
+        vaccination.setAdministeredDate(rs.getDate("administered_date"));
+        vaccination.setAdministeredBy((Integer) rs.getObject("administered_by"));
+        vaccination.setBatchNumber(rs.getString("batch_number"));
+        vaccination.setStatus(Vaccination.VaccinationStatus.valueOf(rs.getString("status")));
+        vaccination.setNotes(rs.getString("notes"));
+        vaccination.setCreatedAt(rs.getTimestamp("created_at"));
+        vaccination.setUpdatedAt(rs.getTimestamp("updated_at"));
+        return vaccination;
+    }
+}
@@ -0,0 +1,37 @@
+package com.chms.filter;
+
+import com.chms.util.DatabaseConnection;
+import com.chms.util.SessionManager;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+
+/**
+ * Routes a request's reads to the primary database when the user wrote data
+ * recently enough that the read replica may not have caught up yet
+ */
+@WebFilter(urlPatterns = "/*", asyncSupported = true)
+public class ReadYourWritesFilter implements Filter {
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        
+        long lastWrite = SessionManager.getLastWriteTime((HttpServletRequest) request);
+        if (lastWrite > 0 && DatabaseConnection.requiresPrimaryRead(lastWrite)) {
+            DatabaseConnection.pinReadsToPrimary();
+        }
+        
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            DatabaseConnection.clearPrimaryReadPin();
+        }
+    }
+}
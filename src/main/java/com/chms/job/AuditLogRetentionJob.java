@@ -0,0 +1,210 @@
+package com.chms.job;
+
+import com.chms.dao.AuditLogDAO;
+import com.chms.dao.JobWatermarkDAO;
+import com.chms.model.AuditLog;
+import com.chms.util.DatabaseConnection;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Audit Log Retention Job
+ * Keeps monthly audit_logs partitions created ahead of time, and archives partitions
+ * older than the retention period to gzip-compressed JSON lines files before dropping them.
+ *
+ * Every node schedules the job, but each day's run is claimed with a compare-and-set of the
+ * job watermark, so the partition DDL runs on one node only; a failed run releases the claim
+ * for the next run. The archive directory should be shared storage, since any node may win.
+ *
+ * Settings (database.properties):
+ *   audit.retentionMonths   - months of entries kept in the database (default 24)
+ *   audit.archiveDir        - directory for archive files (default ~/chms/audit-archive)
+ *   audit.partitionsAhead   - future monthly partitions kept ready (default 3)
+ */
+public class AuditLogRetentionJob implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogRetentionJob.class);
+
+    public static final String JOB_NAME = "audit-log-retention";
+
+    private final AuditLogDAO auditLogDAO = new AuditLogDAO();
+    private final JobWatermarkDAO watermarkDAO = new JobWatermarkDAO();
+    private final Gson gson = new GsonBuilder().setDateFormat("yyyy-MM-dd HH:mm:ss").serializeNulls().create();
+
+    private final int retentionMonths;
+    private final int partitionsAhead;
+    private final Path archiveDir;
+
+    public AuditLogRetentionJob() {
+        this.retentionMonths = Integer.parseInt(DatabaseConnection.getConfigProperty("audit.retentionMonths", "24"));
+        this.partitionsAhead = Integer.parseInt(DatabaseConnection.getConfigProperty("audit.partitionsAhead", "3"));
+        this.archiveDir = Paths.get(DatabaseConnection.getConfigProperty("audit.archiveDir",
+            Paths.get(System.getProperty("user.home"), "chms", "audit-archive").toString()));
+    }
+
+    @Override
+    public void run() {
+        List<String> partitions = auditLogDAO.getPartitionNames();
+        if (partitions.isEmpty()) {
+            logger.warn("audit_logs is not partitioned; run database/migration_performance.sql to enable retention");
+            return;
+        }
+
+        Date today = Date.valueOf(LocalDate.now());
+        Date lastRun = watermarkDAO.getWatermark(JOB_NAME);
+        if (lastRun != null && !lastRun.before(today)) {
+            return;
+        }
+        if (!watermarkDAO.compareAndSetWatermark(JOB_NAME, lastRun, today)) {
+            logger.info("Audit log retention for {} is handled by another node", today);
+            return;
+        }
+
+        if (!addFuturePartitions(partitions) || !archiveExpiredPartitions(auditLogDAO.getPartitionNames())) {
+            // Release the claim so the next run retries
+            boolean released = lastRun == null ? watermarkDAO.deleteWatermark(JOB_NAME)
+                                               : watermarkDAO.compareAndSetWatermark(JOB_NAME, today, lastRun);
+            logger.warn("Audit log retention did not complete (claim {}released)", released ? "" : "not ");
+        }
+    }
+
+    /**
+     * Make sure the current month and the next partitionsAhead months have their own partition
+     * @return false if a partition could not be added
+     */
+    private boolean addFuturePartitions(List<String> partitions) {
+        YearMonth last = lastMonthlyPartition(partitions);
+        YearMonth target = YearMonth.now().plusMonths(partitionsAhead);
+        YearMonth month = last != null ? last.plusMonths(1) : YearMonth.now();
+
+        while (!month.isAfter(target)) {
+            if (!auditLogDAO.addMonthlyPartition(month)) {
+                return false;
+            }
+            month = month.plusMonths(1);
+        }
+        return true;
+    }
+
+    /**
+     * Archive and drop every partition whose entries are all older than the retention cutoff.
+     * p_history covers everything before the first monthly partition.
+     * @return false if a partition could not be archived or dropped
+     */
+    private boolean archiveExpiredPartitions(List<String> partitions) {
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+
+        for (int i = 0; i < partitions.size(); i++) {
+            String partition = partitions.get(i);
+            YearMonth endsBefore;
+            if ("p_history".equals(partition)) {
+                YearMonth next = i + 1 < partitions.size() ? parseMonth(partitions.get(i + 1)) : null;
+                if (next == null) {
+                    continue;
+                }
+                endsBefore = next;
+            } else {
+                YearMonth month = parseMonth(partition);
+                if (month == null) {
+                    continue;
+                }
+                endsBefore = month.plusMonths(1);
+            }
+
+            if (endsBefore.isAfter(cutoff)) {
+                // Partitions are in range order, so the rest are newer
+                break;
+            }
+            if (!archivePartition(partition)) {
+                // Never drop a partition that was not archived completely
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write a partition to archiveDir/audit_logs_&lt;partition&gt;.jsonl.gz, verify the row count,
+     * then drop the partition
+     */
+    private boolean archivePartition(String partition) {
+        Path target = archiveDir.resolve("audit_logs_" + partition + ".jsonl.gz");
+        Path temp = archiveDir.resolve("audit_logs_" + partition + ".jsonl.gz.tmp");
+        long expected = auditLogDAO.countPartition(partition);
+        if (expected < 0) {
+            return false;
+        }
+
+        try {
+            Files.createDirectories(archiveDir);
+            int written;
+            try (OutputStream file = Files.newOutputStream(temp);
+                 Writer out = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(file), StandardCharsets.UTF_8))) {
+                written = auditLogDAO.streamPartition(partition, log -> {
+                    out.write(gson.toJson(log, AuditLog.class));
+                    out.write('\n');
+                });
+            }
+
+            if (written < expected) {
+                logger.error("Archive of partition {} incomplete ({} of {} rows); keeping partition",
+                            partition, written, expected);
+                Files.deleteIfExists(temp);
+                return false;
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Archived {} audit log entries from partition {} to {}", written, partition, target);
+
+        } catch (IOException | SQLException e) {
+            logger.error("Error archiving audit log partition " + partition, e);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // Left for the next run to overwrite
+            }
+            return false;
+        }
+
+        return auditLogDAO.dropPartition(partition);
+    }
+
+    private static YearMonth lastMonthlyPartition(List<String> partitions) {
+        YearMonth last = null;
+        for (String partition : partitions) {
+            YearMonth month = parseMonth(partition);
+            if (month != null) {
+                last = month;
+            }
+        }
+        return last;
+    }
+
+    private static YearMonth parseMonth(String partition) {
+        if (partition.length() != 7 || partition.charAt(0) != 'p') {
+            return null;
+        }
+        try {
+            return YearMonth.of(Integer.parseInt(partition.substring(1, 5)), Integer.parseInt(partition.substring(5, 7)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
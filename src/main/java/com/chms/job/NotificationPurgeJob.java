@@ -0,0 +1,47 @@
+package com.chms.job;
+
+import com.chms.dao.NotificationDAO;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Notification Purge Job
+ * Deletes notifications that were read longer ago than the retention period,
+ * in small batches so the table is never locked for long. Unread notifications are kept.
+ *
+ * Settings (database.properties):
+ *   notifications.purgeReadAfterDays   - days a read notification is kept (default 90)
+ */
+public class NotificationPurgeJob implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPurgeJob.class);
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final int retentionDays;
+
+    public NotificationPurgeJob() {
+        this.retentionDays = Integer.parseInt(DatabaseConnection.getConfigProperty("notifications.purgeReadAfterDays", "90"));
+    }
+
+    @Override
+    public void run() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = notificationDAO.deleteReadNotificationsBefore(cutoff, BATCH_SIZE);
+            if (deleted > 0) {
+                total += deleted;
+            }
+        } while (deleted == BATCH_SIZE && !Thread.currentThread().isInterrupted());
+
+        if (total > 0) {
+            logger.info("Purged {} notifications read before {}", total, cutoff);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.chms.job;
+
+import com.chms.dao.ChildDAO;
+import com.chms.dao.JobWatermarkDAO;
+import com.chms.dao.NotificationDAO;
+import com.chms.dao.RowHandler;
+import com.chms.model.Child;
+import com.chms.model.Notification;
+import com.chms.util.DatabaseConnection;
+import com.chms.util.DateTimeUtil;
+import com.chms.util.NotificationHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Overdue Checkup Job
+ * Reminds mothers when a child's checkup becomes overdue, replacing the full scan of
+ * sp_check_overdue_checkups. children.last_checkup_date is kept up to date by triggers on
+ * health_records, so each run only reads the children whose last checkup (or registration,
+ * if never checked) crossed the overdue limit since the previous run: a range scan between
+ * the stored watermark and today's cutoff. Each child is reminded once per overdue period.
+ *
+ * Candidates are read from the primary. A checkup that moves below the watermark after
+ * the range was scanned (a back-dated health record, one committed after the scan, or a
+ * deleted record) is caught by children.checkup_changed_at: each run also reminds the
+ * children whose checkup changed since the day of the previous run to a date before the
+ * watermark.
+ *
+ * The watermark is claimed with compare-and-set before the range is processed, so with
+ * several application nodes only one sends the reminders; a failed run releases it again.
+ *
+ * Settings (database.properties):
+ *   checkups.overdueDays   - days after the last checkup a child is overdue (default 35)
+ */
+public class OverdueCheckupJob implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(OverdueCheckupJob.class);
+
+    public static final String JOB_NAME = "overdue-checkups";
+
+    private static final int BATCH_SIZE = 500;
+
+    // Metrics
+    private static final LongAdder runs = new LongAdder();
+    private static final LongAdder failures = new LongAdder();
+    private static final LongAdder rowsProcessed = new LongAdder();
+    private static final LongAdder notificationsCreated = new LongAdder();
+    private static volatile long lastRunAt;
+    private static volatile long lastRunMillis;
+    private static volatile long lastRunRows;
+
+    private final ChildDAO childDAO = new ChildDAO();
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final JobWatermarkDAO watermarkDAO = new JobWatermarkDAO();
+    private final int overdueDays;
+
+    public OverdueCheckupJob() {
+        this.overdueDays = Integer.parseInt(DatabaseConnection.getConfigProperty("checkups.overdueDays", "35"));
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        runs.increment();
+
+        // Checkups before the cutoff are overdue today
+        Date cutoff = Date.valueOf(LocalDate.now().minusDays(overdueDays));
+        Date from = watermarkDAO.getWatermark(JOB_NAME);
+        if (from != null && !from.before(cutoff)) {
+            finishRun(start, 0);
+            return;
+        }
+        if (!watermarkDAO.compareAndSetWatermark(JOB_NAME, from, cutoff)) {
+            logger.info("Overdue checkups up to {} are handled by another node", cutoff);
+            finishRun(start, 0);
+            return;
+        }
+
+        List<Notification> batch = new ArrayList<>(BATCH_SIZE);
+        int[] created = {0};
+        RowHandler<Child> remind = child -> {
+            batch.add(reminderFor(child));
+            if (batch.size() == BATCH_SIZE) {
+                flush(batch);
+                created[0] += BATCH_SIZE;
+            }
+        };
+        int rows;
+        try {
+            rows = childDAO.streamChildrenDueForCheckup(from, cutoff, remind);
+            if (from != null) {
+                // Changes since the day of the previous run (its cutoff was from) up to today
+                Timestamp changedFrom = Timestamp.valueOf(from.toLocalDate().plusDays(overdueDays).atStartOfDay());
+                Timestamp changedTo = Timestamp.valueOf(LocalDate.now().atStartOfDay());
+                rows += childDAO.streamChildrenWithCheckupMovedBefore(from, changedFrom, changedTo, remind);
+            }
+            int remaining = batch.size();
+            flush(batch);
+            created[0] += remaining;
+        } catch (SQLException | IOException e) {
+            failures.increment();
+            // Release the range so the next run retries it (reminders already sent may repeat)
+            boolean released = from == null ? watermarkDAO.deleteWatermark(JOB_NAME)
+                                            : watermarkDAO.compareAndSetWatermark(JOB_NAME, cutoff, from);
+            logger.error("Overdue checkup scan failed after {} reminders (range {}released)",
+                         created[0], released ? "" : "not ", e);
+            finishRun(start, created[0]);
+            return;
+        } finally {
+            if (created[0] > 0) {
+                notificationsCreated.add(created[0]);
+                NotificationHub.getInstance().wake();
+            }
+        }
+
+        finishRun(start, rows);
+        if (rows > 0) {
+            logger.info("Sent {} overdue checkup reminders (last checkup before {})", rows, cutoff);
+        }
+    }
+
+    /**
+     * Build a snapshot of the job metrics, suitable for JSON serialization
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("runs", runs.sum());
+        stats.put("failures", failures.sum());
+        stats.put("rowsProcessed", rowsProcessed.sum());
+        stats.put("notificationsCreated", notificationsCreated.sum());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunRows", lastRunRows);
+        return stats;
+    }
+
+    private void flush(List<Notification> batch) throws IOException {
+        if (!batch.isEmpty() && !notificationDAO.createNotifications(batch)) {
+            throw new IOException("Could not store " + batch.size() + " checkup reminders");
+        }
+        batch.clear();
+    }
+
+    private static Notification reminderFor(Child child) {
+        String message = child.getLastCheckupDate() != null
+            ? child.getFullName() + " has not had a health checkup since "
+              + DateTimeUtil.formatDate(child.getLastCheckupDate()) + ". Please book a checkup appointment."
+            : child.getFullName() + " has not had a health checkup yet. Please book a checkup appointment.";
+        Notification notification = new Notification(child.getMotherId(), Notification.NotificationType.CHECKUP_DUE,
+                                                      "Checkup due for " + child.getFullName(), message);
+        notification.setRelatedChildId(child.getChildId());
+        return notification;
+    }
+
+    private static void finishRun(long start, long rows) {
+        rowsProcessed.add(rows);
+        lastRunRows = rows;
+        lastRunAt = System.currentTimeMillis();
+        lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
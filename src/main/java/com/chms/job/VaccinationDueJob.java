@@ -0,0 +1,213 @@
+package com.chms.job;
+
+import com.chms.dao.ChildDAO;
+import com.chms.dao.JobWatermarkDAO;
+import com.chms.dao.NotificationDAO;
+import com.chms.model.Child;
+import com.chms.model.Notification;
+import com.chms.model.Vaccination;
+import com.chms.service.VaccinationService;
+import com.chms.util.DatabaseConnection;
+import com.chms.util.NotificationHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Vaccination Due Job
+ * Reminds mothers of vaccines coming due, once per vaccine. The vaccinations due in the
+ * window since the previous run are read from the in-memory due-date index of
+ * {@link VaccinationService} instead of scanning the vaccinations table; only their status
+ * is confirmed against the database (primary key lookups). One notification is sent per
+ * child, listing all of the child's vaccines in the window.
+ *
+ * The window end is stored as a watermark and claimed with compare-and-set, so with several
+ * application nodes only one sends the reminders; a failed run releases it again. The index
+ * is refreshed after the claim, so schedules committed before it are always included. The
+ * first run also reminds of everything already overdue. Vaccines that are already before the
+ * watermark when a schedule is created (birth doses, children registered late) are reminded
+ * by {@link VaccinationService#generateSchedule} instead. After its reminders, the run also
+ * creates the schedules of children that were registered without one.
+ *
+ * Settings (database.properties):
+ *   vaccination.reminderLeadDays   - days before the due date the reminder is sent (default 3)
+ */
+public class VaccinationDueJob implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(VaccinationDueJob.class);
+
+    public static final String JOB_NAME = VaccinationService.REMINDER_JOB_NAME;
+
+    private static final int BATCH_SIZE = 500;
+
+    // Metrics
+    private static final LongAdder runs = new LongAdder();
+    private static final LongAdder failures = new LongAdder();
+    private static final LongAdder rowsProcessed = new LongAdder();
+    private static final LongAdder notificationsCreated = new LongAdder();
+    private static volatile long lastRunAt;
+    private static volatile long lastRunMillis;
+    private static volatile long lastRunRows;
+
+    private final VaccinationService vaccinationService = new VaccinationService();
+    private final ChildDAO childDAO = new ChildDAO();
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final JobWatermarkDAO watermarkDAO = new JobWatermarkDAO();
+    private final int leadDays;
+
+    public VaccinationDueJob() {
+        this.leadDays = Integer.parseInt(DatabaseConnection.getConfigProperty("vaccination.reminderLeadDays", "3"));
+    }
+
+    @Override
+    public void run() {
+        long start = System.nanoTime();
+        runs.increment();
+
+        // Vaccines due before the cutoff are reminded today
+        Date cutoff = Date.valueOf(LocalDate.now().plusDays(leadDays + 1L));
+        Date from = watermarkDAO.getWatermark(JOB_NAME);
+        if (from != null && !from.before(cutoff)) {
+            finishRun(start, 0);
+            return;
+        }
+        if (!watermarkDAO.compareAndSetWatermark(JOB_NAME, from, cutoff)) {
+            logger.info("Vaccinations due before {} are handled by another node", cutoff);
+            finishRun(start, 0);
+            return;
+        }
+
+        try {
+            vaccinationService.refresh();
+        } catch (SQLException e) {
+            failures.increment();
+            boolean released = from == null ? watermarkDAO.deleteWatermark(JOB_NAME)
+                                            : watermarkDAO.compareAndSetWatermark(JOB_NAME, cutoff, from);
+            logger.error("Could not refresh the vaccination due-date index (range {}released)",
+                         released ? "" : "not ", e);
+            finishRun(start, 0);
+            return;
+        }
+
+        List<Integer> dueIds = new ArrayList<>();
+        vaccinationService.forEachDue(from != null ? from.toLocalDate() : null, cutoff.toLocalDate(),
+                                      (vaccinationId, childId, dueDate) -> dueIds.add(vaccinationId));
+
+        int created = 0;
+        int rows = 0;
+        try {
+            List<Vaccination> open = vaccinationService.confirmOpen(dueIds);
+            if (open == null) {
+                throw new IOException("Could not confirm the status of " + dueIds.size() + " vaccinations");
+            }
+            rows = open.size();
+
+            Map<Integer, List<Vaccination>> byChild = new LinkedHashMap<>();
+            for (Vaccination vaccination : open) {
+                byChild.computeIfAbsent(vaccination.getChildId(), id -> new ArrayList<>()).add(vaccination);
+            }
+
+            List<Notification> batch = new ArrayList<>(BATCH_SIZE);
+            for (Map.Entry<Integer, List<Vaccination>> entry : byChild.entrySet()) {
+                Child child = childDAO.getChildById(entry.getKey());
+                if (child == null) {
+                    continue;
+                }
+                List<Vaccination> due = dueBefore(child, entry.getValue(), cutoff.toLocalDate());
+                if (due.isEmpty()) {
+                    continue;
+                }
+                batch.add(VaccinationService.reminderFor(child, due));
+                if (batch.size() == BATCH_SIZE) {
+                    flush(batch);
+                    created += BATCH_SIZE;
+                }
+            }
+            int remaining = batch.size();
+            flush(batch);
+            created += remaining;
+        } catch (IOException e) {
+            failures.increment();
+            // Release the range so the next run retries it (reminders already sent may repeat)
+            boolean released = from == null ? watermarkDAO.deleteWatermark(JOB_NAME)
+                                            : watermarkDAO.compareAndSetWatermark(JOB_NAME, cutoff, from);
+            logger.error("Vaccination reminders failed after {} reminders (range {}released)",
+                         created, released ? "" : "not ", e);
+            finishRun(start, rows);
+            return;
+        } finally {
+            if (created > 0) {
+                notificationsCreated.add(created);
+                NotificationHub.getInstance().wake();
+            }
+        }
+
+        finishRun(start, rows);
+        if (created > 0) {
+            logger.info("Sent {} vaccination reminders for {} vaccines due before {}", created, rows, cutoff);
+        }
+
+        // After the reminders, so vaccines of a repaired schedule are reminded only once (by generateSchedule)
+        int repaired = vaccinationService.repairMissingSchedules(BATCH_SIZE);
+        if (repaired > 0) {
+            logger.info("Created missing vaccination schedules for {} children", repaired);
+        }
+    }
+
+    /**
+     * Build a snapshot of the job and due-date index metrics, suitable for JSON serialization
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("runs", runs.sum());
+        stats.put("failures", failures.sum());
+        stats.put("rowsProcessed", rowsProcessed.sum());
+        stats.put("notificationsCreated", notificationsCreated.sum());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunRows", lastRunRows);
+        stats.put("index", VaccinationService.snapshot());
+        return stats;
+    }
+
+    /**
+     * Keep the vaccinations that are due before the cutoff by the child's current date of birth;
+     * the others were indexed under an older one (changed on another node) and are moved
+     */
+    private static List<Vaccination> dueBefore(Child child, List<Vaccination> vaccinations, LocalDate cutoff) {
+        LocalDate dateOfBirth = child.getDateOfBirth().toLocalDate();
+        List<Vaccination> due = new ArrayList<>(vaccinations.size());
+        for (Vaccination vaccination : vaccinations) {
+            LocalDate dueDate = dateOfBirth.plusMonths(vaccination.getRecommendedAgeMonths());
+            if (dueDate.isBefore(cutoff)) {
+                due.add(vaccination);
+            } else {
+                VaccinationService.rescheduled(vaccination.getVaccinationId(), child.getChildId(), dueDate);
+            }
+        }
+        return due;
+    }
+
+    private void flush(List<Notification> batch) throws IOException {
+        if (!batch.isEmpty() && !notificationDAO.createNotifications(batch)) {
+            throw new IOException("Could not store " + batch.size() + " vaccination reminders");
+        }
+        batch.clear();
+    }
+
+    private static void finishRun(long start, long rows) {
+        rowsProcessed.add(rows);
+        lastRunRows = rows;
+        lastRunAt = System.currentTimeMillis();
+        lastRunMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,75 @@
+package com.chms.listener;
+
+import com.chms.job.AuditLogRetentionJob;
+import com.chms.job.NotificationPurgeJob;
+import com.chms.job.OverdueCheckupJob;
+import com.chms.job.VaccinationDueJob;
+import com.chms.service.CriticalAlertQueue;
+import com.chms.session.ExternalSessions;
+import com.chms.util.AuditLogWriter;
+import com.chms.util.DatabaseConnection;
+import com.chms.util.JobScheduler;
+import com.chms.util.NotificationHub;
+import com.chms.util.PasswordHasher;
+import com.chms.util.QueryFanOut;
+import jakarta.servlet.ServletContextEvent;
+import jakarta.servlet.ServletContextListener;
+import jakarta.servlet.annotation.WebListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application lifecycle listener
+ * Starts background jobs, and releases background workers and the connection pool
+ * when the application is undeployed
+ */
+@WebListener
+public class AppContextListener implements ServletContextListener {
+    private static final Logger logger = LoggerFactory.getLogger(AppContextListener.class);
+
+    @Override
+    public void contextInitialized(ServletContextEvent sce) {
+        logger.info("CHMS application starting");
+        
+        // Pick the BCrypt work factor for this host
+        PasswordHasher.calibrateWorkFactor();
+        
+        // Audit log partition maintenance and archiving
+        JobScheduler.scheduleWithFixedDelay(AuditLogRetentionJob.JOB_NAME, new AuditLogRetentionJob(),
+            1, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        
+        // Removal of old read notifications
+        JobScheduler.scheduleWithFixedDelay("notification-purge", new NotificationPurgeJob(),
+            5, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        
+        // Reminders for children whose checkup became overdue
+        JobScheduler.scheduleWithFixedDelay(OverdueCheckupJob.JOB_NAME, new OverdueCheckupJob(),
+            10, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        
+        // Reminders for vaccines coming due (also loads the due-date index)
+        JobScheduler.scheduleWithFixedDelay(VaccinationDueJob.JOB_NAME, new VaccinationDueJob(),
+            15, TimeUnit.DAYS.toMinutes(1), TimeUnit.MINUTES);
+        
+        // Incremental refresh of the doctors' urgent alert queue
+        CriticalAlertQueue alertQueue = CriticalAlertQueue.getInstance();
+        JobScheduler.scheduleWithFixedDelay("critical-alert-queue", alertQueue::refresh,
+            0, 1, TimeUnit.MINUTES);
+        
+        // Session access time flush and idle session purge (external session store only)
+        ExternalSessions.start();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        logger.info("CHMS application shutting down");
+        NotificationHub.getInstance().shutdown();
+        QueryFanOut.shutdown();
+        PasswordHasher.shutdown();
+        JobScheduler.shutdown();
+        ExternalSessions.shutdown();
+        AuditLogWriter.getInstance().shutdown();
+        DatabaseConnection.closePool();
+    }
+}
@@ -30,6 +30,7 @@ public class Child {
     private String address;
     private String medicalHistory;
     private boolean isActive;
+    private Date lastCheckupDate;
     private Timestamp createdAt;
     private Timestamp updatedAt;
     
@@ -173,6 +174,14 @@ public class Child {
         isActive = active;
     }
     
+    public Date getLastCheckupDate() {
+        return lastCheckupDate;
+    }
+    
+    public void setLastCheckupDate(Date lastCheckupDate) {
+        this.lastCheckupDate = lastCheckupDate;
+    }
+    
     public Timestamp getCreatedAt() {
         return createdAt;
     }
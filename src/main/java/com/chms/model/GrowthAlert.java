@@ -10,7 +10,7 @@ public class GrowthAlert {
     
     // Alert type enumeration
     public enum AlertType {
-        UNDERWEIGHT, OVERWEIGHT, STUNTED, RAPID_WEIGHT_LOSS, RAPID_WEIGHT_GAIN, NO_GROWTH
+        UNDERWEIGHT, OVERWEIGHT, STUNTED, WASTED, RAPID_WEIGHT_LOSS, RAPID_WEIGHT_GAIN, NO_GROWTH
     }
     
     // Severity enumeration
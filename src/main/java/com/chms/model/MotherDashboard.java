@@ -0,0 +1,54 @@
+package com.chms.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable view of everything shown on the mother dashboard
+ */
+public final class MotherDashboard {
+    
+    // Fields
+    private final int motherId;
+    private final List<Child> children;
+    private final List<Appointment> upcomingAppointments;
+    private final List<Notification> unreadNotifications;
+    
+    // Constructors
+    public MotherDashboard(int motherId, List<Child> children,
+                           List<Appointment> upcomingAppointments,
+                           List<Notification> unreadNotifications) {
+        this.motherId = motherId;
+        this.children = Collections.unmodifiableList(children);
+        this.upcomingAppointments = Collections.unmodifiableList(upcomingAppointments);
+        this.unreadNotifications = Collections.unmodifiableList(unreadNotifications);
+    }
+    
+    // Getters
+    public int getMotherId() {
+        return motherId;
+    }
+    
+    public List<Child> getChildren() {
+        return children;
+    }
+    
+    public List<Appointment> getUpcomingAppointments() {
+        return upcomingAppointments;
+    }
+    
+    public List<Notification> getUnreadNotifications() {
+        return unreadNotifications;
+    }
+    
+    // Utility methods
+    @Override
+    public String toString() {
+        return "MotherDashboard{" +
+                "motherId=" + motherId +
+                ", children=" + children.size() +
+                ", upcomingAppointments=" + upcomingAppointments.size() +
+                ", unreadNotifications=" + unreadNotifications.size() +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package com.chms.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) paginated query
+ * The cursor is an opaque string that encodes the sort key of the last row on the page
+ */
+public class Page<T> {
+    
+    private final List<T> items;
+    private final String nextCursor;
+    
+    public Page(List<T> items, String nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<T> getItems() {
+        return items;
+    }
+    
+    /**
+     * @return Cursor for the following page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+    
+    public int size() {
+        return items.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.chms.model;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Immutable identity of a logged-in user, stored in the HTTP session instead of the full User
+ * Holds only what is needed on every request; the full user is loaded on demand.
+ */
+public final class SessionPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final User.Role[] ROLES = User.Role.values();
+
+    // Binary layout: version (1 byte), user ID (4), role ordinal (1), display name (UTF-8, rest)
+    private static final byte ENCODING_VERSION = 1;
+    private static final int HEADER_BYTES = 6;
+
+    // Fields
+    private final int userId;
+    private final byte roleOrdinal;
+    private final String displayName;
+
+    // Constructors
+    public SessionPrincipal(int userId, User.Role role, String displayName) {
+        this.userId = userId;
+        this.roleOrdinal = (byte) role.ordinal();
+        this.displayName = displayName;
+    }
+
+    public static SessionPrincipal of(User user) {
+        return new SessionPrincipal(user.getUserId(), user.getRole(), user.getFullName());
+    }
+
+    // Getters
+    public int getUserId() {
+        return userId;
+    }
+
+    public User.Role getRole() {
+        return ROLES[roleOrdinal];
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Encode for an external session store (a few dozen bytes)
+     */
+    public byte[] toBytes() {
+        byte[] name = displayName != null ? displayName.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return ByteBuffer.allocate(HEADER_BYTES + name.length)
+                .put(ENCODING_VERSION)
+                .putInt(userId)
+                .put(roleOrdinal)
+                .put(name)
+                .array();
+    }
+
+    /**
+     * Decode a principal written by {@link #toBytes()}
+     * @throws IllegalArgumentException if the bytes are not a supported encoding
+     */
+    public static SessionPrincipal fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length < HEADER_BYTES || bytes[0] != ENCODING_VERSION) {
+            throw new IllegalArgumentException("Unsupported session principal encoding");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, HEADER_BYTES - 1);
+        int userId = buffer.getInt();
+        int roleOrdinal = buffer.get();
+        if (roleOrdinal < 0 || roleOrdinal >= ROLES.length) {
+            throw new IllegalArgumentException("Unknown role ordinal: " + roleOrdinal);
+        }
+        String displayName = new String(bytes, HEADER_BYTES, bytes.length - HEADER_BYTES, StandardCharsets.UTF_8);
+        return new SessionPrincipal(userId, ROLES[roleOrdinal], displayName);
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal{" +
+                "userId=" + userId +
+                ", role=" + getRole() +
+                '}';
+    }
+}
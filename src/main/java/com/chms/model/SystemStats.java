@@ -0,0 +1,109 @@
+package com.chms.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Model class representing the system-wide totals shown on the admin dashboard
+ * Backed by the single-row system_stats summary table
+ */
+public class SystemStats {
+    
+    // Fields
+    private int totalUsers;
+    private int activeUsers;
+    private int totalMothers;
+    private int totalDoctors;
+    private int totalAdmins;
+    private int totalChildren;
+    private int openGrowthAlerts;
+    private int pendingAppointments;
+    private Timestamp updatedAt;
+    
+    // Constructors
+    public SystemStats() {
+    }
+    
+    // Getters and Setters
+    public int getTotalUsers() {
+        return totalUsers;
+    }
+    
+    public void setTotalUsers(int totalUsers) {
+        this.totalUsers = totalUsers;
+    }
+    
+    public int getActiveUsers() {
+        return activeUsers;
+    }
+    
+    public void setActiveUsers(int activeUsers) {
+        this.activeUsers = activeUsers;
+    }
+    
+    public int getTotalMothers() {
+        return totalMothers;
+    }
+    
+    public void setTotalMothers(int totalMothers) {
+        this.totalMothers = totalMothers;
+    }
+    
+    public int getTotalDoctors() {
+        return totalDoctors;
+    }
+    
+    public void setTotalDoctors(int totalDoctors) {
+        this.totalDoctors = totalDoctors;
+    }
+    
+    public int getTotalAdmins() {
+        return totalAdmins;
+    }
+    
+    public void setTotalAdmins(int totalAdmins) {
+        this.totalAdmins = totalAdmins;
+    }
+    
+    public int getTotalChildren() {
+        return totalChildren;
+    }
+    
+    public void setTotalChildren(int totalChildren) {
+        this.totalChildren = totalChildren;
+    }
+    
+    public int getOpenGrowthAlerts() {
+        return openGrowthAlerts;
+    }
+    
+    public void setOpenGrowthAlerts(int openGrowthAlerts) {
+        this.openGrowthAlerts = openGrowthAlerts;
+    }
+    
+    public int getPendingAppointments() {
+        return pendingAppointments;
+    }
+    
+    public void setPendingAppointments(int pendingAppointments) {
+        this.pendingAppointments = pendingAppointments;
+    }
+    
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    // Utility methods
+    @Override
+    public String toString() {
+        return "SystemStats{" +
+                "totalUsers=" + totalUsers +
+                ", totalChildren=" + totalChildren +
+                ", openGrowthAlerts=" + openGrowthAlerts +
+                ", pendingAppointments=" + pendingAppointments +
+                '}';
+    }
+}
@@ -0,0 +1,231 @@
+package com.chms.service;
+
+import com.chms.dao.GrowthAlertDAO;
+import com.chms.model.GrowthAlert;
+import com.chms.util.DatabaseConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Critical Alert Queue
+ * In-memory priority queue of the open growth alerts at or above a minimum severity, in
+ * inbox order (most severe, then newest first), so the doctor dashboard reads its top N
+ * alerts without querying growth_alerts.
+ *
+ * The queue is refreshed incrementally: each refresh reads only the alerts added since the
+ * last one by primary key (including those created by the health record trigger or on other
+ * nodes), then the alerts resolved since the last one by resolved_at (a range scan, however
+ * many alerts the queue holds). Alerts resolved through {@link #resolved(int)} leave the
+ * queue immediately, and a refresh that read them as open just before does not add them back.
+ * Alerts deleted with their child are not in either range; every reconcileEvery refreshes
+ * the held alerts are re-checked by primary key.
+ *
+ * Settings (database.properties):
+ *   alerts.queue.minSeverity      - lowest severity kept in the queue (default HIGH)
+ *   alerts.queue.reconcileEvery   - refreshes between re-checks of all held alerts (default 60)
+ */
+public class CriticalAlertQueue {
+    private static final Logger logger = LoggerFactory.getLogger(CriticalAlertQueue.class);
+
+    // IDs re-read on every refresh: rows may commit out of ID order
+    private static final int REFRESH_OVERLAP_IDS = 500;
+    // Resolutions re-read on every refresh: they may commit out of time order
+    private static final long RESOLVED_OVERLAP_MS = TimeUnit.MINUTES.toMillis(2);
+    // Alerts resolved through this node that a refresh must not add back
+    private static final int RECENTLY_RESOLVED_IDS = 1000;
+
+    private static final Comparator<GrowthAlert> INBOX_ORDER =
+        Comparator.comparing(GrowthAlert::getSeverity).reversed()
+            .thenComparing(Comparator.comparing(GrowthAlert::getCreatedAt).reversed())
+            .thenComparing(Comparator.comparingInt(GrowthAlert::getAlertId).reversed());
+
+    private static final CriticalAlertQueue instance = new CriticalAlertQueue();
+
+    private final ConcurrentSkipListSet<GrowthAlert> queue = new ConcurrentSkipListSet<>(INBOX_ORDER);
+    private final Map<Integer, GrowthAlert> alertsById = new ConcurrentHashMap<>();
+    private final GrowthAlertDAO growthAlertDAO = new GrowthAlertDAO();
+    private final GrowthAlert.Severity minSeverity;
+    private final int reconcileEvery;
+    private final Set<Integer> recentlyResolved = new LinkedHashSet<>();
+
+    private final Object refreshLock = new Object();
+    private volatile int loadedUpToId;
+    private volatile Timestamp resolvedUpTo;
+    private long refreshCount;
+
+    // Metrics
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private volatile long lastRefreshAt;
+    private volatile long lastRefreshMillis;
+
+    private CriticalAlertQueue() {
+        this.minSeverity = GrowthAlert.Severity.valueOf(
+            DatabaseConnection.getConfigProperty("alerts.queue.minSeverity", "HIGH"));
+        this.reconcileEvery = Math.max(1, Integer.parseInt(
+            DatabaseConnection.getConfigProperty("alerts.queue.reconcileEvery", "60")));
+    }
+
+    public static CriticalAlertQueue getInstance() {
+        return instance;
+    }
+
+    /**
+     * Get the first alerts of the queue (walks at most limit entries)
+     */
+    public List<GrowthAlert> top(int limit) {
+        List<GrowthAlert> alerts = new ArrayList<>(limit);
+        Iterator<GrowthAlert> iterator = queue.iterator();
+        while (alerts.size() < limit && iterator.hasNext()) {
+            alerts.add(iterator.next());
+        }
+        return alerts;
+    }
+
+    public int size() {
+        return alertsById.size();
+    }
+
+    /**
+     * Read alerts added since the last refresh and drop those resolved since (on any node)
+     * Failures are logged and retried by the next refresh.
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        synchronized (refreshLock) {
+            refreshes.increment();
+            if (resolvedUpTo == null) {
+                // Before the first load: resolutions up to now are reflected in the open alerts
+                Timestamp latest = growthAlertDAO.getLatestResolvedAt();
+                if (latest == null) {
+                    refreshFailures.increment();
+                    return;
+                }
+                resolvedUpTo = latest;
+            }
+
+            List<GrowthAlert> added = growthAlertDAO.getOpenAlertsAfter(
+                Math.max(0, loadedUpToId - REFRESH_OVERLAP_IDS), minSeverity);
+            if (added == null) {
+                refreshFailures.increment();
+                return;
+            }
+            int maxId = loadedUpToId;
+            for (GrowthAlert alert : added) {
+                put(alert);
+                maxId = Math.max(maxId, alert.getAlertId());
+            }
+            if (loadedUpToId == 0) {
+                logger.info("Loaded {} open alerts of severity {} or higher into the alert queue", added.size(), minSeverity);
+            }
+            loadedUpToId = maxId;
+
+            // Read after the added alerts, so one resolved in between is dropped again
+            Map<Integer, Timestamp> resolvedSince = growthAlertDAO.getAlertsResolvedSince(
+                new Timestamp(resolvedUpTo.getTime() - RESOLVED_OVERLAP_MS));
+            if (resolvedSince == null) {
+                refreshFailures.increment();
+                return;
+            }
+            Timestamp latest = resolvedUpTo;
+            for (Map.Entry<Integer, Timestamp> entry : resolvedSince.entrySet()) {
+                drop(entry.getKey());
+                if (entry.getValue().after(latest)) {
+                    latest = entry.getValue();
+                }
+            }
+            resolvedUpTo = latest;
+
+            if (++refreshCount % reconcileEvery == 0 && !reconcile()) {
+                refreshFailures.increment();
+                return;
+            }
+        }
+        lastRefreshAt = System.currentTimeMillis();
+        lastRefreshMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    /**
+     * Drop an alert resolved on this node from the queue; refreshes will not add it back
+     */
+    public synchronized void resolved(int alertId) {
+        recentlyResolved.add(alertId);
+        if (recentlyResolved.size() > RECENTLY_RESOLVED_IDS) {
+            Iterator<Integer> oldest = recentlyResolved.iterator();
+            oldest.next();
+            oldest.remove();
+        }
+        drop(alertId);
+    }
+
+    /**
+     * Build a snapshot of the queue metrics, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("minSeverity", minSeverity.name());
+        stats.put("size", size());
+        stats.put("loadedUpToId", loadedUpToId);
+        Timestamp resolved = resolvedUpTo;
+        stats.put("resolvedUpTo", resolved != null ? resolved.getTime() : 0L);
+        stats.put("refreshes", refreshes.sum());
+        stats.put("refreshFailures", refreshFailures.sum());
+        stats.put("lastRefreshAt", lastRefreshAt);
+        stats.put("lastRefreshMillis", lastRefreshMillis);
+        return stats;
+    }
+
+    /**
+     * Re-check all held alerts by primary key and drop those no longer open (e.g. deleted)
+     * @return false if the database could not be read
+     */
+    private boolean reconcile() {
+        Set<Integer> held = new HashSet<>(alertsById.keySet());
+        if (held.isEmpty()) {
+            return true;
+        }
+        Set<Integer> open = growthAlertDAO.getOpenAlertIds(held);
+        if (open == null) {
+            return false;
+        }
+        for (Integer alertId : held) {
+            if (!open.contains(alertId)) {
+                drop(alertId);
+            }
+        }
+        return true;
+    }
+
+    private synchronized void drop(int alertId) {
+        GrowthAlert alert = alertsById.remove(alertId);
+        if (alert != null) {
+            queue.remove(alert);
+        }
+    }
+
+    private synchronized void put(GrowthAlert alert) {
+        if (recentlyResolved.contains(alert.getAlertId())) {
+            return;
+        }
+        GrowthAlert previous = alertsById.put(alert.getAlertId(), alert);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+        queue.add(alert);
+    }
+}
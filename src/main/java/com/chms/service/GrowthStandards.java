@@ -0,0 +1,302 @@
+package com.chms.service;
+
+import com.chms.model.Child;
+import com.chms.model.HealthRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Growth standard z-scores and classification from LMS reference tables
+ *
+ * The tables (growth-standards-lms.csv) are loaded once into primitive arrays with
+ * one entry per sex and month of age (or 0.1 cm of length/height for weight-for-length
+ * and weight-for-height), L, M and S interleaved. A lookup is an array index plus the
+ * LMS formula, without allocation. As in the WHO standards, children under 24 months
+ * are measured lying down and use the length tables (length-for-age, weight-for-length
+ * 45-110 cm); from 24 to 60 months the height tables (height-for-age, weight-for-height
+ * 65-120 cm). Measurements outside the tables (older than 60 months, sex OTHER, length
+ * or height out of range) give NaN and are not classified.
+ *
+ * Entries between the rows of the file are interpolated linearly when it is loaded, and
+ * a warning names each table that was; only a file with the full monthly and 0.1 cm WHO
+ * tables gives the exact published values, and {@link #isExact()} reports whether it did.
+ *
+ * Classification follows the WHO cut-offs: below -2 SD weight-for-height is WASTED,
+ * height-for-age STUNTED, weight-for-age UNDERWEIGHT; above +2 SD weight-for-height
+ * is OVERWEIGHT. Thread-safe (the tables are never written after loading).
+ */
+public final class GrowthStandards {
+    private static final Logger logger = LoggerFactory.getLogger(GrowthStandards.class);
+
+    private static final String RESOURCE = "growth-standards-lms.csv";
+
+    public static final int MAX_AGE_MONTHS = 60;
+    public static final int HEIGHT_FROM_MONTHS = 24;
+    public static final double MIN_LENGTH_CM = 45.0;
+    public static final double MAX_LENGTH_CM = 110.0;
+    public static final double MIN_HEIGHT_CM = 65.0;
+    public static final double MAX_HEIGHT_CM = 120.0;
+
+    public static final double LOWER_CUTOFF = -2.0;
+    public static final double UPPER_CUTOFF = 2.0;
+
+    private static final int SEXES = 2;
+    private static final int AGE_ENTRIES = MAX_AGE_MONTHS + 1;
+    private static final int LENGTH_AGE_ENTRIES = HEIGHT_FROM_MONTHS + 1;
+    private static final int HEIGHT_AGE_ENTRIES = MAX_AGE_MONTHS - HEIGHT_FROM_MONTHS + 1;
+    private static final int MIN_LENGTH_TENTHS = 450;
+    private static final int LENGTH_ENTRIES = 1100 - MIN_LENGTH_TENTHS + 1;
+    private static final int MIN_HEIGHT_TENTHS = 650;
+    private static final int HEIGHT_ENTRIES = 1200 - MIN_HEIGHT_TENTHS + 1;
+
+    // L, M, S per entry: offset = (sex * entries + index) * 3
+    private static final double[] weightForAge = new double[SEXES * AGE_ENTRIES * 3];
+    private static final double[] lengthForAge = new double[SEXES * LENGTH_AGE_ENTRIES * 3];
+    private static final double[] heightForAge = new double[SEXES * HEIGHT_AGE_ENTRIES * 3];
+    private static final double[] weightForLength = new double[SEXES * LENGTH_ENTRIES * 3];
+    private static final double[] weightForHeight = new double[SEXES * HEIGHT_ENTRIES * 3];
+
+    private static boolean exact;
+
+    static {
+        load();
+    }
+
+    private GrowthStandards() {
+    }
+
+    /**
+     * Weight-for-age z-score
+     * @return z-score, or NaN if the age or sex is outside the tables
+     */
+    public static double weightForAgeZ(Child.Gender sex, int ageMonths, double weightKg) {
+        int sexIndex = sexIndex(sex);
+        if (sexIndex < 0 || ageMonths < 0 || ageMonths > MAX_AGE_MONTHS || !(weightKg > 0)) {
+            return Double.NaN;
+        }
+        return zScore(weightForAge, (sexIndex * AGE_ENTRIES + ageMonths) * 3, weightKg, true);
+    }
+
+    /**
+     * Length-for-age (under 24 months) or height-for-age z-score
+     * @return z-score, or NaN if the age or sex is outside the tables
+     */
+    public static double heightForAgeZ(Child.Gender sex, int ageMonths, double heightCm) {
+        int sexIndex = sexIndex(sex);
+        if (sexIndex < 0 || ageMonths < 0 || ageMonths > MAX_AGE_MONTHS || !(heightCm > 0)) {
+            return Double.NaN;
+        }
+        // Height is normally distributed (L = 1), so no tail adjustment
+        if (ageMonths < HEIGHT_FROM_MONTHS) {
+            return zScore(lengthForAge, (sexIndex * LENGTH_AGE_ENTRIES + ageMonths) * 3, heightCm, false);
+        }
+        int index = ageMonths - HEIGHT_FROM_MONTHS;
+        return zScore(heightForAge, (sexIndex * HEIGHT_AGE_ENTRIES + index) * 3, heightCm, false);
+    }
+
+    /**
+     * Weight-for-length (under 24 months) or weight-for-height z-score, with the
+     * length/height rounded to 0.1 cm
+     * @return z-score, or NaN if the age, length/height or sex is outside the tables
+     */
+    public static double weightForHeightZ(Child.Gender sex, int ageMonths, double heightCm, double weightKg) {
+        int sexIndex = sexIndex(sex);
+        if (sexIndex < 0 || ageMonths < 0 || ageMonths > MAX_AGE_MONTHS || !(weightKg > 0)) {
+            return Double.NaN;
+        }
+        int tenths = (int) Math.round(heightCm * 10);
+        if (ageMonths < HEIGHT_FROM_MONTHS) {
+            int index = tenths - MIN_LENGTH_TENTHS;
+            if (index < 0 || index >= LENGTH_ENTRIES) {
+                return Double.NaN;
+            }
+            return zScore(weightForLength, (sexIndex * LENGTH_ENTRIES + index) * 3, weightKg, true);
+        }
+        int index = tenths - MIN_HEIGHT_TENTHS;
+        if (index < 0 || index >= HEIGHT_ENTRIES) {
+            return Double.NaN;
+        }
+        return zScore(weightForHeight, (sexIndex * HEIGHT_ENTRIES + index) * 3, weightKg, true);
+    }
+
+    /**
+     * Whether every table entry came from the file rather than being interpolated
+     * Growth status must not be derived from the tables automatically when it is false.
+     */
+    public static boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Percentile (0-100) of a z-score under the standard normal distribution
+     */
+    public static double percentile(double z) {
+        // Zelen & Severo approximation, absolute error below 7.5e-8
+        double t = 1 / (1 + 0.2316419 * Math.abs(z));
+        double density = 0.3989422804014327 * Math.exp(-z * z / 2);
+        double tail = density * t * (0.319381530 + t * (-0.356563782 + t * (1.781477937
+                      + t * (-1.821255978 + t * 1.330274429))));
+        return 100 * (z > 0 ? 1 - tail : tail);
+    }
+
+    /**
+     * Classify a measurement into a growth status
+     * The most serious finding wins: WASTED, STUNTED, UNDERWEIGHT, then OVERWEIGHT.
+     * @return The status, or null if none of the indicators applies (age or sex outside the tables)
+     */
+    public static HealthRecord.GrowthStatus classify(Child.Gender sex, int ageMonths, double weightKg, double heightCm) {
+        double weightForHeight = weightForHeightZ(sex, ageMonths, heightCm, weightKg);
+        double heightForAge = heightForAgeZ(sex, ageMonths, heightCm);
+        double weightForAge = weightForAgeZ(sex, ageMonths, weightKg);
+
+        // NaN compares false, so missing indicators simply do not match
+        if (weightForHeight < LOWER_CUTOFF) {
+            return HealthRecord.GrowthStatus.WASTED;
+        }
+        if (heightForAge < LOWER_CUTOFF) {
+            return HealthRecord.GrowthStatus.STUNTED;
+        }
+        if (weightForAge < LOWER_CUTOFF) {
+            return HealthRecord.GrowthStatus.UNDERWEIGHT;
+        }
+        if (weightForHeight > UPPER_CUTOFF) {
+            return HealthRecord.GrowthStatus.OVERWEIGHT;
+        }
+        if (Double.isNaN(weightForHeight) && Double.isNaN(heightForAge) && Double.isNaN(weightForAge)) {
+            return null;
+        }
+        return HealthRecord.GrowthStatus.NORMAL;
+    }
+
+    private static int sexIndex(Child.Gender sex) {
+        if (sex == Child.Gender.MALE) {
+            return 0;
+        }
+        if (sex == Child.Gender.FEMALE) {
+            return 1;
+        }
+        return -1;
+    }
+
+    private static double zScore(double[] table, int offset, double x, boolean adjustTails) {
+        double l = table[offset];
+        double m = table[offset + 1];
+        double s = table[offset + 2];
+        double z = l == 0 ? Math.log(x / m) / s : (Math.pow(x / m, l) - 1) / (l * s);
+
+        // WHO restricted application of the LMS method: beyond +/-3 SD weight z-scores
+        // are measured in units of the 2-3 SD distance, as the skewed tail stretches them
+        if (adjustTails && z > 3) {
+            double sd3 = valueAt(l, m, s, 3);
+            z = 3 + (x - sd3) / (sd3 - valueAt(l, m, s, 2));
+        } else if (adjustTails && z < -3) {
+            double sd3 = valueAt(l, m, s, -3);
+            z = -3 + (x - sd3) / (valueAt(l, m, s, -2) - sd3);
+        }
+        return z;
+    }
+
+    /**
+     * Measurement at a given z-score (inverse of the LMS formula)
+     */
+    private static double valueAt(double l, double m, double s, double z) {
+        return l == 0 ? m * Math.exp(s * z) : m * Math.pow(1 + l * s * z, 1 / l);
+    }
+
+    /**
+     * Load the anchor rows and interpolate them into the lookup arrays
+     */
+    private static void load() {
+        // indicator -> sex -> key (months or 0.1 cm) -> {L, M, S}
+        Map<String, Map<Integer, TreeMap<Integer, double[]>>> anchors = new TreeMap<>();
+
+        try (InputStream input = GrowthStandards.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (input == null) {
+                throw new IOException("Unable to find " + RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(",");
+                if (fields.length != 6) {
+                    throw new IOException(RESOURCE + " line " + lineNumber + ": expected 6 fields");
+                }
+                int sex = "M".equals(fields[1]) ? 0 : "F".equals(fields[1]) ? 1 : -1;
+                if (sex < 0) {
+                    throw new IOException(RESOURCE + " line " + lineNumber + ": unknown sex " + fields[1]);
+                }
+                double key = Double.parseDouble(fields[2]);
+                boolean byLength = "wfl".equals(fields[0]) || "wfh".equals(fields[0]);
+                int scaledKey = (int) Math.round(byLength ? key * 10 : key);
+                anchors.computeIfAbsent(fields[0], k -> new TreeMap<>())
+                       .computeIfAbsent(sex, k -> new TreeMap<>())
+                       .put(scaledKey, new double[] {
+                           Double.parseDouble(fields[3]), Double.parseDouble(fields[4]), Double.parseDouble(fields[5])});
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.error("Error loading growth standard tables", e);
+            throw new IllegalStateException("Growth standard tables could not be loaded", e);
+        }
+
+        int interpolated = 0;
+        for (int sex = 0; sex < SEXES; sex++) {
+            interpolated += fill(weightForAge, "wfa", sex, AGE_ENTRIES, 0, anchors);
+            interpolated += fill(lengthForAge, "lfa", sex, LENGTH_AGE_ENTRIES, 0, anchors);
+            interpolated += fill(heightForAge, "hfa", sex, HEIGHT_AGE_ENTRIES, HEIGHT_FROM_MONTHS, anchors);
+            interpolated += fill(weightForLength, "wfl", sex, LENGTH_ENTRIES, MIN_LENGTH_TENTHS, anchors);
+            interpolated += fill(weightForHeight, "wfh", sex, HEIGHT_ENTRIES, MIN_HEIGHT_TENTHS, anchors);
+        }
+        logger.info("Growth standard tables loaded from {}", RESOURCE);
+        exact = interpolated == 0;
+        if (interpolated > 0) {
+            logger.warn("{} growth standard entries were interpolated between the rows of {}; "
+                        + "z-scores are approximate and growth status is not classified automatically "
+                        + "until the full WHO tables are loaded", interpolated, RESOURCE);
+        }
+    }
+
+    /**
+     * Fill one table of one sex from its anchor rows
+     * @return Number of entries interpolated (not present in the file)
+     */
+    private static int fill(double[] table, String indicator, int sex, int entries, int firstKey,
+                            Map<String, Map<Integer, TreeMap<Integer, double[]>>> anchors) {
+        TreeMap<Integer, double[]> rows = anchors.getOrDefault(indicator, Map.of()).get(sex);
+        int lastKey = firstKey + entries - 1;
+        if (rows == null || rows.firstKey() > firstKey || rows.lastKey() < lastKey) {
+            throw new IllegalStateException("Growth standard table " + indicator + " does not cover "
+                                            + firstKey + "-" + lastKey + " for sex index " + sex);
+        }
+
+        int interpolated = 0;
+        for (int i = 0; i < entries; i++) {
+            int key = firstKey + i;
+            Map.Entry<Integer, double[]> below = rows.floorEntry(key);
+            Map.Entry<Integer, double[]> above = rows.ceilingEntry(key);
+            double fraction = below.getKey().equals(above.getKey())
+                ? 0 : (double) (key - below.getKey()) / (above.getKey() - below.getKey());
+            int offset = (sex * entries + i) * 3;
+            for (int k = 0; k < 3; k++) {
+                table[offset + k] = below.getValue()[k] + fraction * (above.getValue()[k] - below.getValue()[k]);
+            }
+            if (fraction != 0) {
+                interpolated++;
+            }
+        }
+        return interpolated;
+    }
+}
@@ -0,0 +1,245 @@
+package com.chms.service;
+
+import com.chms.dao.HealthRecordDAO;
+import com.chms.model.Child;
+import com.chms.model.GrowthAlert;
+import com.chms.model.HealthRecord;
+import com.chms.util.DatabaseConnection;
+import com.chms.util.TtlCache;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Incremental growth trend per child, replacing the history rescan of sp_get_growth_trend
+ *
+ * Each child's last weight and height and the velocities of the last interval are kept
+ * in memory and updated as health records are added, so a new record is compared with
+ * the previous one in O(1). On a cache miss the state is rebuilt from the child's two
+ * latest earlier records (one indexed query). Detects:
+ *   RAPID_WEIGHT_LOSS  - weight fell by at least weightLossPercent since the last assessment
+ *   RAPID_WEIGHT_GAIN  - weight-for-age rose by more than rapidGainZ (crossing a centile line)
+ *   NO_GROWTH          - height gained less than minHeightGainCm over noGrowthMonths or more,
+ *                        or weight did not increase in two intervals in a row
+ *
+ * Records assessed before the last known assessment (back-filled history) do not change
+ * the state and raise no alerts. Before a cached state is used, the ID of the child's
+ * latest earlier record is read from the primary (one indexed query); if it is not the
+ * record the state was built from (records added on another node, or deleted), the state
+ * is rebuilt. States are evicted when the child is deleted or its date of birth or sex
+ * changes, and otherwise expire after cacheTtlSeconds.
+ *
+ * Settings (database.properties): growth.trend.weightLossPercent (default 5),
+ * growth.trend.rapidGainZ (0.67), growth.trend.minHeightGainCm (0.5),
+ * growth.trend.noGrowthMonths (3), growth.trend.cache.maxSize (20000),
+ * growth.trend.cache.ttlSeconds (600)
+ */
+public class GrowthTrendService {
+
+    private static final double DAYS_PER_MONTH = 30.4375;
+    private static final long MILLIS_PER_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private static final double weightLossPercent =
+        Double.parseDouble(DatabaseConnection.getConfigProperty("growth.trend.weightLossPercent", "5"));
+    private static final double rapidGainZ =
+        Double.parseDouble(DatabaseConnection.getConfigProperty("growth.trend.rapidGainZ", "0.67"));
+    private static final double minHeightGainCm =
+        Double.parseDouble(DatabaseConnection.getConfigProperty("growth.trend.minHeightGainCm", "0.5"));
+    private static final double noGrowthMonths =
+        Double.parseDouble(DatabaseConnection.getConfigProperty("growth.trend.noGrowthMonths", "3"));
+
+    private static final TtlCache<Integer, ChildTrend> trends = new TtlCache<>("growthTrends",
+        Integer.parseInt(DatabaseConnection.getConfigProperty("growth.trend.cache.maxSize", "20000")),
+        Long.parseLong(DatabaseConnection.getConfigProperty("growth.trend.cache.ttlSeconds", "600")), TimeUnit.SECONDS);
+
+    private final HealthRecordDAO healthRecordDAO = new HealthRecordDAO();
+
+    /**
+     * Add a stored health record to its child's trend
+     * @param record Record with its generated ID
+     * @param sex Sex of the child (for the weight-for-age z-score)
+     * @return Trend alerts raised by the record (not yet stored), possibly empty
+     */
+    public List<GrowthAlert> recordAdded(HealthRecord record, Child.Gender sex) {
+        ChildTrend trend = trends.get(record.getChildId());
+        if (trend != null && !isCurrent(trend, record)) {
+            trend = null;
+        }
+        if (trend == null) {
+            trend = loadTrend(record, sex);
+            trends.put(record.getChildId(), trend);
+        }
+        List<GrowthAlert> alerts = new ArrayList<>(2);
+        double weightForAgeZ = GrowthStandards.weightForAgeZ(sex, record.getChildAgeMonths(), record.getWeight());
+
+        synchronized (trend) {
+            if (trend.lastAssessmentDate != null) {
+                if (!record.getAssessmentDate().after(trend.lastAssessmentDate)) {
+                    return alerts;
+                }
+                evaluate(trend, record, weightForAgeZ, alerts);
+            }
+            trend.advance(record, weightForAgeZ);
+        }
+        return alerts;
+    }
+
+    /**
+     * Current trend of a child
+     * @return The trend, or null if it is not in memory
+     */
+    public ChildTrend getTrend(int childId) {
+        ChildTrend trend = trends.get(childId);
+        if (trend == null) {
+            return null;
+        }
+        synchronized (trend) {
+            return trend.copy();
+        }
+    }
+
+    /**
+     * Forget a child's trend (e.g. after the child was deleted or its date of birth or sex changed)
+     */
+    public static void evict(int childId) {
+        trends.invalidate(childId);
+    }
+
+    /**
+     * Check that a cached trend was built from the latest record before the given one
+     * Back-filled records never use the trend, so they are not checked; a failed check keeps it.
+     */
+    private boolean isCurrent(ChildTrend trend, HealthRecord record) {
+        int lastRecordId;
+        synchronized (trend) {
+            if (trend.lastAssessmentDate != null && !record.getAssessmentDate().after(trend.lastAssessmentDate)) {
+                return true;
+            }
+            lastRecordId = trend.lastRecordId;
+        }
+        int latestId = healthRecordDAO.getLatestHealthRecordIdBefore(
+            record.getChildId(), record.getAssessmentDate(), record.getRecordId());
+        return latestId < 0 || latestId == lastRecordId;
+    }
+
+    private void evaluate(ChildTrend trend, HealthRecord record, double weightForAgeZ, List<GrowthAlert> alerts) {
+        double months = (record.getAssessmentDate().getTime() - trend.lastAssessmentDate.getTime())
+                        / (double) MILLIS_PER_DAY / DAYS_PER_MONTH;
+        double weightChange = record.getWeight() - trend.lastWeight;
+        double heightChange = record.getHeight() - trend.lastHeight;
+        double lossPercent = -weightChange / trend.lastWeight * 100;
+
+        if (lossPercent >= weightLossPercent) {
+            alerts.add(alert(record, GrowthAlert.AlertType.RAPID_WEIGHT_LOSS,
+                lossPercent >= 2 * weightLossPercent ? GrowthAlert.Severity.CRITICAL : GrowthAlert.Severity.HIGH,
+                String.format("Weight fell from %.2fkg to %.2fkg (-%.1f%%) since %s.",
+                              trend.lastWeight, record.getWeight(), lossPercent, trend.lastAssessmentDate)));
+        } else if (weightForAgeZ - trend.lastWeightForAgeZ > rapidGainZ) {
+            alerts.add(alert(record, GrowthAlert.AlertType.RAPID_WEIGHT_GAIN, GrowthAlert.Severity.MEDIUM,
+                String.format("Weight-for-age rose from %.2f to %.2f SD (%.2fkg to %.2fkg) since %s.",
+                              trend.lastWeightForAgeZ, weightForAgeZ, trend.lastWeight, record.getWeight(),
+                              trend.lastAssessmentDate)));
+        }
+
+        boolean heightStalled = months >= noGrowthMonths && heightChange < minHeightGainCm;
+        boolean weightStalled = weightChange <= 0 && lossPercent < weightLossPercent && trend.weightVelocity <= 0;
+        if (heightStalled || weightStalled) {
+            String description = heightStalled
+                ? String.format("Height gained %.1fcm in %.1f months (%.1fcm to %.1fcm) since %s.",
+                                heightChange, months, trend.lastHeight, record.getHeight(), trend.lastAssessmentDate)
+                : String.format("Weight has not increased over two assessments (%.2fkg on %s, now %.2fkg).",
+                                trend.lastWeight, trend.lastAssessmentDate, record.getWeight());
+            alerts.add(alert(record, GrowthAlert.AlertType.NO_GROWTH,
+                heightStalled && weightStalled ? GrowthAlert.Severity.HIGH : GrowthAlert.Severity.MEDIUM,
+                description));
+        }
+    }
+
+    private static GrowthAlert alert(HealthRecord record, GrowthAlert.AlertType type, GrowthAlert.Severity severity,
+                                     String description) {
+        return new GrowthAlert(record.getChildId(), record.getRecordId(), type, severity, description);
+    }
+
+    /**
+     * Rebuild a child's trend from the two latest records before the given one
+     */
+    private ChildTrend loadTrend(HealthRecord record, Child.Gender sex) {
+        List<HealthRecord> previous = healthRecordDAO.getHealthRecordsBefore(
+            record.getChildId(), record.getAssessmentDate(), record.getRecordId(), 2);
+        ChildTrend trend = new ChildTrend();
+        for (int i = previous.size() - 1; i >= 0; i--) {
+            HealthRecord earlier = previous.get(i);
+            trend.advance(earlier, GrowthStandards.weightForAgeZ(sex, earlier.getChildAgeMonths(), earlier.getWeight()));
+        }
+        return trend;
+    }
+
+    /**
+     * Trend state of one child: the last assessment and the velocities since the one before
+     */
+    public static final class ChildTrend {
+        private int lastRecordId;
+        private Date lastAssessmentDate;
+        private double lastWeight;
+        private double lastHeight;
+        private double lastWeightForAgeZ = Double.NaN;
+        private double weightVelocity = Double.NaN;
+        private double heightVelocity = Double.NaN;
+
+        private void advance(HealthRecord record, double weightForAgeZ) {
+            if (lastAssessmentDate != null) {
+                double months = (record.getAssessmentDate().getTime() - lastAssessmentDate.getTime())
+                                / (double) MILLIS_PER_DAY / DAYS_PER_MONTH;
+                if (months > 0) {
+                    weightVelocity = (record.getWeight() - lastWeight) / months;
+                    heightVelocity = (record.getHeight() - lastHeight) / months;
+                }
+            }
+            lastRecordId = record.getRecordId();
+            lastAssessmentDate = record.getAssessmentDate();
+            lastWeight = record.getWeight();
+            lastHeight = record.getHeight();
+            lastWeightForAgeZ = weightForAgeZ;
+        }
+
+        private ChildTrend copy() {
+            ChildTrend copy = new ChildTrend();
+            copy.lastRecordId = lastRecordId;
+            copy.lastAssessmentDate = lastAssessmentDate;
+            copy.lastWeight = lastWeight;
+            copy.lastHeight = lastHeight;
+            copy.lastWeightForAgeZ = lastWeightForAgeZ;
+            copy.weightVelocity = weightVelocity;
+            copy.heightVelocity = heightVelocity;
+            return copy;
+        }
+
+        public Date getLastAssessmentDate() {
+            return lastAssessmentDate;
+        }
+
+        public double getLastWeight() {
+            return lastWeight;
+        }
+
+        public double getLastHeight() {
+            return lastHeight;
+        }
+
+        /**
+         * Weight change per month over the last interval (NaN with fewer than two records)
+         */
+        public double getWeightVelocity() {
+            return weightVelocity;
+        }
+
+        /**
+         * Height change per month over the last interval (NaN with fewer than two records)
+         */
+        public double getHeightVelocity() {
+            return heightVelocity;
+        }
+    }
+}
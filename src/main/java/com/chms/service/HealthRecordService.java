@@ -0,0 +1,123 @@
+package com.chms.service;
+
+import com.chms.dao.ChildDAO;
+import com.chms.dao.GrowthAlertDAO;
+import com.chms.dao.HealthRecordDAO;
+import com.chms.model.Child;
+import com.chms.model.GrowthAlert;
+import com.chms.model.HealthRecord;
+import com.chms.util.DateTimeUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records health assessments, classifying their growth status from the measurements
+ *
+ * A status entered by the doctor is kept. Otherwise it is computed with {@link GrowthStandards},
+ * or set to NORMAL when the growth standards do not apply (older than 60 months, sex OTHER),
+ * but only while the bundled tables are exact ({@link GrowthStandards#isExact()}); with the
+ * approximate tables an assessment without an entered status is rejected.
+ * The after_health_record_insert trigger then raises growth alerts as before; trend
+ * alerts (rapid weight loss or gain, no growth) are added by {@link GrowthTrendService}.
+ */
+public class HealthRecordService {
+    private static final Logger logger = LoggerFactory.getLogger(HealthRecordService.class);
+
+    private final HealthRecordDAO healthRecordDAO = new HealthRecordDAO();
+    private final ChildDAO childDAO = new ChildDAO();
+    private final GrowthAlertDAO growthAlertDAO = new GrowthAlertDAO();
+    private final GrowthTrendService growthTrendService = new GrowthTrendService();
+
+    /**
+     * Store one assessment
+     * @return The record with its generated ID, or null if the child does not exist, the growth
+     *         status is missing and cannot be classified, or the insert failed
+     */
+    public HealthRecord recordAssessment(HealthRecord record) {
+        Child child = childDAO.getChildById(record.getChildId());
+        if (child == null) {
+            logger.warn("Health record for unknown child ID: {}", record.getChildId());
+            return null;
+        }
+        if (!prepare(record, child)) {
+            logger.warn("Health record for child ID: {} has no growth status", record.getChildId());
+            return null;
+        }
+        if (healthRecordDAO.createHealthRecord(record) == null) {
+            return null;
+        }
+        saveAlerts(growthTrendService.recordAdded(record, child.getGender()));
+        return record;
+    }
+
+    /**
+     * Store many assessments in one batch (all or none)
+     * @return true if all records were created
+     */
+    public boolean recordAssessments(List<HealthRecord> records) {
+        Map<Integer, Child> children = new HashMap<>();
+        for (HealthRecord record : records) {
+            Child child = children.computeIfAbsent(record.getChildId(), childDAO::getChildById);
+            if (child == null) {
+                logger.warn("Batch of {} health records rejected: unknown child ID {}",
+                            records.size(), record.getChildId());
+                return false;
+            }
+            if (!prepare(record, child)) {
+                logger.warn("Batch of {} health records rejected: no growth status for child ID {}",
+                            records.size(), record.getChildId());
+                return false;
+            }
+        }
+        if (!healthRecordDAO.createHealthRecords(records)) {
+            return false;
+        }
+
+        // Trends must see each child's records in assessment order
+        List<HealthRecord> ordered = new ArrayList<>(records);
+        ordered.sort(Comparator.comparingInt(HealthRecord::getChildId)
+                               .thenComparing(HealthRecord::getAssessmentDate)
+                               .thenComparingInt(HealthRecord::getRecordId));
+        List<GrowthAlert> alerts = new ArrayList<>();
+        for (HealthRecord record : ordered) {
+            alerts.addAll(growthTrendService.recordAdded(record, children.get(record.getChildId()).getGender()));
+        }
+        saveAlerts(alerts);
+        return true;
+    }
+
+    /**
+     * Set the growth status of a record from its measurements, unless one was entered
+     * @return The status now set on the record, or null if none was entered and the tables are approximate
+     */
+    public static HealthRecord.GrowthStatus classify(HealthRecord record, Child.Gender sex) {
+        if (record.getGrowthStatus() != null || !GrowthStandards.isExact()) {
+            return record.getGrowthStatus();
+        }
+        HealthRecord.GrowthStatus status = GrowthStandards.classify(
+            sex, record.getChildAgeMonths(), record.getWeight(), record.getHeight());
+        record.setGrowthStatus(status != null ? status : HealthRecord.GrowthStatus.NORMAL);
+        return record.getGrowthStatus();
+    }
+
+    private void saveAlerts(List<GrowthAlert> alerts) {
+        // The records are already stored; a failure here only loses the trend alerts
+        if (!alerts.isEmpty() && !growthAlertDAO.createGrowthAlerts(alerts)) {
+            logger.warn("{} growth trend alerts could not be stored", alerts.size());
+        }
+    }
+
+    private boolean prepare(HealthRecord record, Child child) {
+        if (record.getChildAgeMonths() <= 0) {
+            record.setChildAgeMonths(
+                DateTimeUtil.calculateAgeInMonths(child.getDateOfBirth(), record.getAssessmentDate()));
+        }
+        return classify(record, child.getGender()) != null;
+    }
+}
@@ -0,0 +1,353 @@
+package com.chms.service;
+
+import com.chms.dao.ChildDAO;
+import com.chms.dao.JobWatermarkDAO;
+import com.chms.dao.NotificationDAO;
+import com.chms.dao.VaccinationDAO;
+import com.chms.model.Child;
+import com.chms.model.Notification;
+import com.chms.model.Vaccination;
+import com.chms.util.DateTimeUtil;
+import com.chms.util.DueDateIndex;
+import com.chms.util.NotificationHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Vaccination schedules and the clinic-wide calendar of due vaccinations
+ *
+ * A child's whole schedule (vaccination-schedule.csv) is created in one batch insert at
+ * registration. Every open vaccination is kept in an in-memory {@link DueDateIndex} by due
+ * date (date of birth plus the recommended age), so the vaccinations due or overdue on a
+ * day are found without scanning the vaccinations table.
+ *
+ * The index is loaded once and then refreshed by primary key: each refresh reads only the
+ * rows added since the last one, which also picks up schedules created on other nodes.
+ * Vaccinations completed elsewhere stay in the index until a caller confirms their status
+ * (see {@link #closed(int)}).
+ *
+ * Reminders are sent by the reminder job for due dates past its watermark; vaccines of a
+ * new schedule that are already due before the watermark (birth doses, late registration)
+ * are reminded when the schedule is created.
+ */
+public class VaccinationService {
+    private static final Logger logger = LoggerFactory.getLogger(VaccinationService.class);
+
+    private static final String SCHEDULE_RESOURCE = "vaccination-schedule.csv";
+
+    // Watermark of the reminder job: due dates before it have been reminded
+    public static final String REMINDER_JOB_NAME = "vaccinations-due";
+
+    // IDs re-read on every refresh: rows may commit out of ID order
+    private static final int REFRESH_OVERLAP_IDS = 500;
+
+    private static final List<ScheduleEntry> schedule = loadSchedule();
+    private static final DueDateIndex dueVaccinations = new DueDateIndex("dueVaccinations");
+
+    private static final Object refreshLock = new Object();
+    private static volatile int loadedUpToId;
+
+    private final VaccinationDAO vaccinationDAO = new VaccinationDAO();
+    private final ChildDAO childDAO = new ChildDAO();
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final JobWatermarkDAO watermarkDAO = new JobWatermarkDAO();
+
+    /**
+     * Vaccine of the routine schedule and the age it is due at
+     */
+    public static final class ScheduleEntry {
+        private final String vaccineName;
+        private final int ageMonths;
+
+        ScheduleEntry(String vaccineName, int ageMonths) {
+            this.vaccineName = vaccineName;
+            this.ageMonths = ageMonths;
+        }
+
+        public String getVaccineName() {
+            return vaccineName;
+        }
+
+        public int getAgeMonths() {
+            return ageMonths;
+        }
+    }
+
+    /**
+     * Create the full vaccination schedule of a newly registered child in one batch
+     * @return true if the schedule was created
+     */
+    public boolean generateSchedule(Child child) {
+        List<Vaccination> vaccinations = new ArrayList<>(schedule.size());
+        for (ScheduleEntry entry : schedule) {
+            vaccinations.add(new Vaccination(child.getChildId(), entry.getVaccineName(), entry.getAgeMonths()));
+        }
+        if (!vaccinationDAO.createVaccinations(vaccinations)) {
+            return false;
+        }
+
+        LocalDate dateOfBirth = child.getDateOfBirth().toLocalDate();
+        for (Vaccination vaccination : vaccinations) {
+            dueVaccinations.put(vaccination.getVaccinationId(), child.getChildId(),
+                                dateOfBirth.plusMonths(vaccination.getRecommendedAgeMonths()));
+        }
+        logger.info("Created vaccination schedule of {} vaccines for child ID: {}", vaccinations.size(), child.getChildId());
+        remindPastWatermark(child, vaccinations, null);
+        return true;
+    }
+
+    /**
+     * Create the schedules of children registered without one (generateSchedule failed after the
+     * child was stored). Run by the reminder job after its reminders, on the node holding the claim.
+     * @return Number of schedules created, or -1 if the children could not be read
+     */
+    public int repairMissingSchedules(int limit) {
+        List<Integer> childIds = vaccinationDAO.getChildIdsWithoutSchedule(limit);
+        if (childIds == null) {
+            return -1;
+        }
+        int repaired = 0;
+        for (int childId : childIds) {
+            Child child = childDAO.getChildForUpdate(childId);
+            if (child != null && generateSchedule(child)) {
+                repaired++;
+            }
+        }
+        if (repaired < childIds.size()) {
+            logger.warn("{} of {} missing vaccination schedules could not be created", 
+                        childIds.size() - repaired, childIds.size());
+        }
+        return repaired;
+    }
+
+    /**
+     * Move a child's open vaccinations to the due dates of its new date of birth, and remind
+     * those that moved from after the reminder job's watermark to before it
+     * @return true if the index was updated
+     */
+    public boolean dateOfBirthChanged(Child child, LocalDate previousDateOfBirth) {
+        List<Vaccination> open = vaccinationDAO.getOpenVaccinationsByChildId(child.getChildId());
+        if (open == null) {
+            return false;
+        }
+        LocalDate dateOfBirth = child.getDateOfBirth().toLocalDate();
+        for (Vaccination vaccination : open) {
+            dueVaccinations.put(vaccination.getVaccinationId(), child.getChildId(),
+                                dateOfBirth.plusMonths(vaccination.getRecommendedAgeMonths()));
+        }
+        remindPastWatermark(child, open, previousDateOfBirth);
+        return true;
+    }
+
+    /**
+     * Drop the vaccinations of a deleted child from the index
+     */
+    public static void childDeleted(int childId) {
+        dueVaccinations.removeOwner(childId);
+    }
+
+    /**
+     * Move a vaccination found under an outdated due date (date of birth changed on another node)
+     */
+    public static void rescheduled(int vaccinationId, int childId, LocalDate dueDate) {
+        dueVaccinations.put(vaccinationId, childId, dueDate);
+    }
+
+    /**
+     * Build the reminder of a child's due vaccinations, one notification listing all of them
+     */
+    public static Notification reminderFor(Child child, List<Vaccination> vaccinations) {
+        LocalDate today = LocalDate.now();
+        LocalDate dateOfBirth = child.getDateOfBirth().toLocalDate();
+        StringBuilder message = new StringBuilder(child.getFullName()).append(" is due for: ");
+        for (int i = 0; i < vaccinations.size(); i++) {
+            Vaccination vaccination = vaccinations.get(i);
+            LocalDate dueDate = dateOfBirth.plusMonths(vaccination.getRecommendedAgeMonths());
+            if (i > 0) {
+                message.append(", ");
+            }
+            message.append(vaccination.getVaccineName())
+                   .append(dueDate.isBefore(today) ? " (overdue since " : " (on ")
+                   .append(DateTimeUtil.formatDate(Date.valueOf(dueDate))).append(')');
+        }
+        message.append(". Please visit the clinic for vaccination.");
+
+        Notification notification = new Notification(child.getMotherId(), Notification.NotificationType.VACCINATION_DUE,
+                                                      "Vaccination due for " + child.getFullName(), message.toString());
+        notification.setRelatedChildId(child.getChildId());
+        return notification;
+    }
+
+    /**
+     * Remind the vaccinations due before the reminder job's watermark, which the job will not
+     * reach any more. Before the job's first run nothing is sent: that run reminds everything overdue.
+     * The index is updated first, so a job run claiming a later watermark meanwhile sees them.
+     * @param previousDateOfBirth Date of birth the vaccinations were due by until now (those that
+     *                            were already before the watermark have been reminded), or null
+     */
+    private void remindPastWatermark(Child child, List<Vaccination> vaccinations, LocalDate previousDateOfBirth) {
+        Date watermark = watermarkDAO.getWatermark(REMINDER_JOB_NAME);
+        if (watermark == null) {
+            return;
+        }
+        LocalDate remindedBefore = watermark.toLocalDate();
+        LocalDate dateOfBirth = child.getDateOfBirth().toLocalDate();
+        List<Vaccination> due = new ArrayList<>();
+        for (Vaccination vaccination : vaccinations) {
+            int ageMonths = vaccination.getRecommendedAgeMonths();
+            if (dateOfBirth.plusMonths(ageMonths).isBefore(remindedBefore)
+                && (previousDateOfBirth == null || !previousDateOfBirth.plusMonths(ageMonths).isBefore(remindedBefore))) {
+                due.add(vaccination);
+            }
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+        if (notificationDAO.createNotifications(Collections.singletonList(reminderFor(child, due)))) {
+            NotificationHub.getInstance().wake();
+        } else {
+            logger.warn("Reminder of {} vaccinations already due for child ID: {} could not be stored",
+                        due.size(), child.getChildId());
+        }
+    }
+
+    /**
+     * Get a child's vaccinations in schedule order
+     */
+    public List<Vaccination> getVaccinations(int childId) {
+        return vaccinationDAO.getVaccinationsByChildId(childId);
+    }
+
+    /**
+     * Record a vaccination as administered and drop it from the index
+     * (on other nodes it is dropped when the reminder job confirms its status)
+     * @return true if an open vaccination was updated
+     */
+    public boolean recordAdministered(int vaccinationId, Date administeredDate, int doctorId, String batchNumber) {
+        boolean updated = vaccinationDAO.markAdministered(vaccinationId, administeredDate, doctorId, batchNumber);
+        if (updated) {
+            dueVaccinations.remove(vaccinationId);
+        }
+        return updated;
+    }
+
+    /**
+     * Read vaccinations added since the last refresh into the index (the first call loads all open ones)
+     * @throws SQLException If the query fails
+     */
+    public void refresh() throws SQLException {
+        synchronized (refreshLock) {
+            int[] maxId = {loadedUpToId};
+            int rows;
+            try {
+                rows = vaccinationDAO.streamPendingVaccinationsAfter(Math.max(0, loadedUpToId - REFRESH_OVERLAP_IDS),
+                    pending -> {
+                        dueVaccinations.put(pending.getVaccinationId(), pending.getChildId(),
+                            pending.getChildDob().toLocalDate().plusMonths(pending.getRecommendedAgeMonths()));
+                        maxId[0] = Math.max(maxId[0], pending.getVaccinationId());
+                    });
+            } catch (IOException e) {
+                // The handler does not do I/O
+                throw new IllegalStateException(e);
+            }
+            if (loadedUpToId == 0) {
+                logger.info("Loaded {} open vaccinations into the due-date index", rows);
+            }
+            loadedUpToId = maxId[0];
+        }
+    }
+
+    /**
+     * Visit open vaccinations due in [from, to), in due date order
+     * @param from First due date (inclusive), or null to include everything overdue
+     * @param to Due date to stop at (exclusive)
+     * @return Number of vaccinations visited
+     */
+    public int forEachDue(LocalDate from, LocalDate to, DueDateIndex.DueItemVisitor visitor) {
+        return dueVaccinations.forEachDue(from, to, visitor);
+    }
+
+    /**
+     * Load those of the given vaccinations that are still open; the others are dropped from the index
+     * @return Open vaccinations, or null if the database could not be read
+     */
+    public List<Vaccination> confirmOpen(List<Integer> vaccinationIds) {
+        List<Vaccination> open = vaccinationDAO.getOpenVaccinations(vaccinationIds);
+        if (open == null) {
+            return null;
+        }
+        Set<Integer> openIds = new HashSet<>();
+        for (Vaccination vaccination : open) {
+            openIds.add(vaccination.getVaccinationId());
+        }
+        for (Integer vaccinationId : vaccinationIds) {
+            if (!openIds.contains(vaccinationId)) {
+                closed(vaccinationId);
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Drop a vaccination that is no longer open (completed, missed or deleted) from the index
+     */
+    public static void closed(int vaccinationId) {
+        dueVaccinations.remove(vaccinationId);
+    }
+
+    public static List<ScheduleEntry> getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Build a snapshot of the due-date index, suitable for JSON serialization
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>(dueVaccinations.snapshot());
+        stats.put("loadedUpToId", loadedUpToId);
+        return stats;
+    }
+
+    private static List<ScheduleEntry> loadSchedule() {
+        List<ScheduleEntry> entries = new ArrayList<>();
+        try (InputStream input = VaccinationService.class.getClassLoader().getResourceAsStream(SCHEDULE_RESOURCE)) {
+            if (input == null) {
+                throw new IOException("Unable to find " + SCHEDULE_RESOURCE);
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int comma = line.lastIndexOf(',');
+                if (comma <= 0) {
+                    throw new IOException(SCHEDULE_RESOURCE + ": expected vaccine_name,recommended_age_months in: " + line);
+                }
+                entries.add(new ScheduleEntry(line.substring(0, comma).trim(),
+                                              Integer.parseInt(line.substring(comma + 1).trim())));
+            }
+        } catch (IOException | NumberFormatException e) {
+            logger.error("Error loading vaccination schedule", e);
+            throw new IllegalStateException("Vaccination schedule could not be loaded", e);
+        }
+        return Collections.unmodifiableList(entries);
+    }
+}
@@ -3,6 +3,7 @@ package com.chms.servlet;
 import com.chms.dao.ChildDAO;
 import com.chms.model.Child;
 import com.chms.model.User;
+import com.chms.service.VaccinationService;
 import com.chms.util.SessionManager;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -24,6 +25,7 @@ import java.time.Year;
 public class AddChildServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(AddChildServlet.class);
     private final ChildDAO childDAO = new ChildDAO();
+    private final VaccinationService vaccinationService = new VaccinationService();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -116,6 +118,11 @@ public class AddChildServlet extends HttpServlet {
             Child createdChild = childDAO.createChild(newChild);
 
             if (createdChild != null) {
+                SessionManager.recordWrite(request);
+                if (!vaccinationService.generateSchedule(createdChild)) {
+                    logger.warn("Child ID: {} was added without a vaccination schedule (created by the next reminder run)",
+                                createdChild.getChildId());
+                }
                 logger.info("Child added successfully by mother ID: {} - Child: {}", 
                            loggedInUser.getUserId(), createdChild.getFullName());
                 response.sendRedirect(request.getContextPath() + "/mother/dashboard?success=child_added");
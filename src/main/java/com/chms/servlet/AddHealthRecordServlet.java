@@ -0,0 +1,113 @@
+package com.chms.servlet;
+
+import com.chms.model.HealthRecord;
+import com.chms.model.User;
+import com.chms.service.GrowthStandards;
+import com.chms.service.HealthRecordService;
+import com.chms.util.SessionManager;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Servlet for recording a child's health assessment (Doctor only)
+ * POST parameters: childId, weight, height (required); assessmentDate (default today),
+ * headCircumference, temperature, growthStatus (required unless the bundled growth standards
+ * are exact, then computed when empty), vaccinationStatus, nutritionNotes, healthNotes,
+ * abnormalitiesDetected, nextCheckupDate
+ */
+@WebServlet("/doctor/health-record")
+public class AddHealthRecordServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(AddHealthRecordServlet.class);
+
+    private final HealthRecordService healthRecordService = new HealthRecordService();
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        if (!SessionManager.isUserLoggedIn(request)) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            out.print("{\"success\": false, \"message\": \"Not authenticated\"}");
+            return;
+        }
+
+        User doctor = SessionManager.getLoggedInUser(request);
+        if (doctor == null || !doctor.getRole().equals(User.Role.DOCTOR)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            out.print("{\"success\": false, \"message\": \"Unauthorized access\"}");
+            return;
+        }
+
+        HealthRecord record = new HealthRecord();
+        try {
+            record.setChildId(Integer.parseInt(request.getParameter("childId")));
+            record.setWeight(Double.parseDouble(request.getParameter("weight")));
+            record.setHeight(Double.parseDouble(request.getParameter("height")));
+            String assessmentDate = request.getParameter("assessmentDate");
+            record.setAssessmentDate(isEmpty(assessmentDate) ? Date.valueOf(LocalDate.now())
+                                                             : Date.valueOf(LocalDate.parse(assessmentDate)));
+            String headCircumference = request.getParameter("headCircumference");
+            if (!isEmpty(headCircumference)) {
+                record.setHeadCircumference(Double.parseDouble(headCircumference));
+            }
+            String temperature = request.getParameter("temperature");
+            if (!isEmpty(temperature)) {
+                record.setTemperature(Double.parseDouble(temperature));
+            }
+            String growthStatus = request.getParameter("growthStatus");
+            if (!isEmpty(growthStatus)) {
+                record.setGrowthStatus(HealthRecord.GrowthStatus.valueOf(growthStatus));
+            }
+            String nextCheckupDate = request.getParameter("nextCheckupDate");
+            if (!isEmpty(nextCheckupDate)) {
+                record.setNextCheckupDate(Date.valueOf(LocalDate.parse(nextCheckupDate)));
+            }
+        } catch (NullPointerException | IllegalArgumentException | DateTimeParseException e) {
+            out.print("{\"success\": false, \"message\": \"Invalid or missing assessment fields\"}");
+            return;
+        }
+        if (!(record.getWeight() > 0) || !(record.getHeight() > 0)) {
+            out.print("{\"success\": false, \"message\": \"Weight and height must be positive\"}");
+            return;
+        }
+        if (record.getGrowthStatus() == null && !GrowthStandards.isExact()) {
+            out.print("{\"success\": false, \"message\": \"Growth status is required\"}");
+            return;
+        }
+        record.setDoctorId(doctor.getUserId());
+        record.setVaccinationStatus(request.getParameter("vaccinationStatus"));
+        record.setNutritionNotes(request.getParameter("nutritionNotes"));
+        record.setHealthNotes(request.getParameter("healthNotes"));
+        record.setAbnormalitiesDetected(request.getParameter("abnormalitiesDetected"));
+
+        if (healthRecordService.recordAssessment(record) == null) {
+            out.print("{\"success\": false, \"message\": \"Health record could not be saved\"}");
+            return;
+        }
+
+        SessionManager.recordWrite(request);
+        logger.info("Doctor ID: {} recorded health record ID: {} for child ID: {}",
+                    doctor.getUserId(), record.getRecordId(), record.getChildId());
+        out.print("{\"success\": true, \"recordId\": " + record.getRecordId()
+                  + ", \"growthStatus\": \"" + record.getGrowthStatus().name() + "\"}");
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
@@ -4,10 +4,14 @@ import com.chms.dao.UserDAO;
 import com.chms.dao.ChildDAO;
 import com.chms.dao.AppointmentDAO;
 import com.chms.dao.AuditLogDAO;
+import com.chms.dao.SystemStatsDAO;
 import com.chms.model.User;
 import com.chms.model.Child;
 import com.chms.model.Appointment;
 import com.chms.model.AuditLog;
+import com.chms.model.Page;
+import com.chms.model.SystemStats;
+import com.chms.util.QueryFanOut;
 import com.chms.util.SessionManager;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -18,7 +22,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Admin Dashboard Servlet
@@ -27,10 +33,12 @@ import java.util.List;
 @WebServlet("/admin/dashboard")
 public class AdminDashboardServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(AdminDashboardServlet.class);
+    private static final int USERS_PAGE_SIZE = 25;
     private final UserDAO userDAO = new UserDAO();
     private final ChildDAO childDAO = new ChildDAO();
     private final AppointmentDAO appointmentDAO = new AppointmentDAO();
     private final AuditLogDAO auditLogDAO = new AuditLogDAO();
+    private final SystemStatsDAO systemStatsDAO = new SystemStatsDAO();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
@@ -49,42 +57,42 @@ public class AdminDashboardServlet extends HttpServlet {
         }
 
         try {
-            // Get all users
-            List<User> allUsers = userDAO.getAllUsers();
+            // Run the independent queries concurrently under one deadline
+            QueryFanOut fanOut = new QueryFanOut(QueryFanOut.DEFAULT_DEADLINE_MILLIS);
             
-            // Get statistics
-            int totalUsers = allUsers != null ? allUsers.size() : 0;
-            int totalMothers = 0;
-            int totalDoctors = 0;
-            int totalAdmins = 0;
+            // Get one page of users (keyset pagination)
+            String cursor = request.getParameter("cursor");
+            QueryFanOut.Result<Page<User>> usersResult = fanOut.submit("usersPage",
+                () -> userDAO.getUsersPage(cursor, USERS_PAGE_SIZE), new Page<>(new ArrayList<>(), null));
             
-            if (allUsers != null) {
-                for (User user : allUsers) {
-                    switch (user.getRole()) {
-                        case MOTHER:
-                            totalMothers++;
-                            break;
-                        case DOCTOR:
-                            totalDoctors++;
-                            break;
-                        case ADMIN:
-                            totalAdmins++;
-                            break;
-                    }
-                }
-            }
+            // Get statistics from the trigger-maintained summary row
+            QueryFanOut.Result<SystemStats> statsResult = fanOut.submit("systemStats",
+                this::loadSystemStats, new SystemStats());
             
             // Get recent audit logs
-            List<AuditLog> recentLogs = auditLogDAO.getRecentAuditLogs(10);
+            QueryFanOut.Result<List<AuditLog>> logsResult = fanOut.submit("recentLogs",
+                () -> auditLogDAO.getRecentAuditLogs(10), new ArrayList<>());
+            
+            Page<User> usersPage = usersResult.get();
+            SystemStats stats = statsResult.get();
+            List<AuditLog> recentLogs = logsResult.get();
             
             // Set attributes for JSP
             request.setAttribute("admin", loggedInUser);
-            request.setAttribute("allUsers", allUsers);
-            request.setAttribute("totalUsers", totalUsers);
-            request.setAttribute("totalMothers", totalMothers);
-            request.setAttribute("totalDoctors", totalDoctors);
-            request.setAttribute("totalAdmins", totalAdmins);
+            request.setAttribute("allUsers", usersPage.getItems());
+            request.setAttribute("nextCursor", usersPage.getNextCursor());
+            request.setAttribute("totalUsers", stats.getTotalUsers());
+            request.setAttribute("totalMothers", stats.getTotalMothers());
+            request.setAttribute("totalDoctors", stats.getTotalDoctors());
+            request.setAttribute("totalAdmins", stats.getTotalAdmins());
+            request.setAttribute("totalChildren", stats.getTotalChildren());
+            request.setAttribute("openGrowthAlerts", stats.getOpenGrowthAlerts());
+            request.setAttribute("pendingAppointments", stats.getPendingAppointments());
             request.setAttribute("recentLogs", recentLogs);
+            if (fanOut.isPartial()) {
+                logger.warn("Admin dashboard is missing: {}", fanOut.getIncompleteTasks());
+                request.setAttribute("errorMessage", "Unable to load some dashboard data. Please refresh the page.");
+            }
             
             logger.info("Admin dashboard loaded for: {} (ID: {})", loggedInUser.getEmail(), loggedInUser.getUserId());
             
@@ -96,4 +104,25 @@ public class AdminDashboardServlet extends HttpServlet {
             response.sendRedirect(request.getContextPath() + "/index.jsp?error=system");
         }
     }
+
+    /**
+     * Read the system totals, falling back to an aggregate query if the
+     * summary table has not been migrated yet
+     * @return System totals, or null if they could not be read
+     */
+    private SystemStats loadSystemStats() {
+        SystemStats stats = systemStatsDAO.getSystemStats();
+        if (stats == null) {
+            Map<User.Role, Integer> roleCounts = userDAO.getUserCountsByRole();
+            if (roleCounts == null) {
+                return null;
+            }
+            stats = new SystemStats();
+            stats.setTotalMothers(roleCounts.get(User.Role.MOTHER));
+            stats.setTotalDoctors(roleCounts.get(User.Role.DOCTOR));
+            stats.setTotalAdmins(roleCounts.get(User.Role.ADMIN));
+            stats.setTotalUsers(stats.getTotalMothers() + stats.getTotalDoctors() + stats.getTotalAdmins());
+        }
+        return stats;
+    }
 }
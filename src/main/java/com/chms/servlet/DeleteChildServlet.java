@@ -1,8 +1,9 @@
 package com.chms.servlet;
 
 import com.chms.dao.ChildDAO;
-import com.chms.model.Child;
 import com.chms.model.User;
+import com.chms.service.GrowthTrendService;
+import com.chms.service.VaccinationService;
 import com.chms.util.SessionManager;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -54,16 +55,16 @@ public class DeleteChildServlet extends HttpServlet {
             
             int childId = Integer.parseInt(childIdStr);
             
-            // Get the child to verify ownership
-            Child child = childDAO.getChildById(childId);
-            if (child == null) {
+            // Look up the child's mother to verify ownership (from the in-memory ownership index)
+            int motherId = childDAO.getMotherIdOfChild(childId);
+            if (motherId == 0) {
                 out.print("{\"success\": false, \"message\": \"Child not found\"}");
                 return;
             }
             
             // Check authorization: mother can only delete their own children, admin can delete any
             if (loggedInUser.getRole().equals(User.Role.MOTHER)) {
-                if (child.getMotherId() != loggedInUser.getUserId()) {
+                if (motherId != loggedInUser.getUserId()) {
                     out.print("{\"success\": false, \"message\": \"Unauthorized: You can only delete your own children\"}");
                     return;
                 }
@@ -76,6 +77,9 @@ public class DeleteChildServlet extends HttpServlet {
             boolean deleted = childDAO.deleteChild(childId);
             
             if (deleted) {
+                GrowthTrendService.evict(childId);
+                VaccinationService.childDeleted(childId);
+                SessionManager.recordWrite(request);
                 logger.info("User {} deleted child ID: {}", loggedInUser.getUserId(), childId);
                 out.print("{\"success\": true, \"message\": \"Child deleted successfully\"}");
             } else {
@@ -62,6 +62,7 @@ public class DeleteUserServlet extends HttpServlet {
             boolean deleted = userDAO.deleteUser(userId);
             
             if (deleted) {
+                SessionManager.recordWrite(request);
                 logger.info("Admin {} deleted user ID: {}", loggedInUser.getUserId(), userId);
                 out.print("{\"success\": true, \"message\": \"User deleted successfully\"}");
             } else {
@@ -5,6 +5,8 @@ import com.chms.dao.AppointmentDAO;
 import com.chms.model.Child;
 import com.chms.model.Appointment;
 import com.chms.model.User;
+import com.chms.service.CriticalAlertQueue;
+import com.chms.util.QueryFanOut;
 import com.chms.util.SessionManager;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -15,15 +17,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Doctor Dashboard Servlet
- * Displays doctor's appointments and patients
+ * Displays doctor's appointments, patients and the most urgent open growth alerts
  */
 @WebServlet("/doctor/dashboard")
 public class DoctorDashboardServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(DoctorDashboardServlet.class);
+    private static final int DASHBOARD_ALERTS = 5;
     private final AppointmentDAO appointmentDAO = new AppointmentDAO();
     private final ChildDAO childDAO = new ChildDAO();
 
@@ -46,20 +50,28 @@ public class DoctorDashboardServlet extends HttpServlet {
         try {
             int doctorId = loggedInUser.getUserId();
             
-            // Get doctor's upcoming appointments
-            List<Appointment> upcomingAppointments = appointmentDAO.getUpcomingAppointmentsByDoctorId(doctorId);
+            // Run the three independent queries concurrently under one deadline
+            QueryFanOut fanOut = new QueryFanOut(QueryFanOut.DEFAULT_DEADLINE_MILLIS);
+            QueryFanOut.Result<List<Appointment>> upcomingResult = fanOut.submit("upcomingAppointments",
+                () -> appointmentDAO.getUpcomingAppointmentsByDoctorId(doctorId), new ArrayList<>());
+            QueryFanOut.Result<List<Appointment>> todayResult = fanOut.submit("todayAppointments",
+                () -> appointmentDAO.getTodayAppointmentsByDoctorId(doctorId), new ArrayList<>());
+            QueryFanOut.Result<List<Child>> patientsResult = fanOut.submit("patients",
+                () -> childDAO.getChildrenByDoctorId(doctorId), new ArrayList<>());
             
-            // Get today's appointments
-            List<Appointment> todayAppointments = appointmentDAO.getTodayAppointmentsByDoctorId(doctorId);
-            
-            // Get all children under this doctor's care
-            List<Child> patients = childDAO.getChildrenByDoctorId(doctorId);
-            
-            // Set attributes for JSP (ensure non-null lists)
+            // Set attributes for JSP (fallbacks are empty lists)
             request.setAttribute("doctor", loggedInUser);
-            request.setAttribute("upcomingAppointments", upcomingAppointments != null ? upcomingAppointments : new java.util.ArrayList<>());
-            request.setAttribute("todayAppointments", todayAppointments != null ? todayAppointments : new java.util.ArrayList<>());
-            request.setAttribute("patients", patients != null ? patients : new java.util.ArrayList<>());
+            request.setAttribute("upcomingAppointments", upcomingResult.get());
+            request.setAttribute("todayAppointments", todayResult.get());
+            request.setAttribute("patients", patientsResult.get());
+            // Urgent alerts come from the in-memory queue, not the database
+            CriticalAlertQueue alertQueue = CriticalAlertQueue.getInstance();
+            request.setAttribute("urgentAlerts", alertQueue.top(DASHBOARD_ALERTS));
+            request.setAttribute("urgentAlertCount", alertQueue.size());
+            if (fanOut.isPartial()) {
+                logger.warn("Doctor dashboard for ID {} is missing: {}", doctorId, fanOut.getIncompleteTasks());
+                request.setAttribute("errorMessage", "Unable to load some dashboard data. Please refresh the page.");
+            }
             
             logger.info("Doctor dashboard loaded for: {} (ID: {})", loggedInUser.getEmail(), doctorId);
             
@@ -73,6 +85,8 @@ public class DoctorDashboardServlet extends HttpServlet {
             request.setAttribute("upcomingAppointments", new java.util.ArrayList<>());
             request.setAttribute("todayAppointments", new java.util.ArrayList<>());
             request.setAttribute("patients", new java.util.ArrayList<>());
+            request.setAttribute("urgentAlerts", new java.util.ArrayList<>());
+            request.setAttribute("urgentAlertCount", 0);
             request.setAttribute("errorMessage", "Unable to load some dashboard data. Please refresh the page.");
             request.getRequestDispatcher("/WEB-INF/views/doctor/dashboard.jsp").forward(request, response);
         }
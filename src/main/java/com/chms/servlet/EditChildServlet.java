@@ -3,6 +3,8 @@ package com.chms.servlet;
 import com.chms.dao.ChildDAO;
 import com.chms.model.Child;
 import com.chms.model.User;
+import com.chms.service.GrowthTrendService;
+import com.chms.service.VaccinationService;
 import com.chms.util.SessionManager;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -23,6 +25,7 @@ import java.time.LocalDate;
 public class EditChildServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(EditChildServlet.class);
     private final ChildDAO childDAO = new ChildDAO();
+    private final VaccinationService vaccinationService = new VaccinationService();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response)
@@ -48,14 +51,19 @@ public class EditChildServlet extends HttpServlet {
             }
 
             int childId = Integer.parseInt(childIdStr);
-            Child child = childDAO.getChildById(childId);
 
-            // Verify child belongs to this mother
-            if (child == null || child.getMotherId() != loggedInUser.getUserId()) {
+            // Verify child belongs to this mother before loading the profile
+            if (!childDAO.isChildOfMother(childId, loggedInUser.getUserId())) {
                 response.sendRedirect(request.getContextPath() + "/mother/dashboard?error=unauthorized");
                 return;
             }
 
+            Child child = childDAO.getChildById(childId);
+            if (child == null) {
+                response.sendRedirect(request.getContextPath() + "/mother/dashboard?error=invalid_child");
+                return;
+            }
+
             request.setAttribute("child", child);
             request.setAttribute("mother", loggedInUser);
             request.getRequestDispatcher("/WEB-INF/views/mother/edit-child.jsp").forward(request, response);
@@ -87,13 +95,18 @@ public class EditChildServlet extends HttpServlet {
             String childIdStr = request.getParameter("childId");
             int childId = Integer.parseInt(childIdStr);
             
-            // Get existing child to verify ownership
-            Child existingChild = childDAO.getChildById(childId);
-            if (existingChild == null || existingChild.getMotherId() != loggedInUser.getUserId()) {
+            // Verify ownership before loading the existing child
+            if (!childDAO.isChildOfMother(childId, loggedInUser.getUserId())) {
                 response.sendRedirect(request.getContextPath() + "/mother/dashboard?error=unauthorized");
                 return;
             }
 
+            Child existingChild = childDAO.getChildForUpdate(childId);
+            if (existingChild == null) {
+                response.sendRedirect(request.getContextPath() + "/mother/dashboard?error=invalid_child");
+                return;
+            }
+
             // Get form parameters
             String fullName = request.getParameter("fullName");
             String dateOfBirthStr = request.getParameter("dateOfBirth");
@@ -124,6 +137,12 @@ public class EditChildServlet extends HttpServlet {
             LocalDate dateOfBirth = LocalDate.parse(dateOfBirthStr);
             Date sqlDateOfBirth = Date.valueOf(dateOfBirth);
 
+            // Growth trends depend on the age and sex of the child, vaccination due dates on the age
+            LocalDate previousDateOfBirth = existingChild.getDateOfBirth().toLocalDate();
+            boolean dateOfBirthChanged = !dateOfBirth.equals(previousDateOfBirth);
+            boolean growthBasisChanged = dateOfBirthChanged
+                                         || existingChild.getGender() != Child.Gender.valueOf(genderStr);
+
             // Update child object
             existingChild.setFullName(fullName.trim());
             existingChild.setDateOfBirth(sqlDateOfBirth);
@@ -141,6 +160,13 @@ public class EditChildServlet extends HttpServlet {
             boolean updated = childDAO.updateChild(existingChild);
 
             if (updated) {
+                if (growthBasisChanged) {
+                    GrowthTrendService.evict(childId);
+                }
+                if (dateOfBirthChanged && !vaccinationService.dateOfBirthChanged(existingChild, previousDateOfBirth)) {
+                    logger.warn("Vaccination due dates of child ID: {} were not moved to the new date of birth", childId);
+                }
+                SessionManager.recordWrite(request);
                 logger.info("Child updated successfully by mother ID: {} - Child: {}", 
                            loggedInUser.getUserId(), existingChild.getFullName());
                 response.sendRedirect(request.getContextPath() + "/mother/view-child?id=" + childId + "&success=updated");
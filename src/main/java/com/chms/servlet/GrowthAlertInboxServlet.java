@@ -0,0 +1,107 @@
+package com.chms.servlet;
+
+import com.chms.dao.GrowthAlertDAO;
+import com.chms.model.GrowthAlert;
+import com.chms.model.Page;
+import com.chms.model.User;
+import com.chms.service.CriticalAlertQueue;
+import com.chms.util.SessionManager;
+import com.google.gson.Gson;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Doctor alert inbox: unresolved growth alerts as JSON, most severe and newest first (Doctor only)
+ * GET parameters: cursor (from the previous page). POST parameters: alertId, to resolve an alert
+ */
+@WebServlet("/doctor/alerts")
+public class GrowthAlertInboxServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(GrowthAlertInboxServlet.class);
+    private static final int INBOX_PAGE_SIZE = 25;
+
+    private final GrowthAlertDAO growthAlertDAO = new GrowthAlertDAO();
+    private final Gson gson = new Gson();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        if (checkDoctor(request, response, out) == null) {
+            return;
+        }
+
+        Page<GrowthAlert> page = growthAlertDAO.getOpenAlertsPage(request.getParameter("cursor"), INBOX_PAGE_SIZE);
+        if (page == null) {
+            out.print("{\"success\": false, \"message\": \"Could not load growth alerts\"}");
+            return;
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("alerts", page.getItems());
+        result.put("nextCursor", page.getNextCursor());
+        out.print(gson.toJson(result));
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        User doctor = checkDoctor(request, response, out);
+        if (doctor == null) {
+            return;
+        }
+
+        int alertId;
+        try {
+            alertId = Integer.parseInt(request.getParameter("alertId"));
+        } catch (NumberFormatException e) {
+            out.print("{\"success\": false, \"message\": \"Invalid alert ID\"}");
+            return;
+        }
+
+        boolean resolved = growthAlertDAO.resolveAlert(alertId, doctor.getUserId());
+        if (resolved) {
+            // Resolutions on other nodes reach the queue with its next refresh
+            CriticalAlertQueue.getInstance().resolved(alertId);
+            SessionManager.recordWrite(request);
+            logger.info("Growth alert ID: {} resolved by doctor ID: {}", alertId, doctor.getUserId());
+        }
+        out.print("{\"success\": " + resolved + "}");
+    }
+
+    /**
+     * @return The logged-in doctor, or null after writing the error response
+     */
+    private static User checkDoctor(HttpServletRequest request, HttpServletResponse response, PrintWriter out) {
+        if (!SessionManager.isUserLoggedIn(request)) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            out.print("{\"success\": false, \"message\": \"Not authenticated\"}");
+            return null;
+        }
+
+        User loggedInUser = SessionManager.getLoggedInUser(request);
+        if (loggedInUser == null || !loggedInUser.getRole().equals(User.Role.DOCTOR)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            out.print("{\"success\": false, \"message\": \"Unauthorized access\"}");
+            return null;
+        }
+        return loggedInUser;
+    }
+}
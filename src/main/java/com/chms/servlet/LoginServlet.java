@@ -1,10 +1,11 @@
 package com.chms.servlet;
 
 import com.chms.dao.UserDAO;
-import com.chms.dao.AuditLogDAO;
 import com.chms.model.User;
 import com.chms.model.AuditLog;
 import com.chms.util.PasswordHasher;
+import com.chms.util.AuditLogWriter;
+import com.chms.util.LoginThrottle;
 import com.chms.util.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -24,13 +25,13 @@ public class LoginServlet extends HttpServlet {
     
     private static final Logger logger = LoggerFactory.getLogger(LoginServlet.class);
     private UserDAO userDAO;
-    private AuditLogDAO auditLogDAO;
+    private AuditLogWriter auditLogWriter;
     
     @Override
     public void init() throws ServletException {
         super.init();
         userDAO = new UserDAO();
-        auditLogDAO = new AuditLogDAO();
+        auditLogWriter = AuditLogWriter.getInstance();
     }
     
     @Override
@@ -53,36 +54,46 @@ public class LoginServlet extends HttpServlet {
         String email = request.getParameter("email");
         String password = request.getParameter("password");
         
-        System.out.println("=== LOGIN ATTEMPT ===");
-        System.out.println("Email: " + email);
-        System.out.println("Password length: " + (password != null ? password.length() : 0));
-        
         // Validate input
         if (email == null || email.trim().isEmpty() || 
             password == null || password.trim().isEmpty()) {
-            System.out.println("ERROR: Empty email or password");
             response.sendRedirect(request.getContextPath() + "/index.jsp?error=empty");
             return;
         }
         
-        // Authenticate user
-        User user = userDAO.getUserByEmail(email.trim());
-        System.out.println("User found: " + (user != null));
-        if (user != null) {
-            System.out.println("User active: " + user.isActive());
-            System.out.println("Hash from DB: " + user.getPasswordHash().substring(0, 20) + "...");
-            System.out.println("Password verification: " + PasswordHasher.verifyPassword(password, user.getPasswordHash()));
+        // Throttle per client address and per account before any lookup or hashing; keyed by
+        // the socket address, since forwarding headers are set by the client and can be rotated
+        String ipAddress = SessionManager.getClientIpAddress(request);
+        if (!LoginThrottle.forIp().tryAcquire(request.getRemoteAddr()) || 
+            !LoginThrottle.forEmail().tryAcquire(email.trim())) {
+            logger.warn("Login throttled for email: {} from {}", email, request.getRemoteAddr());
+            response.sendRedirect(request.getContextPath() + "/index.jsp?error=throttled");
+            return;
         }
         
-        if (user != null && user.isActive() && 
-            PasswordHasher.verifyPassword(password, user.getPasswordHash())) {
-            
+        // Authenticate user (uncached, so password and active flag are current on every node)
+        User user = userDAO.getUserForLogin(email.trim());
+        
+        boolean authenticated;
+        try {
+            authenticated = user != null && user.isActive() && 
+                PasswordHasher.verifyPassword(password, user.getPasswordHash());
+        } catch (PasswordHasher.OverloadedException e) {
+            logger.warn("Login rejected, password hashing overloaded: {}", email);
+            response.sendRedirect(request.getContextPath() + "/index.jsp?error=busy");
+            return;
+        }
+        
+        if (authenticated) {
             // Successful login
-            SessionManager.createUserSession(request, user);
+            SessionManager.createUserSession(request, response, user);
             
             // Update last login
             userDAO.updateLastLogin(user.getUserId());
             
+            // Upgrade hashes made with an older, cheaper work factor
+            rehashIfOutdated(user, password);
+            
             // Create audit log
             AuditLog auditLog = new AuditLog(
                 user.getUserId(),
@@ -91,9 +102,9 @@ public class LoginServlet extends HttpServlet {
                 null,
                 "User logged in successfully"
             );
-            auditLog.setIpAddress(SessionManager.getClientIpAddress(request));
+            auditLog.setIpAddress(ipAddress);
             auditLog.setUserAgent(SessionManager.getUserAgent(request));
-            auditLogDAO.createAuditLog(auditLog);
+            auditLogWriter.submit(auditLog);
             
             logger.info("User logged in: {} ({})", user.getEmail(), user.getRole());
             
@@ -107,6 +118,25 @@ public class LoginServlet extends HttpServlet {
         }
     }
     
+    /**
+     * Rehash the password with the current work factor if the stored hash is weaker.
+     * Skipped (and retried on a later login) when hashing is overloaded.
+     */
+    private void rehashIfOutdated(User user, String password) {
+        if (!PasswordHasher.needsRehash(user.getPasswordHash())) {
+            return;
+        }
+        try {
+            String newHash = PasswordHasher.hashPassword(password);
+            if (userDAO.updatePassword(user.getUserId(), newHash)) {
+                logger.info("Rehashed password for user {} with work factor {}", 
+                           user.getUserId(), PasswordHasher.getCurrentWorkFactor());
+            }
+        } catch (PasswordHasher.OverloadedException e) {
+            logger.debug("Skipping password rehash for user {}: {}", user.getUserId(), e.getMessage());
+        }
+    }
+    
     /**
      * Redirect to appropriate dashboard based on user role
      */
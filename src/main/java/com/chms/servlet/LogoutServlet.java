@@ -1,7 +1,7 @@
 package com.chms.servlet;
 
-import com.chms.dao.AuditLogDAO;
 import com.chms.model.AuditLog;
+import com.chms.util.AuditLogWriter;
 import com.chms.util.SessionManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,12 +20,12 @@ import java.io.IOException;
 public class LogoutServlet extends HttpServlet {
     
     private static final Logger logger = LoggerFactory.getLogger(LogoutServlet.class);
-    private AuditLogDAO auditLogDAO;
+    private AuditLogWriter auditLogWriter;
     
     @Override
     public void init() throws ServletException {
         super.init();
-        auditLogDAO = new AuditLogDAO();
+        auditLogWriter = AuditLogWriter.getInstance();
     }
     
     @Override
@@ -46,13 +46,13 @@ public class LogoutServlet extends HttpServlet {
             );
             auditLog.setIpAddress(SessionManager.getClientIpAddress(request));
             auditLog.setUserAgent(SessionManager.getUserAgent(request));
-            auditLogDAO.createAuditLog(auditLog);
+            auditLogWriter.submit(auditLog);
             
             logger.info("User logged out: {}", userId);
         }
         
         // Invalidate session
-        SessionManager.invalidateSession(request);
+        SessionManager.invalidateSession(request, response);
         
         // Redirect to login page with logout message
         response.sendRedirect(request.getContextPath() + "/index.jsp?logout=success");
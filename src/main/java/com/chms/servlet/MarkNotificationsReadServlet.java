@@ -0,0 +1,91 @@
+package com.chms.servlet;
+
+import com.chms.dao.NotificationDAO;
+import com.chms.util.NotificationHub;
+import com.chms.util.SessionManager;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servlet for marking the logged-in user's notifications as read
+ * Parameters: ids (comma-separated notification IDs) or all=true
+ */
+@WebServlet("/notifications/mark-read")
+public class MarkNotificationsReadServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(MarkNotificationsReadServlet.class);
+    private static final int MAX_IDS = 1000;
+
+    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final NotificationHub notificationHub = NotificationHub.getInstance();
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+        
+        // Check if user is logged in
+        int userId = SessionManager.getLoggedInUserId(request);
+        if (userId <= 0) {
+            out.print("{\"success\": false, \"message\": \"Not authenticated\"}");
+            return;
+        }
+
+        int updated;
+        if ("true".equals(request.getParameter("all"))) {
+            updated = notificationDAO.markAllAsRead(userId);
+            if (updated < 0) {
+                out.print("{\"success\": false, \"message\": \"Could not mark notifications as read\"}");
+                return;
+            }
+            notificationHub.notificationsRead(userId, -1);
+        } else {
+            List<Integer> ids;
+            try {
+                ids = parseIds(request.getParameter("ids"));
+            } catch (NumberFormatException e) {
+                out.print("{\"success\": false, \"message\": \"Invalid notification ID\"}");
+                return;
+            }
+            if (ids.isEmpty() || ids.size() > MAX_IDS) {
+                out.print("{\"success\": false, \"message\": \"Between 1 and " + MAX_IDS + " notification IDs are required\"}");
+                return;
+            }
+            updated = notificationDAO.markAsRead(userId, ids);
+            if (updated < 0) {
+                out.print("{\"success\": false, \"message\": \"Could not mark notifications as read\"}");
+                return;
+            }
+            notificationHub.notificationsRead(userId, updated);
+        }
+
+        SessionManager.recordWrite(request);
+        logger.debug("User {} marked {} notifications read", userId, updated);
+        out.print("{\"success\": true, \"updated\": " + updated + "}");
+    }
+
+    private static List<Integer> parseIds(String value) {
+        List<Integer> ids = new ArrayList<>();
+        if (value == null) {
+            return ids;
+        }
+        for (String part : value.split(",")) {
+            if (!part.trim().isEmpty()) {
+                ids.add(Integer.parseInt(part.trim()));
+            }
+        }
+        return ids;
+    }
+}
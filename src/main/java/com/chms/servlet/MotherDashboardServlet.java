@@ -1,12 +1,9 @@
 package com.chms.servlet;
 
-import com.chms.dao.ChildDAO;
-import com.chms.dao.AppointmentDAO;
-import com.chms.dao.NotificationDAO;
-import com.chms.model.Child;
-import com.chms.model.Appointment;
-import com.chms.model.Notification;
+import com.chms.dao.DashboardDAO;
+import com.chms.model.MotherDashboard;
 import com.chms.model.User;
+import com.chms.util.QueryFanOut;
 import com.chms.util.SessionManager;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -17,7 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.ArrayList;
 
 /**
  * Mother Dashboard Servlet
@@ -26,9 +23,7 @@ import java.util.List;
 @WebServlet("/mother/dashboard")
 public class MotherDashboardServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(MotherDashboardServlet.class);
-    private final ChildDAO childDAO = new ChildDAO();
-    private final AppointmentDAO appointmentDAO = new AppointmentDAO();
-    private final NotificationDAO notificationDAO = new NotificationDAO();
+    private final DashboardDAO dashboardDAO = new DashboardDAO();
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) 
@@ -49,20 +44,21 @@ public class MotherDashboardServlet extends HttpServlet {
         try {
             int motherId = loggedInUser.getUserId();
             
-            // Get mother's children
-            List<Child> children = childDAO.getChildrenByMotherId(motherId);
-            
-            // Get upcoming appointments for all children
-            List<Appointment> upcomingAppointments = appointmentDAO.getUpcomingAppointmentsByMotherId(motherId);
-            
-            // Get unread notifications
-            List<Notification> notifications = notificationDAO.getUnreadNotificationsByUserId(motherId);
+            // Get children, upcoming appointments and unread notifications in one connection,
+            // bounded by the dashboard deadline
+            QueryFanOut fanOut = new QueryFanOut(QueryFanOut.DEFAULT_DEADLINE_MILLIS);
+            MotherDashboard dashboard = fanOut.submit("motherDashboard",
+                () -> dashboardDAO.getMotherDashboard(motherId),
+                new MotherDashboard(motherId, new ArrayList<>(), new ArrayList<>(), new ArrayList<>())).get();
             
             // Set attributes for JSP
             request.setAttribute("mother", loggedInUser);
-            request.setAttribute("children", children);
-            request.setAttribute("upcomingAppointments", upcomingAppointments);
-            request.setAttribute("notifications", notifications);
+            request.setAttribute("children", dashboard.getChildren());
+            request.setAttribute("upcomingAppointments", dashboard.getUpcomingAppointments());
+            request.setAttribute("notifications", dashboard.getUnreadNotifications());
+            if (fanOut.isPartial()) {
+                request.setAttribute("errorMessage", "Unable to load some dashboard data. Please refresh the page.");
+            }
             
             logger.info("Mother dashboard loaded for: {} (ID: {})", loggedInUser.getEmail(), motherId);
             
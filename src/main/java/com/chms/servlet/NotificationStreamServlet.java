@@ -0,0 +1,62 @@
+package com.chms.servlet;
+
+import com.chms.model.SessionPrincipal;
+import com.chms.util.NotificationHub;
+import com.chms.util.SessionManager;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+/**
+ * Servlet streaming the logged-in user's new notifications and unread count
+ * as server-sent events (see NotificationHub)
+ *
+ * Events: "unread" {unreadCount} on connect, "notification" {notificationId, type,
+ * title, message, createdAt, unreadCount} for each new notification.
+ */
+@WebServlet(urlPatterns = "/notifications/stream", asyncSupported = true)
+public class NotificationStreamServlet extends HttpServlet {
+
+    // Streams are closed after this long; the browser reconnects and resumes from Last-Event-ID
+    private static final long STREAM_TIMEOUT_MS = 10 * 60 * 1000;
+
+    private final NotificationHub notificationHub = NotificationHub.getInstance();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        SessionPrincipal principal = SessionManager.getPrincipal(request);
+        if (principal == null) {
+            // EventSource does not reconnect after an error status
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED);
+            return;
+        }
+
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(STREAM_TIMEOUT_MS);
+        notificationHub.subscribe(principal.getUserId(), asyncContext, parseLastEventId(request));
+    }
+
+    private static int parseLastEventId(HttpServletRequest request) {
+        String lastEventId = request.getHeader("Last-Event-ID");
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.chms.servlet;
+
+import com.chms.job.OverdueCheckupJob;
+import com.chms.job.VaccinationDueJob;
+import com.chms.model.User;
+import com.chms.service.CriticalAlertQueue;
+import com.chms.session.ExternalSessions;
+import com.chms.util.AuditLogWriter;
+import com.chms.util.DatabaseConnection;
+import com.chms.util.LoginThrottle;
+import com.chms.util.NotificationHub;
+import com.chms.util.OwnershipIndex;
+import com.chms.util.PasswordHasher;
+import com.chms.util.SessionManager;
+import com.chms.util.TtlCache;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Servlet exposing connection pool, background writer, login, cache, session, notification and job metrics as JSON (Admin only)
+ */
+@WebServlet("/admin/pool-metrics")
+public class PoolMetricsServlet extends HttpServlet {
+    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+        
+        // Check if user is logged in and is an admin
+        if (!SessionManager.isUserLoggedIn(request)) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            out.print("{\"success\": false, \"message\": \"Not authenticated\"}");
+            return;
+        }
+
+        User loggedInUser = SessionManager.getLoggedInUser(request);
+        if (loggedInUser == null || !loggedInUser.getRole().equals(User.Role.ADMIN)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            out.print("{\"success\": false, \"message\": \"Unauthorized access\"}");
+            return;
+        }
+
+        Map<String, Object> metrics = new LinkedHashMap<>(DatabaseConnection.getPoolMetrics());
+        metrics.put("auditLogWriter", AuditLogWriter.getInstance().snapshot());
+        metrics.put("passwordHasher", PasswordHasher.getMetrics());
+        Map<String, Object> throttles = new LinkedHashMap<>();
+        throttles.put(LoginThrottle.forEmail().getName(), LoginThrottle.forEmail().snapshot());
+        throttles.put(LoginThrottle.forIp().getName(), LoginThrottle.forIp().snapshot());
+        metrics.put("loginThrottle", throttles);
+        metrics.put("caches", TtlCache.snapshotAll());
+        metrics.put("ownershipIndexes", OwnershipIndex.snapshotAll());
+        metrics.put("sessionStore", ExternalSessions.snapshot());
+        metrics.put("notificationHub", NotificationHub.getInstance().snapshot());
+        metrics.put("overdueCheckupJob", OverdueCheckupJob.snapshot());
+        metrics.put("vaccinationDueJob", VaccinationDueJob.snapshot());
+        metrics.put("criticalAlertQueue", CriticalAlertQueue.getInstance().snapshot());
+        out.print(gson.toJson(metrics));
+    }
+}
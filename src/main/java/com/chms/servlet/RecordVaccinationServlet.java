@@ -0,0 +1,76 @@
+package com.chms.servlet;
+
+import com.chms.model.User;
+import com.chms.service.VaccinationService;
+import com.chms.util.SessionManager;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Servlet for recording a vaccination as administered (Doctor only)
+ * POST parameters: vaccinationId (required), administeredDate (default today, not in the future), batchNumber
+ */
+@WebServlet("/doctor/vaccination")
+public class RecordVaccinationServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(RecordVaccinationServlet.class);
+
+    private final VaccinationService vaccinationService = new VaccinationService();
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        PrintWriter out = response.getWriter();
+
+        if (!SessionManager.isUserLoggedIn(request)) {
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            out.print("{\"success\": false, \"message\": \"Not authenticated\"}");
+            return;
+        }
+
+        User doctor = SessionManager.getLoggedInUser(request);
+        if (doctor == null || !doctor.getRole().equals(User.Role.DOCTOR)) {
+            response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+            out.print("{\"success\": false, \"message\": \"Unauthorized access\"}");
+            return;
+        }
+
+        int vaccinationId;
+        Date administeredDate;
+        try {
+            vaccinationId = Integer.parseInt(request.getParameter("vaccinationId"));
+            String dateParam = request.getParameter("administeredDate");
+            administeredDate = dateParam == null || dateParam.trim().isEmpty()
+                ? Date.valueOf(LocalDate.now()) : Date.valueOf(LocalDate.parse(dateParam.trim()));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            out.print("{\"success\": false, \"message\": \"Invalid vaccination ID or date\"}");
+            return;
+        }
+        if (administeredDate.toLocalDate().isAfter(LocalDate.now())) {
+            out.print("{\"success\": false, \"message\": \"Administered date cannot be in the future\"}");
+            return;
+        }
+
+        String batchNumber = request.getParameter("batchNumber");
+        boolean recorded = vaccinationService.recordAdministered(
+            vaccinationId, administeredDate, doctor.getUserId(), batchNumber != null ? batchNumber.trim() : null);
+        if (recorded) {
+            SessionManager.recordWrite(request);
+            logger.info("Vaccination ID: {} administered by doctor ID: {}", vaccinationId, doctor.getUserId());
+        }
+        out.print("{\"success\": " + recorded + "}");
+    }
+}
@@ -63,9 +63,8 @@ public class RegistrationServlet extends HttpServlet {
             return;
         }
         
-        // Check if email already exists
-        User existingUser = userDAO.getUserByEmail(email.trim());
-        if (existingUser != null) {
+        // Check if email already exists (negative results are cached briefly)
+        if (userDAO.emailExists(email.trim())) {
             System.out.println("ERROR: Email already exists");
             response.sendRedirect(request.getContextPath() + "/register.jsp?error=email_exists");
             return;
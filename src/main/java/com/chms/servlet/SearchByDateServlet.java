@@ -5,8 +5,10 @@ import com.chms.dao.ChildDAO;
 import com.chms.dao.UserDAO;
 import com.chms.model.Appointment;
 import com.chms.model.Child;
+import com.chms.model.Page;
 import com.chms.model.User;
 import com.chms.util.SessionManager;
+import com.google.gson.stream.JsonWriter;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServlet;
@@ -15,8 +17,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
 import java.text.SimpleDateFormat;
 import java.util.List;
 
@@ -27,6 +35,7 @@ import java.util.List;
 @WebServlet("/search-by-date")
 public class SearchByDateServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(SearchByDateServlet.class);
+    private static final int SEARCH_PAGE_SIZE = 100;
     
     private final AppointmentDAO appointmentDAO = new AppointmentDAO();
     private final ChildDAO childDAO = new ChildDAO();
@@ -55,6 +64,13 @@ public class SearchByDateServlet extends HttpServlet {
         String startTime = request.getParameter("startTime"); // Filter by time range
         String endTime = request.getParameter("endTime");
         
+        // Export mode streams results as a file instead of rendering the page
+        String exportFormat = request.getParameter("export");
+        if (exportFormat != null && !exportFormat.isEmpty()) {
+            exportResults(request, response, loggedInUser, searchType, exportFormat);
+            return;
+        }
+        
         try {
             if (searchType == null || searchType.isEmpty()) {
                 // Default view - show search form
@@ -110,61 +126,42 @@ public class SearchByDateServlet extends HttpServlet {
     
     /**
      * Search appointments by date or date range
+     * Name and time filters are applied in SQL; results are paged with a keyset cursor
      */
     private void searchAppointments(HttpServletRequest request, String dateStr, 
                                    String startDateStr, String endDateStr, String nameFilter,
                                    String startTime, String endTime) {
         try {
-            List<Appointment> appointments;
+            AppointmentDAO.AppointmentSearch criteria = new AppointmentDAO.AppointmentSearch();
             
             if (dateStr != null && !dateStr.isEmpty()) {
                 // Search by specific date
-                Date searchDate = Date.valueOf(dateStr);
-                appointments = appointmentDAO.searchAppointmentsByDate(searchDate);
+                criteria.onDate(Date.valueOf(dateStr));
                 request.setAttribute("searchMode", "single");
-                logger.info("Searched appointments for date: {}, found: {}", dateStr, appointments.size());
             } else if (startDateStr != null && !startDateStr.isEmpty() && 
                        endDateStr != null && !endDateStr.isEmpty()) {
                 // Search by date range
-                Date startDate = Date.valueOf(startDateStr);
-                Date endDate = Date.valueOf(endDateStr);
-                appointments = appointmentDAO.searchAppointmentsByDateRange(startDate, endDate);
+                criteria.between(Date.valueOf(startDateStr), Date.valueOf(endDateStr));
                 request.setAttribute("searchMode", "range");
-                logger.info("Searched appointments from {} to {}, found: {}", 
-                          startDateStr, endDateStr, appointments.size());
             } else {
                 request.setAttribute("error", "Please provide either a specific date or a date range");
                 return;
             }
             
-            // Apply name filter if provided
-            if (nameFilter != null && !nameFilter.trim().isEmpty()) {
-                String filter = nameFilter.trim().toLowerCase();
-                appointments = appointments.stream()
-                    .filter(a -> {
-                        if (a.getChildName() != null && a.getChildName().toLowerCase().contains(filter)) return true;
-                        if (a.getMotherName() != null && a.getMotherName().toLowerCase().contains(filter)) return true;
-                        if (a.getDoctorName() != null && a.getDoctorName().toLowerCase().contains(filter)) return true;
-                        return false;
-                    })
-                    .collect(java.util.stream.Collectors.toList());
-                logger.info("Applied name filter '{}', remaining: {}", nameFilter, appointments.size());
-            }
+            // Name filter matches child, mother or doctor name
+            criteria.nameContains(nameFilter);
             
-            // Apply time filter if provided
+            // Time filter
             if (startTime != null && !startTime.isEmpty() && endTime != null && !endTime.isEmpty()) {
-                java.sql.Time filterStartTime = java.sql.Time.valueOf(startTime + ":00");
-                java.sql.Time filterEndTime = java.sql.Time.valueOf(endTime + ":00");
-                appointments = appointments.stream()
-                    .filter(a -> a.getAppointmentTime() != null && 
-                                !a.getAppointmentTime().before(filterStartTime) && 
-                                !a.getAppointmentTime().after(filterEndTime))
-                    .collect(java.util.stream.Collectors.toList());
-                logger.info("Applied time filter {} to {}, remaining: {}", startTime, endTime, appointments.size());
+                criteria.timeBetween(Time.valueOf(startTime + ":00"), Time.valueOf(endTime + ":00"));
             }
             
-            request.setAttribute("appointments", appointments);
-            request.setAttribute("resultCount", appointments.size());
+            criteria.after(request.getParameter("cursor"));
+            Page<Appointment> page = appointmentDAO.searchAppointments(criteria, SEARCH_PAGE_SIZE);
+            
+            request.setAttribute("appointments", page.getItems());
+            request.setAttribute("resultCount", page.size());
+            request.setAttribute("nextCursor", page.getNextCursor());
             
         } catch (IllegalArgumentException e) {
             logger.error("Invalid date format", e);
@@ -264,4 +261,184 @@ public class SearchByDateServlet extends HttpServlet {
             request.setAttribute("error", "Invalid date format. Use YYYY-MM-DD");
         }
     }
+    
+    /**
+     * Stream appointment or children search results as CSV or JSON.
+     * Rows go straight from a streaming result set to the response, so memory use
+     * does not grow with the size of the date range. The response is written through
+     * the output stream rather than getWriter(), whose PrintWriter swallows IOException:
+     * a client that disconnects aborts the export instead of letting it read every row.
+     */
+    private void exportResults(HttpServletRequest request, HttpServletResponse response, User loggedInUser,
+                               String searchType, String exportFormat) throws IOException {
+        
+        // Only admins and doctors can export
+        if (!loggedInUser.getRole().equals(User.Role.ADMIN) && 
+            !loggedInUser.getRole().equals(User.Role.DOCTOR)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Unauthorized access");
+            return;
+        }
+        
+        boolean json = "json".equalsIgnoreCase(exportFormat);
+        if (!json && !"csv".equalsIgnoreCase(exportFormat)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Export format must be csv or json");
+            return;
+        }
+        
+        String dateStr = request.getParameter("date");
+        String startDateStr = request.getParameter("startDate");
+        String endDateStr = request.getParameter("endDate");
+        String nameFilter = request.getParameter("name");
+        String startTime = request.getParameter("startTime");
+        String endTime = request.getParameter("endTime");
+        
+        Date startDate;
+        Date endDate;
+        try {
+            if (dateStr != null && !dateStr.isEmpty()) {
+                startDate = Date.valueOf(dateStr);
+                endDate = startDate;
+            } else if (startDateStr != null && !startDateStr.isEmpty() && 
+                       endDateStr != null && !endDateStr.isEmpty()) {
+                startDate = Date.valueOf(startDateStr);
+                endDate = Date.valueOf(endDateStr);
+            } else {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, 
+                                  "Please provide either a specific date or a date range");
+                return;
+            }
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid date format. Use YYYY-MM-DD");
+            return;
+        }
+        
+        String type = searchType != null ? searchType.toLowerCase() : "appointments";
+        if (!"appointments".equals(type) && !"children".equals(type)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Only appointments and children can be exported");
+            return;
+        }
+        
+        String fileName = type + "_" + startDate + "_" + endDate + (json ? ".json" : ".csv");
+        response.setContentType(json ? "application/json" : "text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        
+        try {
+            int rows;
+            Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+            
+            if ("appointments".equals(type)) {
+                AppointmentDAO.AppointmentSearch criteria = new AppointmentDAO.AppointmentSearch()
+                    .between(startDate, endDate)
+                    .nameContains(nameFilter);
+                if (startTime != null && !startTime.isEmpty() && endTime != null && !endTime.isEmpty()) {
+                    criteria.timeBetween(Time.valueOf(startTime + ":00"), Time.valueOf(endTime + ":00"));
+                }
+                rows = json ? exportAppointmentsJson(criteria, out) : exportAppointmentsCsv(criteria, out);
+            } else {
+                rows = json ? exportChildrenJson(startDate, endDate, nameFilter, out)
+                            : exportChildrenCsv(startDate, endDate, nameFilter, out);
+            }
+            
+            out.flush();
+            logger.info("User {} exported {} {} rows as {}", loggedInUser.getUserId(), rows, type, 
+                       exportFormat.toLowerCase());
+            
+        } catch (IOException e) {
+            logger.warn("Export of {} aborted for user {}: {}", type, loggedInUser.getUserId(), e.getMessage());
+            throw e;
+        } catch (SQLException | IllegalArgumentException e) {
+            logger.error("Error exporting " + type, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Export failed");
+            }
+        }
+    }
+    
+    private int exportAppointmentsCsv(AppointmentDAO.AppointmentSearch criteria, Writer out) 
+            throws SQLException, IOException {
+        out.write("Appointment ID,Date,Time,Child,Doctor,Mother,Type,Status,Notes\r\n");
+        return appointmentDAO.streamAppointments(criteria, apt -> {
+            writeCsvRow(out, apt.getAppointmentId(), apt.getAppointmentDate(), apt.getAppointmentTime(),
+                        apt.getChildName(), apt.getDoctorName(), apt.getMotherName(),
+                        apt.getAppointmentType(), apt.getStatus(), apt.getNotes());
+        });
+    }
+    
+    private int exportAppointmentsJson(AppointmentDAO.AppointmentSearch criteria, Writer out) 
+            throws SQLException, IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray();
+        int rows = appointmentDAO.streamAppointments(criteria, apt -> {
+            json.beginObject();
+            json.name("appointmentId").value(apt.getAppointmentId());
+            json.name("date").value(String.valueOf(apt.getAppointmentDate()));
+            json.name("time").value(String.valueOf(apt.getAppointmentTime()));
+            json.name("childName").value(apt.getChildName());
+            json.name("doctorName").value(apt.getDoctorName());
+            json.name("motherName").value(apt.getMotherName());
+            json.name("type").value(apt.getAppointmentType().name());
+            json.name("status").value(apt.getStatus().name());
+            json.name("notes").value(apt.getNotes());
+            json.endObject();
+        });
+        json.endArray();
+        json.flush();
+        return rows;
+    }
+    
+    private int exportChildrenCsv(Date startDate, Date endDate, String nameFilter, Writer out) 
+            throws SQLException, IOException {
+        out.write("Child ID,Profile ID,Full Name,Date of Birth,Gender,Blood Group,Mother ID\r\n");
+        return childDAO.streamChildrenByDateRange(startDate, endDate, nameFilter, child -> {
+            writeCsvRow(out, child.getChildId(), child.getUniqueProfileId(), child.getFullName(),
+                        child.getDateOfBirth(), child.getGender(), child.getBloodGroup(), child.getMotherId());
+        });
+    }
+    
+    private int exportChildrenJson(Date startDate, Date endDate, String nameFilter, Writer out) 
+            throws SQLException, IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginArray();
+        int rows = childDAO.streamChildrenByDateRange(startDate, endDate, nameFilter, child -> {
+            json.beginObject();
+            json.name("childId").value(child.getChildId());
+            json.name("uniqueProfileId").value(child.getUniqueProfileId());
+            json.name("fullName").value(child.getFullName());
+            json.name("dateOfBirth").value(String.valueOf(child.getDateOfBirth()));
+            json.name("gender").value(child.getGender().name());
+            json.name("bloodGroup").value(child.getBloodGroup());
+            json.name("motherId").value(child.getMotherId());
+            json.endObject();
+        });
+        json.endArray();
+        json.flush();
+        return rows;
+    }
+    
+    /**
+     * Write one CSV record, quoting fields that contain separators and neutralising
+     * values that spreadsheet programs would evaluate as formulas
+     */
+    private static void writeCsvRow(Writer out, Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            if (fields[i] == null) {
+                continue;
+            }
+            String value = fields[i].toString();
+            if (!value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            if (value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || 
+                value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+                value = '"' + value.replace("\"", "\"\"") + '"';
+            }
+            out.write(value);
+        }
+        out.write("\r\n");
+    }
 }
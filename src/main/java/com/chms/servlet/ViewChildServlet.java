@@ -46,14 +46,19 @@ public class ViewChildServlet extends HttpServlet {
             }
 
             int childId = Integer.parseInt(childIdStr);
-            Child child = childDAO.getChildById(childId);
 
-            // Verify child belongs to this mother
-            if (child == null || child.getMotherId() != loggedInUser.getUserId()) {
+            // Verify child belongs to this mother before loading the profile
+            if (!childDAO.isChildOfMother(childId, loggedInUser.getUserId())) {
                 response.sendRedirect(request.getContextPath() + "/mother/dashboard?error=unauthorized");
                 return;
             }
 
+            Child child = childDAO.getChildById(childId);
+            if (child == null) {
+                response.sendRedirect(request.getContextPath() + "/mother/dashboard?error=invalid_child");
+                return;
+            }
+
             request.setAttribute("child", child);
             request.setAttribute("mother", loggedInUser);
             request.getRequestDispatcher("/WEB-INF/views/mother/view-child.jsp").forward(request, response);
@@ -0,0 +1,371 @@
+package com.chms.session;
+
+import com.chms.model.SessionPrincipal;
+import com.chms.util.DatabaseConnection;
+import com.chms.util.JobScheduler;
+import com.chms.util.SessionManager;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logged-in sessions kept in an external SessionStore, so any application node can
+ * serve any request without sticky sessions
+ *
+ * At login a random token is set in the CHMS_SESSION cookie and the session is saved
+ * under the SHA-256 of the token. The container's HttpSession stays as a node-local
+ * cache: a node that has never seen the session restores it from the store on the
+ * first request. Every revalidateSeconds a node re-reads the session, so a logout
+ * on another node takes effect here too, and records the access time. Access times
+ * are written behind in batches every flushSeconds. The time of the user's last data
+ * write is written through and read on every request while a replica is in use, so
+ * the read-your-writes pin holds whichever node serves the next request.
+ *
+ * Settings (database.properties):
+ *   session.store                     - none (container sessions only), jdbc or file (default none)
+ *   session.store.dir                 - directory of the file store (default ~/chms/sessions)
+ *   session.store.revalidateSeconds   - how often a node re-checks a cached session (default 60)
+ *   session.store.flushSeconds        - how often access times are written (default 10)
+ */
+public final class ExternalSessions {
+    private static final Logger logger = LoggerFactory.getLogger(ExternalSessions.class);
+
+    public static final String COOKIE_NAME = "CHMS_SESSION";
+
+    // HttpSession attributes
+    private static final String SESSION_KEY = "com.chms.sessionKey";
+    private static final String SESSION_CHECKED_AT = "com.chms.sessionCheckedAt";
+
+    private static final int TOKEN_BYTES = 32;
+    private static final long IDLE_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(SessionManager.SESSION_TIMEOUT);
+    private static final long PURGE_INTERVAL_MINUTES = 10;
+
+    private static final long revalidateMillis = TimeUnit.SECONDS.toMillis(
+        Long.parseLong(DatabaseConnection.getConfigProperty("session.store.revalidateSeconds", "60")));
+    private static final long flushSeconds =
+        Long.parseLong(DatabaseConnection.getConfigProperty("session.store.flushSeconds", "10"));
+
+    private static final SessionStore store = createStore();
+    private static final SecureRandom random = new SecureRandom();
+
+    // Write-behind buffer: latest access time by session key
+    private static final Map<String, Long> pendingTouches = new ConcurrentHashMap<>();
+
+    // Metrics
+    private static final LongAdder created = new LongAdder();
+    private static final LongAdder restored = new LongAdder();
+    private static final LongAdder revalidated = new LongAdder();
+    private static final LongAdder endedElsewhere = new LongAdder();
+    private static final LongAdder touchesWritten = new LongAdder();
+    private static final LongAdder writesRecorded = new LongAdder();
+    private static final LongAdder storeErrors = new LongAdder();
+
+    private ExternalSessions() {
+    }
+
+    public static boolean isEnabled() {
+        return store != null;
+    }
+
+    /**
+     * Schedule the access time flush and idle session purge (called on application startup)
+     */
+    public static void start() {
+        if (store == null) {
+            return;
+        }
+        logger.info("Sessions are kept in the {} session store", store.getName());
+        JobScheduler.scheduleWithFixedDelay("session-touch-flush", ExternalSessions::flushTouches,
+            flushSeconds, flushSeconds, TimeUnit.SECONDS);
+        JobScheduler.scheduleWithFixedDelay("session-purge", ExternalSessions::purgeIdle,
+            PURGE_INTERVAL_MINUTES, PURGE_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Save a new session for a user who just logged in and set the session cookie.
+     * If the store is unavailable the user stays logged in on this node only.
+     */
+    public static void create(HttpServletRequest request, HttpServletResponse response,
+                              HttpSession session, SessionPrincipal principal) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        random.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        String key = keyOf(token);
+        long now = System.currentTimeMillis();
+
+        try {
+            store.save(key, new StoredSession(principal, now, now));
+        } catch (IOException e) {
+            storeErrors.increment();
+            logger.error("Could not save session of user " + principal.getUserId() + " to the session store", e);
+            return;
+        }
+        created.increment();
+        session.setAttribute(SESSION_KEY, key);
+        session.setAttribute(SESSION_CHECKED_AT, now);
+        response.addCookie(sessionCookie(request, token, -1));
+    }
+
+    /**
+     * Restore the session of a request this node has no HttpSession for
+     * @return The principal, or null if the request carries no valid session cookie
+     */
+    public static SessionPrincipal restore(HttpServletRequest request) {
+        String token = readToken(request);
+        if (token == null) {
+            return null;
+        }
+        String key = keyOf(token);
+        long now = System.currentTimeMillis();
+
+        StoredSession stored;
+        try {
+            stored = store.load(key);
+        } catch (IOException e) {
+            storeErrors.increment();
+            logger.error("Could not load session from the session store", e);
+            return null;
+        }
+        if (stored == null || stored.isIdle(now, IDLE_TIMEOUT_MILLIS)) {
+            return null;
+        }
+
+        HttpSession session = request.getSession(true);
+        session.setMaxInactiveInterval(SessionManager.SESSION_TIMEOUT);
+        session.setAttribute(SessionManager.SESSION_PRINCIPAL, stored.getPrincipal());
+        session.setAttribute(SESSION_KEY, key);
+        session.setAttribute(SESSION_CHECKED_AT, now);
+        pendingTouches.put(key, now);
+        restored.increment();
+        return stored.getPrincipal();
+    }
+
+    /**
+     * Check a cached session against the store at most every revalidateSeconds,
+     * and queue its access time
+     * @return false if the session was ended on another node or has expired
+     */
+    public static boolean revalidate(HttpSession session) {
+        String key = (String) session.getAttribute(SESSION_KEY);
+        if (key == null) {
+            // Created while the store was unavailable: local to this node
+            return true;
+        }
+        Long checkedAt = (Long) session.getAttribute(SESSION_CHECKED_AT);
+        long now = System.currentTimeMillis();
+        if (checkedAt != null && now - checkedAt < revalidateMillis) {
+            return true;
+        }
+
+        StoredSession stored;
+        try {
+            stored = store.load(key);
+        } catch (IOException e) {
+            // Keep serving the cached session rather than logging everyone out during an outage
+            storeErrors.increment();
+            logger.warn("Could not revalidate session against the session store: {}", e.getMessage());
+            return true;
+        }
+        revalidated.increment();
+        if (stored == null || stored.isIdle(now, IDLE_TIMEOUT_MILLIS)) {
+            endedElsewhere.increment();
+            return false;
+        }
+        session.setAttribute(SESSION_CHECKED_AT, now);
+        pendingTouches.put(key, now);
+        return true;
+    }
+
+    /**
+     * Record a data write in the stored session, for the read-your-writes pin on other nodes
+     */
+    public static void recordWrite(HttpSession session, long writeMillis) {
+        String key = (String) session.getAttribute(SESSION_KEY);
+        if (key == null) {
+            return;
+        }
+        try {
+            store.recordWrite(key, writeMillis);
+            writesRecorded.increment();
+        } catch (IOException e) {
+            storeErrors.increment();
+            logger.warn("Could not record session write time: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Time of the user's last data write on any node
+     * @return Time in milliseconds, or 0 if there was none or the store is unavailable
+     */
+    public static long getLastWriteTime(HttpSession session) {
+        String key = (String) session.getAttribute(SESSION_KEY);
+        if (key == null) {
+            return 0;
+        }
+        try {
+            return store.loadLastWrite(key);
+        } catch (IOException e) {
+            storeErrors.increment();
+            logger.warn("Could not load session write time: {}", e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Remove the session from the store and clear the cookie (logout)
+     */
+    public static void end(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        String key = session != null ? (String) session.getAttribute(SESSION_KEY) : null;
+        if (key == null) {
+            String token = readToken(request);
+            key = token != null ? keyOf(token) : null;
+        }
+        if (key != null) {
+            pendingTouches.remove(key);
+            try {
+                store.delete(key);
+            } catch (IOException e) {
+                storeErrors.increment();
+                logger.error("Could not delete session from the session store", e);
+            }
+        }
+        if (response != null) {
+            response.addCookie(sessionCookie(request, "", 0));
+        }
+    }
+
+    /**
+     * Write the buffered access times in one batch
+     */
+    public static void flushTouches() {
+        if (store == null || pendingTouches.isEmpty()) {
+            return;
+        }
+        Map<String, Long> batch = new HashMap<>(pendingTouches);
+        // Entries that received a later access while copying stay for the next flush
+        batch.forEach((key, time) -> pendingTouches.remove(key, time));
+        try {
+            store.touch(batch);
+            touchesWritten.add(batch.size());
+        } catch (IOException e) {
+            storeErrors.increment();
+            logger.warn("Could not write session access times, retrying later: {}", e.getMessage());
+            // Put them back unless a later access was queued meanwhile
+            batch.forEach((key, time) -> pendingTouches.merge(key, time, Math::max));
+        }
+    }
+
+    /**
+     * Remove sessions idle longer than the session timeout
+     */
+    public static void purgeIdle() {
+        try {
+            int removed = store.deleteIdleSince(System.currentTimeMillis() - IDLE_TIMEOUT_MILLIS);
+            if (removed > 0) {
+                logger.info("Removed {} idle sessions from the session store", removed);
+            }
+        } catch (IOException e) {
+            storeErrors.increment();
+            logger.error("Could not purge idle sessions", e);
+        }
+    }
+
+    /**
+     * Write pending access times (called on application shutdown, before the connection pool is closed)
+     */
+    public static void shutdown() {
+        flushTouches();
+    }
+
+    /**
+     * Build a snapshot of the session store metrics, suitable for JSON serialization
+     */
+    public static Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store", store != null ? store.getName() : "none");
+        stats.put("created", created.sum());
+        stats.put("restored", restored.sum());
+        stats.put("revalidated", revalidated.sum());
+        stats.put("endedElsewhere", endedElsewhere.sum());
+        stats.put("pendingTouches", pendingTouches.size());
+        stats.put("touchesWritten", touchesWritten.sum());
+        stats.put("writesRecorded", writesRecorded.sum());
+        stats.put("storeErrors", storeErrors.sum());
+        return stats;
+    }
+
+    private static SessionStore createStore() {
+        String type = DatabaseConnection.getConfigProperty("session.store", "none").trim().toLowerCase();
+        try {
+            switch (type) {
+                case "jdbc":
+                    return new JdbcSessionStore();
+                case "file":
+                    return new FileSessionStore(Paths.get(DatabaseConnection.getConfigProperty("session.store.dir",
+                        Paths.get(System.getProperty("user.home"), "chms", "sessions").toString())));
+                case "none":
+                case "":
+                    return null;
+                default:
+                    logger.warn("Unknown session.store '{}', using container sessions only", type);
+                    return null;
+            }
+        } catch (IOException e) {
+            logger.error("Could not open the " + type + " session store, using container sessions only", e);
+            return null;
+        }
+    }
+
+    private static String readToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static Cookie sessionCookie(HttpServletRequest request, String value, int maxAge) {
+        Cookie cookie = new Cookie(COOKIE_NAME, value);
+        cookie.setPath(request.getContextPath().isEmpty() ? "/" : request.getContextPath());
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setAttribute("SameSite", "Lax");
+        cookie.setMaxAge(maxAge);
+        return cookie;
+    }
+
+    /**
+     * Store key of a token: the store never holds a usable cookie value
+     */
+    private static String keyOf(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.chms.session;
+
+import com.chms.model.SessionPrincipal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Session store keeping one small file per session in a directory
+ * For local testing of multi-node setups (several instances on one host, or a shared
+ * directory). File layout: created at (8 bytes), last access at (8), last write at (8),
+ * binary principal. Access and write times are updated in place, without rewriting the
+ * file, and only ever move forward.
+ */
+public class FileSessionStore implements SessionStore {
+
+    private static final String SUFFIX = ".session";
+    private static final int HEADER_BYTES = 24;
+    private static final int LAST_ACCESS_OFFSET = 8;
+    private static final int LAST_WRITE_OFFSET = 16;
+
+    private final Path directory;
+
+    public FileSessionStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public void save(String key, StoredSession session) throws IOException {
+        byte[] principal = session.getPrincipal().toBytes();
+        ByteBuffer content = ByteBuffer.allocate(HEADER_BYTES + principal.length)
+                .putLong(session.getCreatedAt())
+                .putLong(session.getLastAccessAt())
+                .putLong(0)
+                .put(principal);
+
+        // Write then rename, so other nodes never read a partly written file
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+        try {
+            Files.write(temp, content.array());
+            Files.move(temp, fileOf(key), StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public StoredSession load(String key) throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(fileOf(key));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (content.length < HEADER_BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(content);
+        long createdAt = buffer.getLong();
+        long lastAccessAt = buffer.getLong();
+        buffer.getLong();
+        byte[] principal = new byte[content.length - HEADER_BYTES];
+        buffer.get(principal);
+        try {
+            return new StoredSession(SessionPrincipal.fromBytes(principal), createdAt, lastAccessAt);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt session file for key " + key, e);
+        }
+    }
+
+    @Override
+    public void touch(Map<String, Long> lastAccessByKey) throws IOException {
+        ByteBuffer time = ByteBuffer.allocate(8);
+        for (Map.Entry<String, Long> entry : lastAccessByKey.entrySet()) {
+            advance(entry.getKey(), LAST_ACCESS_OFFSET, entry.getValue(), time);
+        }
+    }
+
+    @Override
+    public void recordWrite(String key, long writeMillis) throws IOException {
+        advance(key, LAST_WRITE_OFFSET, writeMillis, ByteBuffer.allocate(8));
+    }
+
+    @Override
+    public long loadLastWrite(String key) throws IOException {
+        ByteBuffer time = ByteBuffer.allocate(8);
+        try (FileChannel channel = FileChannel.open(fileOf(key), StandardOpenOption.READ)) {
+            return channel.read(time, LAST_WRITE_OFFSET) == 8 ? time.getLong(0) : 0;
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(fileOf(key));
+    }
+
+    @Override
+    public int deleteIdleSince(long cutoffMillis) throws IOException {
+        int deleted = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    header.clear();
+                    if (channel.read(header, 0) < HEADER_BYTES || header.getLong(LAST_ACCESS_OFFSET) >= cutoffMillis) {
+                        continue;
+                    }
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                if (Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    /**
+     * Set a time field of a session file in place, unless it already holds a later time
+     * (another node may have written one); a file removed meanwhile is skipped
+     */
+    private void advance(String key, int offset, long value, ByteBuffer time) throws IOException {
+        try (FileChannel channel = FileChannel.open(fileOf(key), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock(offset, 8, false);
+            try {
+                time.clear();
+                if (channel.read(time, offset) == 8 && time.getLong(0) >= value) {
+                    return;
+                }
+                time.clear();
+                time.putLong(value).flip();
+                channel.write(time, offset);
+            } finally {
+                lock.release();
+            }
+        } catch (NoSuchFileException e) {
+            // Logged out or expired in the meantime
+        }
+    }
+
+    private Path fileOf(String key) {
+        // Keys are base64url digests, so they are safe file names
+        return directory.resolve(key + SUFFIX);
+    }
+}
@@ -0,0 +1,162 @@
+package com.chms.session;
+
+import com.chms.model.SessionPrincipal;
+import com.chms.util.DatabaseConnection;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Session store backed by the user_sessions table on the primary database
+ * Sessions of a deleted user are removed with the user (ON DELETE CASCADE).
+ */
+public class JdbcSessionStore implements SessionStore {
+
+    @Override
+    public void save(String key, StoredSession session) throws IOException {
+        String sql = "INSERT INTO user_sessions (session_key, user_id, principal, created_at, last_access_at) " +
+                    "VALUES (?, ?, ?, ?, ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, key);
+            pstmt.setInt(2, session.getPrincipal().getUserId());
+            pstmt.setBytes(3, session.getPrincipal().toBytes());
+            pstmt.setTimestamp(4, new Timestamp(session.getCreatedAt()));
+            pstmt.setTimestamp(5, new Timestamp(session.getLastAccessAt()));
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new IOException("Error saving session", e);
+        }
+    }
+
+    @Override
+    public StoredSession load(String key) throws IOException {
+        // Always the primary: a session created a moment ago on another node must be visible
+        String sql = "SELECT principal, created_at, last_access_at FROM user_sessions WHERE session_key = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    return new StoredSession(SessionPrincipal.fromBytes(rs.getBytes("principal")),
+                                             rs.getTimestamp("created_at").getTime(),
+                                             rs.getTimestamp("last_access_at").getTime());
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new IOException("Error loading session", e);
+        }
+        return null;
+    }
+
+    @Override
+    public void touch(Map<String, Long> lastAccessByKey) throws IOException {
+        if (lastAccessByKey.isEmpty()) {
+            return;
+        }
+        // Never move last_access_at backwards (another node may have flushed a later access)
+        String sql = "UPDATE user_sessions SET last_access_at = ? WHERE session_key = ? AND last_access_at < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            for (Map.Entry<String, Long> entry : lastAccessByKey.entrySet()) {
+                Timestamp lastAccess = new Timestamp(entry.getValue());
+                pstmt.setTimestamp(1, lastAccess);
+                pstmt.setString(2, entry.getKey());
+                pstmt.setTimestamp(3, lastAccess);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+
+        } catch (SQLException e) {
+            throw new IOException("Error updating session access times", e);
+        }
+    }
+
+    @Override
+    public void recordWrite(String key, long writeMillis) throws IOException {
+        String sql = "UPDATE user_sessions SET last_write_at = ? " +
+                    "WHERE session_key = ? AND (last_write_at IS NULL OR last_write_at < ?)";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            Timestamp lastWrite = new Timestamp(writeMillis);
+            pstmt.setTimestamp(1, lastWrite);
+            pstmt.setString(2, key);
+            pstmt.setTimestamp(3, lastWrite);
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new IOException("Error recording session write", e);
+        }
+    }
+
+    @Override
+    public long loadLastWrite(String key) throws IOException {
+        String sql = "SELECT last_write_at FROM user_sessions WHERE session_key = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, key);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    Timestamp lastWrite = rs.getTimestamp("last_write_at");
+                    return lastWrite != null ? lastWrite.getTime() : 0;
+                }
+            }
+
+        } catch (SQLException e) {
+            throw new IOException("Error loading session write time", e);
+        }
+        return 0;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        String sql = "DELETE FROM user_sessions WHERE session_key = ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, key);
+            pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new IOException("Error deleting session", e);
+        }
+    }
+
+    @Override
+    public int deleteIdleSince(long cutoffMillis) throws IOException {
+        String sql = "DELETE FROM user_sessions WHERE last_access_at < ?";
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setTimestamp(1, new Timestamp(cutoffMillis));
+            return pstmt.executeUpdate();
+
+        } catch (SQLException e) {
+            throw new IOException("Error deleting idle sessions", e);
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "jdbc";
+    }
+}
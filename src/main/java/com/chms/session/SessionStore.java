@@ -0,0 +1,59 @@
+package com.chms.session;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Storage for logged-in sessions shared by all application nodes
+ * Sessions are identified by a key derived from the session cookie (never the cookie itself).
+ * Methods throw IOException when the store cannot be reached, so callers can tell
+ * "no such session" (null) apart from an outage.
+ */
+public interface SessionStore {
+
+    /**
+     * Store a new session
+     */
+    void save(String key, StoredSession session) throws IOException;
+
+    /**
+     * Load a session
+     * @return The session, or null if there is none for the key
+     */
+    StoredSession load(String key) throws IOException;
+
+    /**
+     * Record the last access time of several sessions at once (write-behind flush)
+     * @param lastAccessByKey Last access time in milliseconds, by session key
+     */
+    void touch(Map<String, Long> lastAccessByKey) throws IOException;
+
+    /**
+     * Record the time of the user's last data write (written through, as the next request
+     * may be served by another node); never moves the time back
+     */
+    void recordWrite(String key, long writeMillis) throws IOException;
+
+    /**
+     * Load the time of the user's last data write
+     * @return Time in milliseconds, or 0 if there was none or the session does not exist
+     */
+    long loadLastWrite(String key) throws IOException;
+
+    /**
+     * Remove a session (logout)
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Remove sessions not accessed since the cutoff
+     * @param cutoffMillis Sessions last accessed before this time are removed
+     * @return Number of sessions removed
+     */
+    int deleteIdleSince(long cutoffMillis) throws IOException;
+
+    /**
+     * Name used in logs and metrics
+     */
+    String getName();
+}
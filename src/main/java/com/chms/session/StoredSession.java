@@ -0,0 +1,41 @@
+package com.chms.session;
+
+import com.chms.model.SessionPrincipal;
+
+/**
+ * A session as kept in a SessionStore
+ */
+public final class StoredSession {
+
+    // Fields
+    private final SessionPrincipal principal;
+    private final long createdAt;
+    private final long lastAccessAt;
+
+    // Constructors
+    public StoredSession(SessionPrincipal principal, long createdAt, long lastAccessAt) {
+        this.principal = principal;
+        this.createdAt = createdAt;
+        this.lastAccessAt = lastAccessAt;
+    }
+
+    // Getters
+    public SessionPrincipal getPrincipal() {
+        return principal;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccessAt() {
+        return lastAccessAt;
+    }
+
+    /**
+     * Whether the session has been idle longer than the timeout
+     */
+    public boolean isIdle(long now, long idleTimeoutMillis) {
+        return now - lastAccessAt > idleTimeoutMillis;
+    }
+}
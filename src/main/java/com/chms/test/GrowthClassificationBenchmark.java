@@ -0,0 +1,114 @@
+package com.chms.test;
+
+import com.chms.model.Child;
+import com.chms.model.HealthRecord;
+import com.chms.service.GrowthStandards;
+import com.chms.service.HealthRecordService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures growth classification speed: single z-score lookups and bulk classification
+ *
+ * Classifies random measurements of children aged 0-60 months, first one call at a time
+ * (GrowthStandards.classify) and then a list of health records as a clinic-day upload
+ * would (HealthRecordService.classify, which only classifies when the tables are exact).
+ * No database needed.
+ *
+ *   java -cp target/classes:<dependencies> com.chms.test.GrowthClassificationBenchmark
+ */
+public class GrowthClassificationBenchmark {
+
+    private static final int SAMPLES = 100000;
+    private static final int ROUNDS = 20;
+
+    public static void main(String[] args) {
+        System.out.println("=".repeat(80));
+        System.out.println("CHILD HEALTH MONITORING SYSTEM - GROWTH CLASSIFICATION BENCHMARK");
+        System.out.println("=".repeat(80));
+        System.out.println();
+
+        System.out.println("Tables exact (automatic classification enabled): " + GrowthStandards.isExact());
+        System.out.println();
+
+        System.out.println("Reference checks:");
+        printLookup("Boy, 12 months, 9.65 kg (median)", GrowthStandards.weightForAgeZ(Child.Gender.MALE, 12, 9.65));
+        printLookup("Girl, 24 months, 78.0 cm", GrowthStandards.heightForAgeZ(Child.Gender.FEMALE, 24, 78.0));
+        printLookup("Boy, 12 months, 80.0 cm, 8.9 kg", GrowthStandards.weightForHeightZ(Child.Gender.MALE, 12, 80.0, 8.9));
+        printLookup("Girl, 36 months, 90.0 cm, 16.5 kg", GrowthStandards.weightForHeightZ(Child.Gender.FEMALE, 36, 90.0, 16.5));
+        System.out.println();
+
+        Random random = new Random(42);
+        Child.Gender[] sexes = new Child.Gender[SAMPLES];
+        int[] ages = new int[SAMPLES];
+        double[] weights = new double[SAMPLES];
+        double[] heights = new double[SAMPLES];
+        List<HealthRecord> records = new ArrayList<>(SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            sexes[i] = random.nextBoolean() ? Child.Gender.MALE : Child.Gender.FEMALE;
+            ages[i] = random.nextInt(GrowthStandards.MAX_AGE_MONTHS + 1);
+            // Roughly median size for the age, spread wide enough to hit every status
+            int firstYear = Math.min(ages[i], 12);
+            int later = ages[i] - firstYear;
+            heights[i] = (50 + firstYear * 2.14 + later * 0.72) * (1 + random.nextGaussian() * 0.04);
+            weights[i] = (3.3 + firstYear * 0.53 + later * 0.18) * (1 + random.nextGaussian() * 0.12);
+            records.add(new HealthRecord(1, 0, null, ages[i], weights[i], heights[i], null));
+        }
+
+        // Warm up so the JIT compiles both paths before measuring
+        int[] counts = new int[HealthRecord.GrowthStatus.values().length];
+        for (int round = 0; round < 5; round++) {
+            classifySingle(sexes, ages, weights, heights, counts);
+            classifyBulk(records, sexes);
+        }
+
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            counts = new int[counts.length];
+            long start = System.nanoTime();
+            classifySingle(sexes, ages, weights, heights, counts);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("Single classification:        %,.1f ns/op (%,.0f ops/sec)%n",
+                          (double) best / SAMPLES, SAMPLES * 1e9 / best);
+
+        best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            classifyBulk(records, sexes);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("Bulk (%,d health records):  %,.2f ms (%,.1f ns/record)%n",
+                          SAMPLES, best / 1e6, (double) best / SAMPLES);
+        System.out.println();
+
+        System.out.println("Status distribution of the sample:");
+        for (HealthRecord.GrowthStatus status : HealthRecord.GrowthStatus.values()) {
+            System.out.printf("  %-12s %,d%n", status, counts[status.ordinal()]);
+        }
+    }
+
+    private static void classifySingle(Child.Gender[] sexes, int[] ages, double[] weights, double[] heights,
+                                       int[] counts) {
+        for (int i = 0; i < SAMPLES; i++) {
+            HealthRecord.GrowthStatus status = GrowthStandards.classify(sexes[i], ages[i], weights[i], heights[i]);
+            if (status != null) {
+                counts[status.ordinal()]++;
+            }
+        }
+    }
+
+    private static void classifyBulk(List<HealthRecord> records, Child.Gender[] sexes) {
+        for (int i = 0; i < records.size(); i++) {
+            // An entered status is kept, so clear the one set by the previous round
+            records.get(i).setGrowthStatus(null);
+            HealthRecordService.classify(records.get(i), sexes[i]);
+        }
+    }
+
+    private static void printLookup(String label, double z) {
+        System.out.printf("  %-34s z = %6.2f  percentile = %5.1f%n", label, z, GrowthStandards.percentile(z));
+    }
+}
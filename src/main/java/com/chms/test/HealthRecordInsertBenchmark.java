@@ -0,0 +1,160 @@
+package com.chms.test;
+
+import com.chms.dao.HealthRecordDAO;
+import com.chms.model.HealthRecord;
+import com.chms.util.DatabaseConnection;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures health record insert throughput: one INSERT per record vs one batched insert
+ *
+ * Every fifth record has an abnormal growth status, so the after_health_record_insert
+ * trigger runs for part of the rows; the test checks that each of them got its growth
+ * alert. All inserted records (and their alerts) are deleted afterwards.
+ *
+ * Needs a database with at least one child. Arguments: child ID (default 1), rows (default 1000)
+ *   java -cp target/classes:<dependencies> com.chms.test.HealthRecordInsertBenchmark 1 1000
+ */
+public class HealthRecordInsertBenchmark {
+
+    private static final HealthRecord.GrowthStatus[] STATUSES = HealthRecord.GrowthStatus.values();
+
+    public static void main(String[] args) {
+        int childId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        System.out.println("=".repeat(80));
+        System.out.println("CHILD HEALTH MONITORING SYSTEM - HEALTH RECORD INSERT BENCHMARK");
+        System.out.println("=".repeat(80));
+        System.out.println();
+
+        // Test database connection
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            System.out.println("✓ Database connection successful!");
+            System.out.println("Database URL: " + conn.getMetaData().getURL());
+            System.out.println();
+        } catch (SQLException e) {
+            System.err.println("✗ Database connection failed: " + e.getMessage());
+            return;
+        }
+
+        HealthRecordDAO healthRecordDAO = new HealthRecordDAO();
+
+        // Warm up the pool and statement caches
+        List<HealthRecord> warmUp = sampleRecords(childId, 50);
+        if (!healthRecordDAO.createHealthRecords(warmUp)) {
+            System.err.println("✗ Insert failed - does child ID " + childId + " exist?");
+            return;
+        }
+        deleteRecords(warmUp);
+
+        // One INSERT (and commit) per record
+        List<HealthRecord> single = sampleRecords(childId, rows);
+        long start = System.nanoTime();
+        for (HealthRecord record : single) {
+            if (healthRecordDAO.createHealthRecord(record) == null) {
+                System.err.println("✗ Single insert failed");
+                deleteRecords(single);
+                return;
+            }
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        // One transaction, batched multi-row INSERTs
+        List<HealthRecord> batch = sampleRecords(childId, rows);
+        start = System.nanoTime();
+        boolean batchCreated = healthRecordDAO.createHealthRecords(batch);
+        long batchNanos = System.nanoTime() - start;
+
+        if (!batchCreated) {
+            System.err.println("✗ Batch insert failed");
+            deleteRecords(single);
+            return;
+        }
+
+        System.out.printf("Rows per run:                 %,d%n", rows);
+        System.out.printf("Single inserts:               %,.0f rows/sec (%,.1f ms)%n",
+                          rowsPerSecond(rows, singleNanos), singleNanos / 1e6);
+        System.out.printf("Batched insert:               %,.0f rows/sec (%,.1f ms)%n",
+                          rowsPerSecond(rows, batchNanos), batchNanos / 1e6);
+        System.out.printf("Speed-up:                     %.1fx%n", (double) singleNanos / batchNanos);
+        System.out.println();
+
+        // Every abnormal record must have raised exactly one growth alert
+        int expectedAlerts = 0;
+        for (HealthRecord record : batch) {
+            if (record.getGrowthStatus() != HealthRecord.GrowthStatus.NORMAL) {
+                expectedAlerts++;
+            }
+        }
+        int alerts = countAlerts(batch);
+        if (alerts == expectedAlerts) {
+            System.out.println("✓ Trigger fired for every abnormal record of the batch (" + alerts + " alerts)");
+        } else {
+            System.out.println("✗ Expected " + expectedAlerts + " growth alerts for the batch, found " + alerts);
+        }
+
+        deleteRecords(single);
+        deleteRecords(batch);
+        System.out.println("✓ Benchmark records deleted");
+    }
+
+    private static List<HealthRecord> sampleRecords(int childId, int count) {
+        List<HealthRecord> records = new ArrayList<>(count);
+        Date today = new Date(System.currentTimeMillis());
+        for (int i = 0; i < count; i++) {
+            // Every fifth record abnormal, cycling through the abnormal statuses
+            HealthRecord.GrowthStatus status = i % 5 == 0
+                ? STATUSES[1 + (i / 5) % (STATUSES.length - 1)]
+                : HealthRecord.GrowthStatus.NORMAL;
+            HealthRecord record = new HealthRecord(childId, 0, today, 12, 9.5 + (i % 10) * 0.1, 75.0, status);
+            record.setTemperature(36.8);
+            record.setHealthNotes("Insert benchmark");
+            records.add(record);
+        }
+        return records;
+    }
+
+    private static double rowsPerSecond(int rows, long nanos) {
+        return rows * 1e9 / nanos;
+    }
+
+    private static int countAlerts(List<HealthRecord> records) {
+        String sql = "SELECT COUNT(*) FROM growth_alerts WHERE record_id BETWEEN ? AND ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, records.get(0).getRecordId());
+            pstmt.setInt(2, records.get(records.size() - 1).getRecordId());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            System.err.println("✗ Could not count growth alerts: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static void deleteRecords(List<HealthRecord> records) {
+        // Growth alerts go with their records (ON DELETE CASCADE)
+        String sql = "DELETE FROM health_records WHERE record_id = ?";
+        try (Connection conn = DatabaseConnection.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (HealthRecord record : records) {
+                if (record.getRecordId() > 0) {
+                    pstmt.setInt(1, record.getRecordId());
+                    pstmt.addBatch();
+                }
+            }
+            pstmt.executeBatch();
+        } catch (SQLException e) {
+            System.err.println("✗ Could not delete benchmark records: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.chms.test;
+
+import com.chms.model.SessionPrincipal;
+import com.chms.model.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures the session memory used per logged-in user
+ *
+ * Compares the old session layout (full User plus user ID, role and name attributes)
+ * with the SessionPrincipal layout, for 10,000 sessions. Each session's attributes
+ * are held in a ConcurrentHashMap, as the servlet container does. No database needed.
+ *
+ * Run with a fixed heap for stable numbers, e.g.:
+ *   java -Xms512m -Xmx512m -cp target/classes com.chms.test.SessionMemoryBenchmark
+ */
+public class SessionMemoryBenchmark {
+
+    private static final int SESSIONS = 10000;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("=".repeat(80));
+        System.out.println("CHILD HEALTH MONITORING SYSTEM - SESSION MEMORY BENCHMARK");
+        System.out.println("=".repeat(80));
+        System.out.println();
+
+        // Warm up so class loading does not count towards the first measurement
+        measure(false, 1000);
+        measure(true, 1000);
+
+        long fullUserBytes = measure(false, SESSIONS);
+        long principalBytes = measure(true, SESSIONS);
+
+        System.out.printf("Sessions:                     %,d%n", SESSIONS);
+        System.out.printf("Full User layout:             %,d bytes (%,d per session)%n",
+                          fullUserBytes, fullUserBytes / SESSIONS);
+        System.out.printf("SessionPrincipal layout:      %,d bytes (%,d per session)%n",
+                          principalBytes, principalBytes / SESSIONS);
+        System.out.printf("Saved per 10k sessions:       %,d bytes (%.1f%%)%n",
+                          fullUserBytes - principalBytes,
+                          100.0 * (fullUserBytes - principalBytes) / fullUserBytes);
+        System.out.println();
+
+        SessionPrincipal principal = SessionPrincipal.of(sampleUser(1));
+        System.out.printf("Serialized SessionPrincipal:  %,d bytes (Java serialization, incl. class descriptor)%n",
+                          serializedSize(principal));
+        System.out.printf("Binary SessionPrincipal:      %,d bytes (session store encoding)%n",
+                          principal.toBytes().length);
+        System.out.println("(User is not Serializable, so the old layout could not be replicated at all)");
+    }
+
+    /**
+     * Heap retained by the given number of sessions
+     */
+    private static long measure(boolean principalLayout, int count) {
+        long before = usedHeap();
+        List<Map<String, Object>> sessions = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> attributes = new ConcurrentHashMap<>();
+            User user = sampleUser(i);
+            if (principalLayout) {
+                attributes.put("principal", SessionPrincipal.of(user));
+            } else {
+                attributes.put("loggedInUser", user);
+                attributes.put("userId", user.getUserId());
+                attributes.put("userRole", user.getRole().name());
+                attributes.put("userName", user.getFullName());
+            }
+            attributes.put("lastWriteAt", System.currentTimeMillis());
+            sessions.add(attributes);
+        }
+        long after = usedHeap();
+        if (sessions.size() != count) {
+            throw new IllegalStateException();
+        }
+        // Includes the list of sessions, the same for both layouts
+        return after - before;
+    }
+
+    private static User sampleUser(int id) {
+        User user = new User("mother" + id + "@example.org",
+                             "$2a$12$" + "abcdefghijklmnopqrstuv".repeat(2) + String.format("%09d", id),
+                             "Mother Number " + id, "+25078" + String.format("%07d", id), User.Role.MOTHER);
+        user.setUserId(id);
+        user.setActive(true);
+        long now = System.currentTimeMillis();
+        user.setCreatedAt(new Timestamp(now));
+        user.setUpdatedAt(new Timestamp(now));
+        user.setLastLogin(new Timestamp(now));
+        return user;
+    }
+
+    private static int serializedSize(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        }
+        return bytes.size();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,202 @@
+package com.chms.util;
+
+import com.chms.dao.AuditLogDAO;
+import com.chms.model.AuditLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous Audit Log Writer
+ * Queues audit entries from request threads and inserts them in JDBC batches
+ * on a background thread, every BATCH_SIZE entries or FLUSH_INTERVAL_MS milliseconds.
+ *
+ * Backpressure: when the queue is full, submit() waits up to OFFER_TIMEOUT_MS for
+ * space and then writes the entry synchronously, so audit entries are never dropped.
+ */
+public class AuditLogWriter {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLogWriter.class);
+
+    private static final int QUEUE_CAPACITY = 10000;
+    private static final int BATCH_SIZE = 100;
+    private static final long FLUSH_INTERVAL_MS = 200;
+    private static final long OFFER_TIMEOUT_MS = 50;
+    private static final long SHUTDOWN_TIMEOUT_MS = 10000;
+
+    private static final AuditLogWriter instance = new AuditLogWriter(new AuditLogDAO());
+
+    private final AuditLogDAO auditLogDAO;
+    private final BlockingQueue<AuditLog> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    // Metrics
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder synchronousWrites = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    private final PoolMetrics.LatencyHistogram flushLatency = new PoolMetrics.LatencyHistogram();
+
+    private AuditLogWriter(AuditLogDAO auditLogDAO) {
+        this.auditLogDAO = auditLogDAO;
+        this.worker = new Thread(this::drainLoop, "chms-audit-writer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public static AuditLogWriter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Queue an audit entry for writing. The event time is captured now, so the stored
+     * created_at does not depend on when the batch is flushed.
+     * @param auditLog Entry to write
+     */
+    public void submit(AuditLog auditLog) {
+        if (auditLog.getCreatedAt() == null) {
+            auditLog.setCreatedAt(new Timestamp(System.currentTimeMillis()));
+        }
+        submitted.increment();
+
+        if (running) {
+            try {
+                if (queue.offer(auditLog, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                    maxQueueDepth.accumulate(queue.size());
+                    return;
+                }
+                logger.warn("Audit log queue full ({} entries), writing synchronously", QUEUE_CAPACITY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Queue full or writer stopped: write on the caller's thread
+        synchronousWrites.increment();
+        writeBatch(List.of(auditLog));
+    }
+
+    /**
+     * Stop accepting queued entries and write everything still in the queue
+     * (called on application shutdown, before the connection pool is closed)
+     */
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            // Worker did not finish in time: flush the remainder here
+            List<AuditLog> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            writeBatch(remaining);
+        }
+        logger.info("Audit log writer stopped - {}", summary());
+    }
+
+    /**
+     * Build a snapshot of the writer metrics, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("maxQueueDepth", maxQueueDepth.get());
+        stats.put("queueCapacity", QUEUE_CAPACITY);
+        stats.put("submitted", submitted.sum());
+        stats.put("written", written.sum());
+        stats.put("failed", failed.sum());
+        stats.put("synchronousWrites", synchronousWrites.sum());
+        stats.put("batches", batches.sum());
+        stats.put("flushLatency", flushLatency.toMap());
+        return stats;
+    }
+
+    /**
+     * One-line summary for log output
+     */
+    public String summary() {
+        return String.format(
+            "Submitted: %d, Written: %d, Failed: %d, Synchronous: %d, Batches: %d, Flush mean/max: %.2f/%.2f ms",
+            submitted.sum(), written.sum(), failed.sum(), synchronousWrites.sum(), batches.sum(),
+            flushLatency.meanMillis(), flushLatency.maxMillis());
+    }
+
+    /**
+     * Collect entries until the batch is full or the flush interval since the
+     * first entry has passed, then write them
+     */
+    private void drainLoop() {
+        List<AuditLog> batch = new ArrayList<>(BATCH_SIZE);
+        while (running || !queue.isEmpty()) {
+            try {
+                AuditLog first = queue.poll(FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS);
+                while (batch.size() < BATCH_SIZE && running) {
+                    queue.drainTo(batch, BATCH_SIZE - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= BATCH_SIZE || remaining <= 0) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, BATCH_SIZE - batch.size());
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in audit log writer", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Insert a batch; if the batch fails, retry the entries one by one so a
+     * single bad entry does not lose the rest
+     */
+    private void writeBatch(List<AuditLog> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (auditLogDAO.createAuditLogs(batch)) {
+            written.add(batch.size());
+        } else if (batch.size() > 1) {
+            for (AuditLog auditLog : batch) {
+                if (auditLogDAO.createAuditLogs(List.of(auditLog))) {
+                    written.increment();
+                } else {
+                    failed.increment();
+                }
+            }
+        } else {
+            failed.increment();
+        }
+        batches.increment();
+        flushLatency.record(System.nanoTime() - start);
+    }
+}
@@ -1,23 +1,52 @@
 package com.chms.util;
 
 import org.apache.commons.dbcp2.BasicDataSource;
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.impl.DefaultEvictionPolicy;
+import org.apache.commons.pool2.impl.EvictionConfig;
+import org.apache.commons.pool2.impl.GenericObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Database Connection Manager using Apache Commons DBCP Connection Pooling
- * This class provides thread-safe database connections for the CHMS application
+ * This class provides thread-safe database connections for the CHMS application.
+ * Writes always use the primary pool; read-only DAO methods may use the optional
+ * read-replica pool via {@link #getReadConnection()}.
  */
 public class DatabaseConnection {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseConnection.class);
-    private static BasicDataSource dataSource;
+    private static InstrumentedDataSource dataSource;
+    private static InstrumentedDataSource replicaDataSource;
+    private static InstrumentedDataSource streamingDataSource;
+    private static ScheduledExecutorService scheduler;
+    
+    // Replica lag tracking
+    private static int replicaMaxLagSeconds;
+    private static long readYourWritesWindowMillis;
+    private static volatile long replicaLagSeconds = -1;
+    private static volatile boolean replicaHealthy;
+    
+    // Set for the duration of a request that must read its own writes
+    private static final ThreadLocal<Boolean> primaryReadPin = new ThreadLocal<>();
+    
+    // Settings from database.properties, also read by background jobs
+    private static Properties config;
     
     // Static block to initialize the connection pool
     static {
@@ -31,36 +60,126 @@ public class DatabaseConnection {
     }
     
     /**
-     * Initialize the database connection pool
+     * Initialize the primary connection pool and, when db.replica.url is set, the replica pool
      */
     private static void initializeDataSource() throws IOException {
         Properties props = loadDatabaseProperties();
+        config = props;
         
-        dataSource = new BasicDataSource();
+        dataSource = createDataSource(props, "primary", "db.");
+        streamingDataSource = createStreamingDataSource(props);
+        
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chms-db-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        
+        String replicaUrl = props.getProperty("db.replica.url");
+        if (replicaUrl != null && !replicaUrl.trim().isEmpty()) {
+            replicaDataSource = createDataSource(props, "replica", "db.replica.");
+            replicaMaxLagSeconds = Integer.parseInt(props.getProperty("db.replica.maxLagSeconds", "5"));
+            readYourWritesWindowMillis = TimeUnit.SECONDS.toMillis(
+                Long.parseLong(props.getProperty("db.replica.readYourWritesSeconds", "10")));
+            int lagCheckInterval = Integer.parseInt(props.getProperty("db.replica.lagCheckIntervalSeconds", "5"));
+            checkReplicaLag();
+            scheduler.scheduleWithFixedDelay(DatabaseConnection::checkReplicaLag,
+                lagCheckInterval, lagCheckInterval, TimeUnit.SECONDS);
+            logger.info("Read replica configured: {}", replicaUrl);
+        }
+        
+        // Periodic pool metrics snapshots (0 disables logging)
+        int logInterval = Integer.parseInt(props.getProperty("db.metrics.logIntervalSeconds", "300"));
+        if (logInterval > 0) {
+            scheduler.scheduleAtFixedRate(DatabaseConnection::logPoolMetrics,
+                logInterval, logInterval, TimeUnit.SECONDS);
+        }
+    }
+    
+    /**
+     * Create a pooled data source. Keys are read with the given prefix and fall
+     * back to the primary "db." settings, so a replica only needs db.replica.url.
+     */
+    private static InstrumentedDataSource createDataSource(Properties props, String name, String prefix) {
+        InstrumentedDataSource ds = new InstrumentedDataSource();
         
         // Basic connection properties
-        dataSource.setDriverClassName(props.getProperty("db.driver"));
-        dataSource.setUrl(props.getProperty("db.url"));
-        dataSource.setUsername(props.getProperty("db.username"));
-        dataSource.setPassword(props.getProperty("db.password"));
+        ds.setDriverClassName(props.getProperty("db.driver"));
+        ds.setUrl(property(props, prefix, "url", null));
+        ds.setUsername(property(props, prefix, "username", null));
+        ds.setPassword(property(props, prefix, "password", null));
         
         // Connection pool configuration
-        dataSource.setInitialSize(Integer.parseInt(props.getProperty("db.initialSize", "5")));
-        dataSource.setMaxTotal(Integer.parseInt(props.getProperty("db.maxTotal", "10")));
-        dataSource.setMaxIdle(Integer.parseInt(props.getProperty("db.maxIdle", "5")));
-        dataSource.setMinIdle(Integer.parseInt(props.getProperty("db.minIdle", "2")));
-        dataSource.setMaxWaitMillis(Long.parseLong(props.getProperty("db.maxWaitMillis", "10000")));
-        
-        // Connection validation
-        dataSource.setValidationQuery("SELECT 1");
-        dataSource.setTestOnBorrow(true);
-        dataSource.setTestWhileIdle(true);
-        dataSource.setTimeBetweenEvictionRunsMillis(30000);
+        ds.setInitialSize(Integer.parseInt(property(props, prefix, "initialSize", "5")));
+        ds.setMaxTotal(Integer.parseInt(property(props, prefix, "maxTotal", "10")));
+        ds.setMaxIdle(Integer.parseInt(property(props, prefix, "maxIdle", "5")));
+        ds.setMinIdle(Integer.parseInt(property(props, prefix, "minIdle", "2")));
+        ds.setMaxWaitMillis(Long.parseLong(property(props, prefix, "maxWaitMillis", "10000")));
+        
+        // Connection validation: no validation query, so idle connections are
+        // checked with Connection.isValid() by the evictor instead of on every borrow
+        ds.setTestOnBorrow(false);
+        ds.setTestWhileIdle(true);
+        ds.setEvictionPolicyClassName(CountingEvictionPolicy.class.getName());
+        ds.setValidationQueryTimeout(5);
+        ds.setTimeBetweenEvictionRunsMillis(30000);
+        
+        // Per-connection prepared statement cache
+        ds.setPoolPreparedStatements(
+            Boolean.parseBoolean(property(props, prefix, "poolPreparedStatements", "true")));
+        ds.setMaxOpenPreparedStatements(
+            Integer.parseInt(property(props, prefix, "maxOpenPreparedStatements", "50")));
+        ds.setAccessToUnderlyingConnectionAllowed(true);
+        
+        // MySQL driver-side statement caching and server-side prepare
+        ds.addConnectionProperty("useServerPrepStmts", property(props, prefix, "useServerPrepStmts", "true"));
+        ds.addConnectionProperty("cachePrepStmts", property(props, prefix, "cachePrepStmts", "true"));
+        ds.addConnectionProperty("prepStmtCacheSize", property(props, prefix, "prepStmtCacheSize", "250"));
+        ds.addConnectionProperty("prepStmtCacheSqlLimit", property(props, prefix, "prepStmtCacheSqlLimit", "2048"));
+        // Send JDBC batches of INSERTs as multi-row INSERT statements (one round trip per batch)
+        ds.addConnectionProperty("rewriteBatchedStatements", property(props, prefix, "rewriteBatchedStatements", "true"));
         
         // Connection timeout settings
-        dataSource.setRemoveAbandonedOnBorrow(true);
-        dataSource.setRemoveAbandonedTimeout(60);
-        dataSource.setLogAbandoned(true);
+        ds.setRemoveAbandonedOnBorrow(true);
+        ds.setRemoveAbandonedTimeout(60);
+        ds.setLogAbandoned(true);
+        
+        // Pool instrumentation
+        ds.metrics = new PoolMetrics(name, ds.getRemoveAbandonedTimeout());
+        return ds;
+    }
+    
+    /**
+     * Create the small primary pool used for streamed result sets. A streamed result set keeps
+     * its connection for as long as the consumer (e.g. a slow download) takes, without the pool
+     * seeing any use of it, so abandoned connection removal is disabled for this pool.
+     */
+    private static InstrumentedDataSource createStreamingDataSource(Properties props) {
+        InstrumentedDataSource ds = createDataSource(props, "streaming", "db.streaming.");
+        ds.setInitialSize(0);
+        ds.setMinIdle(0);
+        ds.setMaxIdle(1);
+        ds.setMaxTotal(Integer.parseInt(props.getProperty("db.streaming.maxTotal", "4")));
+        ds.setRemoveAbandonedOnBorrow(false);
+        return ds;
+    }
+    
+    private static String property(Properties props, String prefix, String key, String defaultValue) {
+        String value = props.getProperty(prefix + key);
+        if (value == null) {
+            value = props.getProperty("db." + key, defaultValue);
+        }
+        return value;
+    }
+    
+    /**
+     * Read a setting from database.properties
+     * @param key Property key
+     * @param defaultValue Value returned when the key is not set
+     * @return Configured value or the default
+     */
+    public static String getConfigProperty(String key, String defaultValue) {
+        return config != null ? config.getProperty(key, defaultValue) : defaultValue;
     }
     
     /**
@@ -88,7 +207,7 @@ public class DatabaseConnection {
     }
     
     /**
-     * Get a connection from the pool
+     * Get a connection from the primary pool
      * @return Connection object
      * @throws SQLException if unable to get connection
      */
@@ -96,10 +215,135 @@ public class DatabaseConnection {
         if (dataSource == null) {
             throw new SQLException("DataSource is not initialized");
         }
-        
-        Connection conn = dataSource.getConnection();
-        logger.debug("Connection obtained from pool. Active connections: {}", dataSource.getNumActive());
-        return conn;
+        return dataSource.borrow();
+    }
+    
+    /**
+     * Fetch size that makes MySQL Connector/J stream a forward-only, read-only
+     * result set row by row instead of buffering it in memory.
+     * Use only with a connection from {@link #getStreamingConnection()}.
+     */
+    public static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+    
+    /**
+     * Get a primary connection for a streamed result set (exports, archiving, job scans).
+     * Its pool never reclaims a connection as abandoned, so a long stream is not cut off;
+     * at most db.streaming.maxTotal streams run at once.
+     * @return Connection object
+     * @throws SQLException if unable to get connection
+     */
+    public static Connection getStreamingConnection() throws SQLException {
+        if (streamingDataSource == null) {
+            throw new SQLException("DataSource is not initialized");
+        }
+        return streamingDataSource.borrow();
+    }
+    
+    /**
+     * Get a connection for a read-only query. Uses the replica pool when one is
+     * configured, its lag is within db.replica.maxLagSeconds and the current request
+     * is not pinned to the primary for read-your-writes; otherwise uses the primary.
+     * @return Connection object
+     * @throws SQLException if unable to get connection
+     */
+    public static Connection getReadConnection() throws SQLException {
+        if (replicaDataSource == null || !replicaHealthy || isReadPinnedToPrimary()) {
+            return getConnection();
+        }
+        try {
+            return replicaDataSource.borrow();
+        } catch (SQLException e) {
+            logger.warn("Replica unavailable, falling back to primary: {}", e.getMessage());
+            return getConnection();
+        }
+    }
+    
+    /**
+     * Route all reads on the current thread to the primary until {@link #clearPrimaryReadPin()}
+     */
+    public static void pinReadsToPrimary() {
+        primaryReadPin.set(Boolean.TRUE);
+    }
+    
+    /**
+     * Check whether reads on the current thread are pinned to the primary
+     */
+    public static boolean isReadPinnedToPrimary() {
+        return Boolean.TRUE.equals(primaryReadPin.get());
+    }
+    
+    /**
+     * Clear the read-your-writes pin for the current thread
+     */
+    public static void clearPrimaryReadPin() {
+        primaryReadPin.remove();
+    }
+    
+    /**
+     * Whether reads currently go to a replica (configured and healthy)
+     */
+    public static boolean isReplicaInUse() {
+        return replicaDataSource != null && replicaHealthy;
+    }
+    
+    /**
+     * Check whether a write made at the given time may not yet be visible on the replica
+     * @param lastWriteMillis Time of the last write (System.currentTimeMillis())
+     * @return true if reads should go to the primary
+     */
+    public static boolean requiresPrimaryRead(long lastWriteMillis) {
+        if (replicaDataSource == null) {
+            return false;
+        }
+        long window = Math.max(readYourWritesWindowMillis, TimeUnit.SECONDS.toMillis(Math.max(replicaLagSeconds, 0)));
+        return System.currentTimeMillis() - lastWriteMillis < window;
+    }
+    
+    /**
+     * Refresh the replica lag from SHOW REPLICA STATUS. A NULL lag (replication
+     * stopped) or a lag above the threshold marks the replica unhealthy.
+     * A server that is not configured as a replica reports no rows and is treated as current.
+     */
+    private static void checkReplicaLag() {
+        try (Connection conn = replicaDataSource.getConnection()) {
+            long lag = queryReplicaLag(conn);
+            replicaLagSeconds = lag;
+            boolean healthy = lag >= 0 && lag <= replicaMaxLagSeconds;
+            if (healthy != replicaHealthy) {
+                logger.info("Replica is now {} (lag: {}s)", healthy ? "in use" : "bypassed", lag);
+            }
+            replicaHealthy = healthy;
+        } catch (SQLException e) {
+            if (replicaHealthy) {
+                logger.warn("Replica lag check failed, routing reads to primary: {}", e.getMessage());
+            }
+            replicaLagSeconds = -1;
+            replicaHealthy = false;
+        }
+    }
+    
+    /**
+     * Read the replication delay in seconds, or -1 if replication is not running.
+     * Falls back to SHOW SLAVE STATUS on servers older than MySQL 8.0.22.
+     */
+    private static long queryReplicaLag(Connection conn) throws SQLException {
+        String column = "Seconds_Behind_Source";
+        try (Statement stmt = conn.createStatement()) {
+            ResultSet rs;
+            try {
+                rs = stmt.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLException e) {
+                column = "Seconds_Behind_Master";
+                rs = stmt.executeQuery("SHOW SLAVE STATUS");
+            }
+            try (ResultSet status = rs) {
+                if (!status.next()) {
+                    return 0;
+                }
+                Object value = status.getObject(column);
+                return value != null ? ((Number) value).longValue() : -1;
+            }
+        }
     }
     
     /**
@@ -110,7 +354,6 @@ public class DatabaseConnection {
         if (connection != null) {
             try {
                 connection.close();
-                logger.debug("Connection returned to pool. Active connections: {}", dataSource.getNumActive());
             } catch (SQLException e) {
                 logger.error("Error closing connection", e);
             }
@@ -121,6 +364,24 @@ public class DatabaseConnection {
      * Close the entire connection pool (should be called on application shutdown)
      */
     public static void closePool() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        if (streamingDataSource != null) {
+            try {
+                streamingDataSource.close();
+            } catch (SQLException e) {
+                logger.error("Error closing streaming connection pool", e);
+            }
+        }
+        if (replicaDataSource != null) {
+            try {
+                replicaDataSource.close();
+                logger.info("Replica connection pool closed successfully");
+            } catch (SQLException e) {
+                logger.error("Error closing replica connection pool", e);
+            }
+        }
         if (dataSource != null) {
             try {
                 dataSource.close();
@@ -140,12 +401,53 @@ public class DatabaseConnection {
             return "DataSource not initialized";
         }
         
-        return String.format(
+        String stats = String.format(
             "Connection Pool Stats - Active: %d, Idle: %d, Max: %d",
             dataSource.getNumActive(),
             dataSource.getNumIdle(),
             dataSource.getMaxTotal()
         );
+        if (replicaDataSource != null) {
+            stats += String.format(
+                " | Replica - Active: %d, Idle: %d, Max: %d, Lag: %ds, In use: %b",
+                replicaDataSource.getNumActive(),
+                replicaDataSource.getNumIdle(),
+                replicaDataSource.getMaxTotal(),
+                replicaLagSeconds,
+                replicaHealthy
+            );
+        }
+        return stats;
+    }
+    
+    /**
+     * Get detailed connection pool metrics (borrow wait, time held per caller,
+     * timeouts, abandoned connections, validation failures and statement cache hit rate)
+     * @return Ordered map suitable for JSON serialization
+     */
+    public static Map<String, Object> getPoolMetrics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        if (dataSource == null) {
+            return stats;
+        }
+        
+        stats.put("primary", dataSource.snapshot());
+        stats.put("streaming", streamingDataSource.snapshot());
+        if (replicaDataSource != null) {
+            Map<String, Object> replica = replicaDataSource.snapshot();
+            replica.put("lagSeconds", replicaLagSeconds);
+            replica.put("inUse", replicaHealthy);
+            stats.put("replica", replica);
+        }
+        return stats;
+    }
+    
+    private static void logPoolMetrics() {
+        logger.info("{} | {}", getPoolStats(), dataSource.metrics.summary());
+        logger.info(streamingDataSource.metrics.summary());
+        if (replicaDataSource != null) {
+            logger.info(replicaDataSource.metrics.summary());
+        }
     }
     
     /**
@@ -166,4 +468,72 @@ public class DatabaseConnection {
             return false;
         }
     }
+    
+    /**
+     * BasicDataSource that records borrow metrics and exposes the underlying pool's validation counters
+     */
+    private static class InstrumentedDataSource extends BasicDataSource {
+        private PoolMetrics metrics;
+        
+        Connection borrow() throws SQLException {
+            long start = System.nanoTime();
+            Connection conn;
+            try {
+                conn = getConnection();
+            } catch (SQLException e) {
+                metrics.recordBorrowFailure(e, System.nanoTime() - start);
+                throw e;
+            }
+            return metrics.recordBorrow(conn, System.nanoTime() - start);
+        }
+        
+        long getValidationFailureCount() {
+            GenericObjectPool<?> pool = getConnectionPool();
+            if (pool == null) {
+                return 0;
+            }
+            // The evictor destroys connections the policy evicts (idle timeouts) and those
+            // that fail idle validation; the difference is the validation failures
+            long failedIdleValidation = Math.max(0, pool.getDestroyedByEvictorCount() - getEvictedCount());
+            return pool.getDestroyedByBorrowValidationCount() + failedIdleValidation;
+        }
+        
+        long getEvictedCount() {
+            GenericObjectPool<?> pool = getConnectionPool();
+            return pool != null && pool.getEvictionPolicy() instanceof CountingEvictionPolicy
+                ? ((CountingEvictionPolicy<?>) pool.getEvictionPolicy()).getEvictedCount() : 0;
+        }
+        
+        Map<String, Object> snapshot() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", getNumActive());
+            stats.put("idle", getNumIdle());
+            stats.put("maxTotal", getMaxTotal());
+            stats.put("validationFailures", getValidationFailureCount());
+            stats.put("evictedIdle", getEvictedCount());
+            stats.putAll(metrics.snapshot());
+            return stats;
+        }
+    }
+    
+    /**
+     * Default idle eviction policy that counts the connections it evicts, so idle timeouts can
+     * be told apart from idle validation failures (public, as the pool instantiates it by name)
+     */
+    public static class CountingEvictionPolicy<T> extends DefaultEvictionPolicy<T> {
+        private final LongAdder evicted = new LongAdder();
+        
+        @Override
+        public boolean evict(EvictionConfig config, PooledObject<T> underTest, int idleCount) {
+            boolean evict = super.evict(config, underTest, idleCount);
+            if (evict) {
+                evicted.increment();
+            }
+            return evict;
+        }
+        
+        long getEvictedCount() {
+            return evicted.sum();
+        }
+    }
 }
@@ -96,9 +96,21 @@ public class DateTimeUtil {
             return 0;
         }
         
-        LocalDate birthDate = dateOfBirth.toLocalDate();
-        LocalDate currentDate = LocalDate.now();
-        Period period = Period.between(birthDate, currentDate);
+        return calculateAgeInMonths(dateOfBirth, Date.valueOf(LocalDate.now()));
+    }
+    
+    /**
+     * Calculate age in completed months on a given date
+     * @param dateOfBirth Date of birth
+     * @param onDate Date to calculate the age on (e.g. an assessment date)
+     * @return Age in months
+     */
+    public static int calculateAgeInMonths(Date dateOfBirth, Date onDate) {
+        if (dateOfBirth == null || onDate == null) {
+            return 0;
+        }
+        
+        Period period = Period.between(dateOfBirth.toLocalDate(), onDate.toLocalDate());
         
         return period.getYears() * 12 + period.getMonths();
     }
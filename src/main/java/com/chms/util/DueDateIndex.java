@@ -0,0 +1,124 @@
+package com.chms.util;
+
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory calendar of items ordered by due date, each belonging to an owner
+ * (e.g. vaccinations of a child). Finding everything due up to a date is a walk over
+ * the head of a sorted map, independent of how many later items there are.
+ *
+ * Entries are keyed by due day and item ID packed into one long, so items due the
+ * same day stay distinct and are visited in ID order. Item IDs must be positive.
+ * Thread-safe.
+ */
+public class DueDateIndex {
+
+    /**
+     * Receives the items of a range, in due date order
+     */
+    @FunctionalInterface
+    public interface DueItemVisitor {
+        void visit(int itemId, int ownerId, LocalDate dueDate);
+    }
+
+    private final String name;
+
+    // (epoch day << 32 | item ID) -> owner ID
+    private final ConcurrentSkipListMap<Long, Integer> byDueDate = new ConcurrentSkipListMap<>();
+    // item ID -> key in byDueDate, for removal by ID
+    private final Map<Integer, Long> keysById = new ConcurrentHashMap<>();
+
+    public DueDateIndex(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add an item, or move it to a new due date
+     */
+    public synchronized void put(int itemId, int ownerId, LocalDate dueDate) {
+        long key = key(dueDate.toEpochDay(), itemId);
+        Long previous = keysById.put(itemId, key);
+        if (previous != null && previous != key) {
+            byDueDate.remove(previous);
+        }
+        byDueDate.put(key, ownerId);
+    }
+
+    /**
+     * Remove an item (done, cancelled or deleted)
+     */
+    public synchronized void remove(int itemId) {
+        Long key = keysById.remove(itemId);
+        if (key != null) {
+            byDueDate.remove(key);
+        }
+    }
+
+    /**
+     * Remove all items of an owner (a full scan; for rare events such as deletions)
+     */
+    public synchronized int removeOwner(int ownerId) {
+        int removed = 0;
+        Iterator<Map.Entry<Long, Integer>> entries = byDueDate.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<Long, Integer> entry = entries.next();
+            if (entry.getValue() == ownerId) {
+                keysById.remove(itemId(entry.getKey()));
+                entries.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Visit the items due in [from, to)
+     * @param from First due date (inclusive), or null for everything overdue
+     * @param to Due date to stop at (exclusive)
+     * @return Number of items visited
+     */
+    public int forEachDue(LocalDate from, LocalDate to, DueItemVisitor visitor) {
+        long fromKey = from != null ? key(from.toEpochDay(), 0) : Long.MIN_VALUE;
+        int count = 0;
+        for (Map.Entry<Long, Integer> entry : byDueDate.subMap(fromKey, key(to.toEpochDay(), 0)).entrySet()) {
+            visitor.visit(itemId(entry.getKey()), entry.getValue(), LocalDate.ofEpochDay(entry.getKey() >> 32));
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Number of items due before a date (walks the overdue part only)
+     */
+    public int countDueBefore(LocalDate date) {
+        return byDueDate.headMap(key(date.toEpochDay(), 0)).size();
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    /**
+     * Build a snapshot of the index, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("size", size());
+        stats.put("dueToday", countDueBefore(LocalDate.now().plusDays(1)));
+        return stats;
+    }
+
+    private static long key(long epochDay, int itemId) {
+        return epochDay << 32 | itemId;
+    }
+
+    private static int itemId(long key) {
+        return (int) key;
+    }
+}
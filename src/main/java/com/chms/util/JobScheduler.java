@@ -0,0 +1,70 @@
+package com.chms.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared scheduler for periodic background jobs (retention, purges, scanners)
+ * A failing run is logged and does not cancel later runs.
+ */
+public class JobScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(JobScheduler.class);
+
+    private static final int THREADS = 2;
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private static final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(THREADS, r -> {
+        Thread t = new Thread(r, "chms-job-" + threadCounter.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private JobScheduler() {
+    }
+
+    /**
+     * Run a job repeatedly with a fixed delay between the end of one run and the start of the next
+     * @param name Job name used in logs
+     * @param job Job to run
+     * @param initialDelay Delay before the first run
+     * @param delay Delay between runs
+     * @param unit Unit of both delays
+     * @return Handle that can cancel the job
+     */
+    public static ScheduledFuture<?> scheduleWithFixedDelay(String name, Runnable job,
+                                                            long initialDelay, long delay, TimeUnit unit) {
+        logger.info("Scheduling job '{}' every {} {}", name, delay, unit.toString().toLowerCase());
+        return scheduler.scheduleWithFixedDelay(() -> runJob(name, job), initialDelay, delay, unit);
+    }
+
+    /**
+     * Stop all jobs (called on application shutdown, before the connection pool is closed)
+     */
+    public static void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            if (!scheduler.awaitTermination(10, TimeUnit.SECONDS)) {
+                logger.warn("Background jobs did not stop within 10 seconds");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runJob(String name, Runnable job) {
+        long start = System.nanoTime();
+        try {
+            job.run();
+            logger.debug("Job '{}' finished in {} ms", name,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            logger.error("Job '" + name + "' failed", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.chms.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token-bucket rate limiter for login attempts
+ * Each key (an email address or a client IP) gets its own bucket that holds up to
+ * capacity attempts and refills at a steady rate. Attempts without a token are
+ * rejected before any database lookup or password hashing happens.
+ *
+ * Each throttle keeps its own map of at most maxKeys buckets, in least-recently-used order,
+ * so a spray of distinct keys costs O(1) per attempt and bounded memory, and keys of one
+ * throttle never displace those of the other. When the map is full, the least recently
+ * used bucket is dropped only if it has refilled completely (dropping it loses nothing);
+ * otherwise the new key is refused, so a spray can never reset a drained bucket.
+ */
+public class LoginThrottle {
+
+    private static final LoginThrottle emailThrottle = new LoginThrottle("email",
+        Integer.parseInt(DatabaseConnection.getConfigProperty("login.throttle.email.capacity", "5")),
+        Long.parseLong(DatabaseConnection.getConfigProperty("login.throttle.email.refillSeconds", "30")),
+        Integer.parseInt(DatabaseConnection.getConfigProperty("login.throttle.email.maxKeys", "10000")));
+
+    private static final LoginThrottle ipThrottle = new LoginThrottle("ip",
+        Integer.parseInt(DatabaseConnection.getConfigProperty("login.throttle.ip.capacity", "50")),
+        Long.parseLong(DatabaseConnection.getConfigProperty("login.throttle.ip.refillSeconds", "1")),
+        Integer.parseInt(DatabaseConnection.getConfigProperty("login.throttle.ip.maxKeys", "10000")));
+
+    private final String name;
+    private final int capacity;
+    private final long refillNanos;
+    private final int maxKeys;
+    private final LinkedHashMap<String, TokenBucket> buckets = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder refusedKeys = new LongAdder();
+
+    /**
+     * @param name Name used in metrics
+     * @param capacity Attempts allowed in a burst
+     * @param refillSeconds Seconds to regain one attempt
+     * @param maxKeys Buckets tracked at most
+     */
+    public LoginThrottle(String name, int capacity, long refillSeconds, int maxKeys) {
+        this.name = name;
+        this.capacity = capacity;
+        this.refillNanos = TimeUnit.SECONDS.toNanos(refillSeconds);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Throttle for attempts against a single account
+     */
+    public static LoginThrottle forEmail() {
+        return emailThrottle;
+    }
+
+    /**
+     * Throttle for attempts from a single client address
+     * (generous, since a clinic may log many staff in from one NAT address)
+     */
+    public static LoginThrottle forIp() {
+        return ipThrottle;
+    }
+
+    /**
+     * Take one token for the key
+     * @param key Email address or IP address (emails are compared case-insensitively)
+     * @return true if the attempt may proceed (false also when the key is new and the throttle is full)
+     */
+    public boolean tryAcquire(String key) {
+        String normalized = key == null ? "" : key.toLowerCase();
+        TokenBucket bucket;
+        synchronized (buckets) {
+            bucket = buckets.get(normalized);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeys && !evictEldestIfFull()) {
+                    refusedKeys.increment();
+                    rejected.increment();
+                    return false;
+                }
+                bucket = new TokenBucket();
+                buckets.put(normalized, bucket);
+            }
+        }
+        if (bucket.tryTake()) {
+            allowed.increment();
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    // Caller holds the buckets lock
+    private boolean evictEldestIfFull() {
+        Iterator<TokenBucket> eldest = buckets.values().iterator();
+        if (!eldest.next().isFull()) {
+            return false;
+        }
+        eldest.remove();
+        evicted.increment();
+        return true;
+    }
+
+    /**
+     * Build a snapshot of the throttle metrics, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("capacity", capacity);
+        stats.put("refillSeconds", TimeUnit.NANOSECONDS.toSeconds(refillNanos));
+        synchronized (buckets) {
+            stats.put("trackedKeys", buckets.size());
+        }
+        stats.put("allowed", allowed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("maxKeys", maxKeys);
+        stats.put("evictedKeys", evicted.sum());
+        stats.put("refusedKeys", refusedKeys.sum());
+        return stats;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private final class TokenBucket {
+        private double tokens = capacity;
+        private long lastRefill = System.nanoTime();
+
+        synchronized boolean tryTake() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return tokens >= capacity;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - lastRefill) / (double) refillNanos);
+            lastRefill = now;
+        }
+    }
+}
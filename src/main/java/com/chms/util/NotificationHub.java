@@ -0,0 +1,462 @@
+package com.chms.util;
+
+import com.chms.dao.NotificationDAO;
+import com.chms.model.Notification;
+import com.google.gson.Gson;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes new notifications to connected browsers (server-sent events)
+ *
+ * Notifications are mostly inserted by database triggers (e.g. after_appointment_insert),
+ * which the application never sees. One background thread per node therefore reads
+ * new rows by primary key (notification_id &gt; last seen) while any client is connected,
+ * one indexed query per TAIL_INTERVAL_MS however many clients there are, and fans them
+ * out to the recipients' open streams. Code that inserts notifications itself can call
+ * wake() to have them delivered immediately.
+ *
+ * Each connected user also has an unread counter, loaded once on connect and kept
+ * up to date from the delivered notifications, so clients never query for it.
+ *
+ * Streams are written with non-blocking I/O: frames go to a small per-stream queue that
+ * is drained whenever the connection can take more, so one slow client never holds up
+ * the worker. A stream whose queue is full is closed; the browser reconnects and
+ * catches up from Last-Event-ID.
+ */
+public class NotificationHub {
+    private static final Logger logger = LoggerFactory.getLogger(NotificationHub.class);
+
+    private static final long TAIL_INTERVAL_MS =
+        Long.parseLong(DatabaseConnection.getConfigProperty("notifications.hub.tailIntervalMillis", "1000"));
+    private static final long HEARTBEAT_INTERVAL_MS = 25000;
+    private static final long CLIENT_RETRY_MS = 5000;
+    private static final int TAIL_BATCH_SIZE = 500;
+    private static final int REPLAY_LIMIT = 50;
+    private static final int MAX_PENDING_FRAMES = 64;
+
+    // Rows can commit out of ID order; the last LOOKBACK_IDS IDs are scanned again so
+    // a late commit is not skipped, and recently delivered IDs are remembered to avoid duplicates
+    private static final int LOOKBACK_IDS = 20;
+    private static final int RECENT_IDS = 1000;
+
+    private static final NotificationHub instance = new NotificationHub(new NotificationDAO());
+
+    private final NotificationDAO notificationDAO;
+    private final Gson gson = new Gson();
+    private final Map<Integer, UserChannel> channels = new ConcurrentHashMap<>();
+    private final Object signal = new Object();
+    private final Thread worker;
+    private volatile boolean running = true;
+    private boolean wakeRequested;
+
+    // Tail position, only used by the worker thread
+    private int floorId = -1;
+    private int watermarkId = -1;
+    private final Set<Integer> recentIds = new LinkedHashSet<>();
+
+    // Metrics
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final LongAccumulator peakConnections = new LongAccumulator(Math::max, 0);
+    private final LongAdder connectionsOpened = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder deliveryErrors = new LongAdder();
+    private final LongAdder slowStreamsClosed = new LongAdder();
+    private final LongAdder tailQueries = new LongAdder();
+    // Insert to push (created_at has whole-second resolution) and read to push
+    private final PoolMetrics.LatencyHistogram deliveryLatency = new PoolMetrics.LatencyHistogram();
+    private final PoolMetrics.LatencyHistogram fanOutLatency = new PoolMetrics.LatencyHistogram();
+
+    private NotificationHub(NotificationDAO notificationDAO) {
+        this.notificationDAO = notificationDAO;
+        this.worker = new Thread(this::tailLoop, "chms-notification-hub");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public static NotificationHub getInstance() {
+        return instance;
+    }
+
+    /**
+     * Attach an event stream for a user. Sends the client retry interval, any unread
+     * notifications after lastEventId (on reconnect) and the current unread count.
+     * @param userId Recipient
+     * @param asyncContext Started async context of the stream request
+     * @param lastEventId Last notification ID the client received, or 0
+     */
+    public void subscribe(int userId, AsyncContext asyncContext, int lastEventId) throws IOException {
+        Subscriber subscriber = new Subscriber(userId, asyncContext);
+        // compute() so a channel is never dropped by a concurrent unsubscribe while joining it
+        UserChannel channel = channels.compute(userId, (id, existing) -> {
+            UserChannel joined = existing != null ? existing : new UserChannel();
+            joined.subscribers.add(subscriber);
+            return joined;
+        });
+        asyncContext.addListener(subscriber);
+        asyncContext.getResponse().getOutputStream().setWriteListener(subscriber);
+        connectionsOpened.increment();
+        peakConnections.accumulate(activeConnections.incrementAndGet());
+
+        int unread = channel.unread.get();
+        if (unread < 0) {
+            unread = notificationDAO.countUnreadNotifications(userId);
+            channel.unread.compareAndSet(-1, unread);
+        }
+
+        StringBuilder frames = new StringBuilder();
+        frames.append("retry: ").append(CLIENT_RETRY_MS).append("\n\n");
+        if (lastEventId > 0) {
+            for (Notification notification : notificationDAO.getUnreadNotificationsAfter(userId, lastEventId, REPLAY_LIMIT)) {
+                frames.append(notificationFrame(notification, -1));
+            }
+        }
+        frames.append(unreadFrame(channel.unread.get()));
+        subscriber.send(frames.toString());
+
+        wake();
+    }
+
+    /**
+     * Deliver newly inserted notifications now instead of at the next tail interval
+     */
+    public void wake() {
+        synchronized (signal) {
+            wakeRequested = true;
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * Unread count of a user (from memory while the user is connected)
+     */
+    public int getUnreadCount(int userId) {
+        UserChannel channel = channels.get(userId);
+        int unread = channel != null ? channel.unread.get() : -1;
+        return unread >= 0 ? unread : notificationDAO.countUnreadNotifications(userId);
+    }
+
+    /**
+     * Update the unread counter after notifications were marked read, and send the
+     * new count to the user's open streams (other tabs or devices)
+     * @param userId User whose notifications were marked read
+     * @param count Number marked read, or -1 if all of them were
+     */
+    public void notificationsRead(int userId, int count) {
+        UserChannel channel = channels.get(userId);
+        if (channel == null || count == 0) {
+            return;
+        }
+        int unread = channel.unread.updateAndGet(current ->
+            current < 0 ? current : count < 0 ? 0 : Math.max(0, current - count));
+        if (unread >= 0) {
+            String frame = unreadFrame(unread);
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.send(frame);
+            }
+        }
+    }
+
+    /**
+     * Close all streams and stop the worker (called on application shutdown)
+     */
+    public void shutdown() {
+        running = false;
+        wake();
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (UserChannel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.close();
+            }
+        }
+        logger.info("Notification hub stopped - {} notifications delivered", delivered.sum());
+    }
+
+    /**
+     * Build a snapshot of the hub metrics, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activeConnections", activeConnections.get());
+        stats.put("peakConnections", peakConnections.get());
+        stats.put("connectionsOpened", connectionsOpened.sum());
+        stats.put("connectedUsers", channels.size());
+        stats.put("delivered", delivered.sum());
+        stats.put("deliveryErrors", deliveryErrors.sum());
+        stats.put("slowStreamsClosed", slowStreamsClosed.sum());
+        stats.put("tailQueries", tailQueries.sum());
+        stats.put("deliveryLatency", deliveryLatency.toMap());
+        stats.put("fanOutLatency", fanOutLatency.toMap());
+        return stats;
+    }
+
+    private void tailLoop() {
+        long lastHeartbeat = System.currentTimeMillis();
+        while (running) {
+            try {
+                if (channels.isEmpty()) {
+                    // Nobody to deliver to: stop querying until someone connects
+                    floorId = -1;
+                    recentIds.clear();
+                    awaitSignal(0);
+                    continue;
+                }
+                if (floorId < 0) {
+                    floorId = notificationDAO.getLatestNotificationId();
+                    watermarkId = floorId;
+                }
+                boolean more = floorId >= 0 && tail();
+
+                long now = System.currentTimeMillis();
+                if (now - lastHeartbeat >= HEARTBEAT_INTERVAL_MS) {
+                    broadcast(": keep-alive\n\n");
+                    lastHeartbeat = now;
+                }
+                if (!more) {
+                    awaitSignal(TAIL_INTERVAL_MS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in notification hub", e);
+            }
+        }
+    }
+
+    /**
+     * Read and deliver notifications above the watermark
+     * @return true if the batch was full and more rows may be waiting
+     */
+    private boolean tail() {
+        int from = Math.max(floorId, watermarkId - LOOKBACK_IDS);
+        List<Notification> notifications = notificationDAO.getNotificationsAfter(from, TAIL_BATCH_SIZE);
+        tailQueries.increment();
+        long readAt = System.nanoTime();
+
+        for (Notification notification : notifications) {
+            int id = notification.getNotificationId();
+            if (!recentIds.add(id)) {
+                continue;
+            }
+            if (recentIds.size() > RECENT_IDS) {
+                Iterator<Integer> oldest = recentIds.iterator();
+                oldest.next();
+                oldest.remove();
+            }
+            watermarkId = Math.max(watermarkId, id);
+            deliver(notification, readAt);
+        }
+        return notifications.size() >= TAIL_BATCH_SIZE;
+    }
+
+    private void deliver(Notification notification, long readAt) {
+        UserChannel channel = channels.get(notification.getUserId());
+        if (channel == null) {
+            return;
+        }
+        int unread = channel.unread.get();
+        if (!notification.isRead() && unread >= 0) {
+            unread = channel.unread.incrementAndGet();
+        }
+        String frame = notificationFrame(notification, unread);
+        for (Subscriber subscriber : channel.subscribers) {
+            if (subscriber.send(frame)) {
+                delivered.increment();
+            }
+        }
+        fanOutLatency.record(System.nanoTime() - readAt);
+        if (notification.getCreatedAt() != null) {
+            long sinceCreated = System.currentTimeMillis() - notification.getCreatedAt().getTime();
+            deliveryLatency.record(TimeUnit.MILLISECONDS.toNanos(Math.max(0, sinceCreated)));
+        }
+    }
+
+    private void broadcast(String frame) {
+        for (UserChannel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.send(frame);
+            }
+        }
+    }
+
+    private void awaitSignal(long timeoutMillis) throws InterruptedException {
+        synchronized (signal) {
+            if (!wakeRequested && running) {
+                signal.wait(timeoutMillis);
+            }
+            wakeRequested = false;
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        channels.computeIfPresent(subscriber.userId, (id, channel) -> {
+            if (channel.subscribers.remove(subscriber)) {
+                activeConnections.decrementAndGet();
+            }
+            // Without streams the counter is dropped and reloaded on the next connect
+            return channel.subscribers.isEmpty() ? null : channel;
+        });
+    }
+
+    private String notificationFrame(Notification notification, int unreadCount) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("notificationId", notification.getNotificationId());
+        data.put("type", notification.getNotificationType().name());
+        data.put("title", notification.getTitle());
+        data.put("message", notification.getMessage());
+        data.put("createdAt", notification.getCreatedAt() != null ? notification.getCreatedAt().getTime() : null);
+        if (unreadCount >= 0) {
+            data.put("unreadCount", unreadCount);
+        }
+        return "id: " + notification.getNotificationId() + "\nevent: notification\ndata: " + gson.toJson(data) + "\n\n";
+    }
+
+    private static String unreadFrame(int unreadCount) {
+        return "event: unread\ndata: {\"unreadCount\":" + Math.max(unreadCount, 0) + "}\n\n";
+    }
+
+    /**
+     * Open streams and unread counter of one user
+     */
+    private static final class UserChannel {
+        private final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        private final AtomicInteger unread = new AtomicInteger(-1);
+    }
+
+    /**
+     * One open event stream
+     */
+    private final class Subscriber implements AsyncListener, WriteListener {
+        private final int userId;
+        private final AsyncContext asyncContext;
+        private final Deque<String> pending = new ArrayDeque<>();
+        private boolean closed;
+
+        Subscriber(int userId, AsyncContext asyncContext) {
+            this.userId = userId;
+            this.asyncContext = asyncContext;
+        }
+
+        /**
+         * Queue frames and write as much as the connection takes without blocking;
+         * a failed write or a full queue closes the stream
+         * @return true if queued
+         */
+        synchronized boolean send(String frames) {
+            if (closed) {
+                return false;
+            }
+            if (pending.size() >= MAX_PENDING_FRAMES) {
+                logger.debug("Notification stream of user {} is not keeping up, closing it", userId);
+                slowStreamsClosed.increment();
+                close();
+                return false;
+            }
+            pending.add(frames);
+            drain();
+            return !closed;
+        }
+
+        /**
+         * Write queued frames while the output stream is ready, then flush
+         */
+        private synchronized void drain() {
+            if (closed) {
+                return;
+            }
+            try {
+                ServletOutputStream out = asyncContext.getResponse().getOutputStream();
+                while (out.isReady()) {
+                    String frames = pending.poll();
+                    if (frames == null) {
+                        out.flush();
+                        return;
+                    }
+                    out.write(frames.getBytes(StandardCharsets.UTF_8));
+                }
+                // Not ready: the container calls onWritePossible once the client has read more
+            } catch (IOException | IllegalStateException e) {
+                logger.debug("Notification stream of user {} failed: {}", userId, e.getMessage());
+                deliveryErrors.increment();
+                close();
+            }
+        }
+
+        synchronized void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending.clear();
+            unsubscribe(this);
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // Already completed by the container
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            synchronized (this) {
+                closed = true;
+            }
+            unsubscribe(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // The browser reconnects with Last-Event-ID
+            close();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        @Override
+        public void onWritePossible() {
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            logger.debug("Notification stream of user {} failed: {}", userId, t.getMessage());
+            deliveryErrors.increment();
+            close();
+        }
+    }
+}
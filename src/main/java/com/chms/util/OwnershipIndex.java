@@ -0,0 +1,215 @@
+package com.chms.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * In-memory index from a record ID to the ID of the user who owns it
+ * Used for authorization checks such as "does this child belong to this mother".
+ * Ownership of a record never changes and IDs are never reused, so entries do not
+ * expire; they are only removed when the record is deleted.
+ *
+ * Entries are kept in primitive int arrays (open addressing, linear probing), 16 to
+ * 32 bytes per entry instead of the ~80 of a HashMap&lt;Integer, Integer&gt;.
+ * IDs and owner IDs must be positive; 0 means "unknown".
+ */
+public class OwnershipIndex {
+
+    private static final List<OwnershipIndex> registry = new CopyOnWriteArrayList<>();
+
+    private static final int EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String name;
+    private final int maxSize;
+
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] owners = new int[INITIAL_CAPACITY];
+    private int size;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    /**
+     * @param name Name used in metrics
+     * @param maxSize Entries kept before the index is cleared and warmed again
+     */
+    public OwnershipIndex(String name, int maxSize) {
+        this.name = name;
+        this.maxSize = maxSize;
+        registry.add(this);
+    }
+
+    /**
+     * Look up the owner of a record, loading it on a miss
+     * @param id Record ID
+     * @param loader Loads the owner ID from the database, returning 0 if the record does not exist
+     * @return Owner ID, or 0 if the record does not exist
+     */
+    public int ownerOf(int id, IntUnaryOperator loader) {
+        int owner = get(id);
+        if (owner != EMPTY) {
+            hits.increment();
+            return owner;
+        }
+        misses.increment();
+        owner = loader.applyAsInt(id);
+        if (owner > 0) {
+            put(id, owner);
+        }
+        return owner;
+    }
+
+    /**
+     * Record the owner of a record (on creation, or whenever a record is read anyway)
+     */
+    public synchronized void put(int id, int owner) {
+        if (id <= 0 || owner <= 0) {
+            return;
+        }
+        if (size >= maxSize) {
+            // Rare enough to not need per-entry eviction; the index warms again lazily
+            clear();
+            resets.increment();
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int slot = slotOf(id, keys);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = id;
+            size++;
+        }
+        owners[slot] = owner;
+    }
+
+    /**
+     * Remove a record (on deletion)
+     */
+    public synchronized void remove(int id) {
+        int slot = slotOf(id, keys);
+        if (keys[slot] == EMPTY) {
+            return;
+        }
+        keys[slot] = EMPTY;
+        owners[slot] = EMPTY;
+        size--;
+
+        // Shift back later entries of the probe run so lookups do not stop at the hole
+        int mask = keys.length - 1;
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int key = keys[next];
+            int owner = owners[next];
+            keys[next] = EMPTY;
+            owners[next] = EMPTY;
+            int target = slotOf(key, keys);
+            keys[target] = key;
+            owners[target] = owner;
+            next = (next + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove every record of an owner (when the owner is deleted with all their records)
+     */
+    public synchronized void removeOwner(int owner) {
+        int[] oldKeys = keys;
+        int[] oldOwners = owners;
+        keys = new int[oldKeys.length];
+        owners = new int[oldOwners.length];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldOwners[i] != owner) {
+                int slot = slotOf(oldKeys[i], keys);
+                keys[slot] = oldKeys[i];
+                owners[slot] = oldOwners[i];
+                size++;
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(owners, EMPTY);
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Build a snapshot of the index stats, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        synchronized (this) {
+            stats.put("size", size);
+            stats.put("capacity", keys.length);
+        }
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("resets", resets.sum());
+        return stats;
+    }
+
+    /**
+     * Stats of every ownership index created in this application
+     */
+    public static List<Map<String, Object>> snapshotAll() {
+        List<Map<String, Object>> all = new ArrayList<>();
+        for (OwnershipIndex index : registry) {
+            all.add(index.snapshot());
+        }
+        return all;
+    }
+
+    private synchronized int get(int id) {
+        if (id <= 0) {
+            return EMPTY;
+        }
+        return owners[slotOf(id, keys)];
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldOwners = owners;
+        keys = new int[capacity];
+        owners = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i], keys);
+                keys[slot] = oldKeys[i];
+                owners[slot] = oldOwners[i];
+            }
+        }
+    }
+
+    /**
+     * Slot holding the key, or the empty slot where it would be inserted
+     */
+    private static int slotOf(int key, int[] table) {
+        int mask = table.length - 1;
+        int slot = mix(key) & mask;
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Spread sequential IDs across the table (Murmur3 finalizer)
+    private static int mix(int key) {
+        int h = key * 0x85ebca6b;
+        return h ^ (h >>> 16);
+    }
+}
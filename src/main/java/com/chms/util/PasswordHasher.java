@@ -1,26 +1,80 @@
 package com.chms.util;
 
 import org.mindrot.jbcrypt.BCrypt;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Password Hashing Utility using BCrypt
  * Provides secure password hashing and verification for the CHMS application
+ *
+ * BCrypt runs on a dedicated executor sized to the CPU count with a bounded queue,
+ * so a burst of logins cannot tie up every container thread on hashing. When the
+ * queue is full, calls fail fast with {@link OverloadedException}.
  */
 public class PasswordHasher {
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHasher.class);
     
     // BCrypt work factor (log rounds) - higher is more secure but slower
-    private static final int WORK_FACTOR = 10;
+    // Starts at the minimum and is raised by calibrateWorkFactor() at startup
+    private static final int MIN_WORK_FACTOR = 10;
+    private static final int MAX_WORK_FACTOR = 16;
+    private static volatile int workFactor = MIN_WORK_FACTOR;
+    
+    // Hashing executor: one thread per core, a few queued requests per thread
+    private static final int HASH_THREADS = Runtime.getRuntime().availableProcessors();
+    private static final int HASH_QUEUE_CAPACITY = HASH_THREADS * 4;
+    private static final long HASH_TIMEOUT_SECONDS = 30;
+    
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+    private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+        HASH_THREADS, HASH_THREADS, 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(HASH_QUEUE_CAPACITY),
+        r -> {
+            Thread t = new Thread(r, "chms-bcrypt-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        },
+        new ThreadPoolExecutor.AbortPolicy());
+    
+    // Metrics
+    private static final PoolMetrics.LatencyHistogram hashLatency = new PoolMetrics.LatencyHistogram();
+    private static final PoolMetrics.LatencyHistogram verifyLatency = new PoolMetrics.LatencyHistogram();
+    private static final LongAdder rejections = new LongAdder();
+    
+    /**
+     * Thrown when the hashing executor queue is full; the caller should ask the user to retry
+     */
+    public static class OverloadedException extends RuntimeException {
+        public OverloadedException(String message) {
+            super(message);
+        }
+    }
     
     /**
      * Hash a plain text password using BCrypt
      * @param plainTextPassword The plain text password to hash
      * @return The hashed password
+     * @throws OverloadedException if the hashing queue is full
      */
     public static String hashPassword(String plainTextPassword) {
         if (plainTextPassword == null || plainTextPassword.isEmpty()) {
             throw new IllegalArgumentException("Password cannot be null or empty");
         }
-        return BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(WORK_FACTOR));
+        return runBounded(() -> BCrypt.hashpw(plainTextPassword, BCrypt.gensalt(workFactor)), hashLatency);
     }
     
     /**
@@ -28,6 +82,7 @@ public class PasswordHasher {
      * @param plainTextPassword The plain text password to verify
      * @param hashedPassword The hashed password to compare against
      * @return true if the passwords match, false otherwise
+     * @throws OverloadedException if the hashing queue is full
      */
     public static boolean verifyPassword(String plainTextPassword, String hashedPassword) {
         if (plainTextPassword == null || plainTextPassword.isEmpty()) {
@@ -37,14 +92,139 @@ public class PasswordHasher {
             return false;
         }
         
+        return runBounded(() -> {
+            try {
+                return BCrypt.checkpw(plainTextPassword, hashedPassword);
+            } catch (Exception e) {
+                // Invalid hash format or other error
+                return false;
+            }
+        }, verifyLatency);
+    }
+    
+    /**
+     * Check whether a stored hash was made with a lower work factor than the current one
+     * @param hashedPassword Stored BCrypt hash ($2a$NN$...)
+     * @return true if the password should be rehashed after a successful login
+     */
+    public static boolean needsRehash(String hashedPassword) {
+        int cost = getWorkFactor(hashedPassword);
+        return cost > 0 && cost < workFactor;
+    }
+    
+    /**
+     * Read the work factor from a BCrypt hash
+     * @return Work factor, or -1 if the hash is not in BCrypt format
+     */
+    static int getWorkFactor(String hashedPassword) {
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(0) != '$') {
+            return -1;
+        }
+        int costStart = hashedPassword.indexOf('$', 1) + 1;
         try {
-            return BCrypt.checkpw(plainTextPassword, hashedPassword);
-        } catch (Exception e) {
-            // Invalid hash format or other error
-            return false;
+            return Integer.parseInt(hashedPassword.substring(costStart, costStart + 2));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+    
+    public static int getCurrentWorkFactor() {
+        return workFactor;
+    }
+    
+    /**
+     * Pick the work factor for this host: the highest cost whose measured hash time
+     * stays within the target latency, never below MIN_WORK_FACTOR.
+     * Settings (database.properties):
+     *   password.bcrypt.workFactor    - fixed work factor; skips calibration when set
+     *   password.bcrypt.targetMillis  - target time for one hash (default 250)
+     */
+    public static void calibrateWorkFactor() {
+        String fixed = DatabaseConnection.getConfigProperty("password.bcrypt.workFactor", null);
+        if (fixed != null && !fixed.trim().isEmpty()) {
+            workFactor = Math.max(MIN_WORK_FACTOR, Math.min(MAX_WORK_FACTOR, Integer.parseInt(fixed.trim())));
+            logger.info("BCrypt work factor fixed by configuration: {}", workFactor);
+            return;
+        }
+        
+        long targetMillis = Long.parseLong(DatabaseConnection.getConfigProperty("password.bcrypt.targetMillis", "250"));
+        
+        // Warm up the JIT, then take the best of a few runs at the minimum cost
+        BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_WORK_FACTOR));
+        long bestNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_WORK_FACTOR));
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+        
+        // Each extra round doubles the cost
+        int cost = MIN_WORK_FACTOR;
+        double millis = bestNanos / 1_000_000.0;
+        while (cost < MAX_WORK_FACTOR && millis * 2 <= targetMillis) {
+            cost++;
+            millis *= 2;
+        }
+        workFactor = cost;
+        logger.info("BCrypt calibrated: cost {} takes ~{} ms, using work factor {} (~{} ms, target {} ms)",
+                   MIN_WORK_FACTOR, String.format("%.1f", bestNanos / 1_000_000.0),
+                   cost, String.format("%.0f", millis), targetMillis);
+    }
+    
+    /**
+     * Run a BCrypt operation on the hashing executor and wait for its result
+     */
+    private static <T> T runBounded(Callable<T> operation, PoolMetrics.LatencyHistogram latency) {
+        long start = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(operation);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            logger.warn("Password hashing queue full ({} queued), rejecting request", HASH_QUEUE_CAPACITY);
+            throw new OverloadedException("Password hashing is overloaded");
+        }
+        
+        try {
+            return future.get(HASH_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new OverloadedException("Interrupted while waiting for password hashing");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new OverloadedException("Password hashing timed out");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            // Includes queue wait, which is what the user experiences
+            latency.record(System.nanoTime() - start);
         }
     }
     
+    /**
+     * Build a snapshot of the hashing executor metrics, suitable for JSON serialization
+     */
+    public static Map<String, Object> getMetrics() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workFactor", workFactor);
+        stats.put("threads", HASH_THREADS);
+        stats.put("queueCapacity", HASH_QUEUE_CAPACITY);
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("active", executor.getActiveCount());
+        stats.put("rejections", rejections.sum());
+        stats.put("hashLatency", hashLatency.toMap());
+        stats.put("verifyLatency", verifyLatency.toMap());
+        return stats;
+    }
+    
+    /**
+     * Stop the hashing executor (called on application shutdown)
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+    
     /**
      * Check if a password meets minimum security requirements
      * @param password The password to check
@@ -0,0 +1,319 @@
+package com.chms.util;
+
+import org.apache.commons.dbcp2.DelegatingConnection;
+import org.apache.commons.dbcp2.PoolingConnection;
+import org.apache.commons.pool2.KeyedObjectPool;
+import org.apache.commons.pool2.impl.BaseGenericObjectPool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection Pool Metrics
+ * Records borrow-wait latency, time-held per calling DAO method, borrow timeouts,
+ * abandoned connections and prepared statement cache hits for a single connection pool
+ */
+public class PoolMetrics {
+
+    private static final String DATABASE_CONNECTION_CLASS = DatabaseConnection.class.getName();
+    private static final String POOL_METRICS_CLASS = PoolMetrics.class.getName();
+
+    private final String poolName;
+    private final long abandonedTimeoutNanos;
+
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> timeHeldByCaller = new ConcurrentHashMap<>();
+    private final Set<Lease> outstanding = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder borrowFailures = new LongAdder();
+    private final LongAdder abandonedConnections = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    /**
+     * @param poolName Name used in log snapshots and the JSON endpoint
+     * @param abandonedTimeoutSeconds Time a connection may be held before it is counted as abandoned
+     */
+    public PoolMetrics(String poolName, int abandonedTimeoutSeconds) {
+        this.poolName = poolName;
+        this.abandonedTimeoutNanos = TimeUnit.SECONDS.toNanos(abandonedTimeoutSeconds);
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    /**
+     * Record a successful borrow and wrap the connection so that the time it is
+     * held is attributed to the calling DAO method when it is closed
+     * @param connection Connection obtained from the pool
+     * @param waitNanos Time spent waiting inside the pool
+     * @return Tracked connection to hand to the caller
+     */
+    public Connection recordBorrow(Connection connection, long waitNanos) {
+        borrowCount.increment();
+        borrowWait.record(waitNanos);
+
+        Lease lease = new Lease(connection, resolveCaller());
+        outstanding.add(lease);
+        return (Connection) Proxy.newProxyInstance(
+            Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, lease);
+    }
+
+    /**
+     * Record a failed borrow; pool exhaustion timeouts are counted separately
+     * @param e Exception thrown by the pool
+     * @param waitNanos Time spent waiting before the failure
+     */
+    public void recordBorrowFailure(SQLException e, long waitNanos) {
+        borrowWait.record(waitNanos);
+        if (e.getCause() instanceof NoSuchElementException) {
+            borrowTimeouts.increment();
+        } else {
+            borrowFailures.increment();
+        }
+    }
+
+    /**
+     * Count connections that have been held longer than the abandoned timeout.
+     * Each lease is counted at most once.
+     */
+    public void sweepAbandoned() {
+        long now = System.nanoTime();
+        for (Lease lease : outstanding) {
+            if (!lease.abandonedCounted && now - lease.borrowedAt > abandonedTimeoutNanos) {
+                lease.abandonedCounted = true;
+                abandonedConnections.increment();
+            }
+        }
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts.sum();
+    }
+
+    public long getAbandonedConnections() {
+        return abandonedConnections.sum();
+    }
+
+    /**
+     * Build a snapshot of all metrics, suitable for JSON serialization
+     * @return Ordered map of metric names to values
+     */
+    public Map<String, Object> snapshot() {
+        sweepAbandoned();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pool", poolName);
+        stats.put("borrows", borrowCount.sum());
+        stats.put("borrowTimeouts", borrowTimeouts.sum());
+        stats.put("borrowFailures", borrowFailures.sum());
+        stats.put("abandonedConnections", abandonedConnections.sum());
+        stats.put("outstandingConnections", outstanding.size());
+        stats.put("borrowWait", borrowWait.toMap());
+
+        long hits = statementCacheHits.sum();
+        long misses = statementCacheMisses.sum();
+        Map<String, Object> statementCache = new LinkedHashMap<>();
+        statementCache.put("hits", hits);
+        statementCache.put("misses", misses);
+        statementCache.put("hitRate", hits + misses == 0 ? 0.0 : hits / (double) (hits + misses));
+        stats.put("statementCache", statementCache);
+
+        Map<String, Object> held = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : timeHeldByCaller.entrySet()) {
+            held.put(entry.getKey(), entry.getValue().toMap());
+        }
+        stats.put("timeHeldByCaller", held);
+        return stats;
+    }
+
+    /**
+     * One-line summary for periodic log snapshots
+     */
+    public String summary() {
+        sweepAbandoned();
+        return String.format(
+            "Pool '%s' - Borrows: %d, Wait mean/max: %.2f/%.2f ms, Timeouts: %d, Failures: %d, Abandoned: %d, "
+                + "Outstanding: %d, Statement cache hits/misses: %d/%d",
+            poolName, borrowCount.sum(), borrowWait.meanMillis(), borrowWait.maxMillis(),
+            borrowTimeouts.sum(), borrowFailures.sum(), abandonedConnections.sum(), outstanding.size(),
+            statementCacheHits.sum(), statementCacheMisses.sum());
+    }
+
+    /**
+     * Find the first stack frame outside the pooling classes, e.g. "ChildDAO.getChildById"
+     */
+    private static String resolveCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+            .filter(f -> !f.getClassName().startsWith(DATABASE_CONNECTION_CLASS)
+                      && !f.getClassName().startsWith(POOL_METRICS_CLASS))
+            .findFirst()
+            .map(f -> {
+                String className = f.getClassName();
+                return className.substring(className.lastIndexOf('.') + 1) + "." + f.getMethodName();
+            })
+            .orElse("unknown"));
+    }
+
+    /**
+     * Tracks a single borrowed connection and records its held time on close
+     */
+    private final class Lease implements InvocationHandler {
+        private final Connection target;
+        private final String caller;
+        private final long borrowedAt = System.nanoTime();
+        private volatile boolean closed;
+        private volatile boolean abandonedCounted;
+        private BaseGenericObjectPool<?> statementPool;
+        private boolean statementPoolResolved;
+
+        Lease(Connection target, String caller) {
+            this.target = target;
+            this.caller = caller;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        outstanding.remove(this);
+                        timeHeldByCaller.computeIfAbsent(caller, k -> new LatencyHistogram())
+                            .record(System.nanoTime() - borrowedAt);
+                    }
+                    break;
+                case "prepareStatement":
+                case "prepareCall":
+                    return prepareAndCount(method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Tracked[" + caller + "] " + target;
+                default:
+                    break;
+            }
+            return invokeTarget(method, args);
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Prepare a statement and count it as a cache hit unless the
+         * connection's statement pool had to create a new one
+         */
+        private Object prepareAndCount(Method method, Object[] args) throws Throwable {
+            BaseGenericObjectPool<?> pool = statementPool();
+            if (pool == null) {
+                return invokeTarget(method, args);
+            }
+            long createdBefore = pool.getCreatedCount();
+            Object statement = invokeTarget(method, args);
+            if (pool.getCreatedCount() > createdBefore) {
+                statementCacheMisses.increment();
+            } else {
+                statementCacheHits.increment();
+            }
+            return statement;
+        }
+
+        private BaseGenericObjectPool<?> statementPool() {
+            if (!statementPoolResolved) {
+                statementPoolResolved = true;
+                Connection conn = target;
+                while (conn instanceof DelegatingConnection) {
+                    if (conn instanceof PoolingConnection) {
+                        KeyedObjectPool<?, ?> pool = ((PoolingConnection) conn).getStatementPool();
+                        if (pool instanceof BaseGenericObjectPool) {
+                            statementPool = (BaseGenericObjectPool<?>) pool;
+                        }
+                        break;
+                    }
+                    conn = ((DelegatingConnection<?>) conn).getDelegate();
+                }
+            }
+            return statementPool;
+        }
+    }
+
+    /**
+     * Fixed-bucket latency histogram backed by striped counters
+     */
+    static final class LatencyHistogram {
+        private static final long[] BUCKET_BOUNDS_MILLIS = {
+            1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000
+        };
+
+        private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MILLIS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        LatencyHistogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int index = 0;
+            while (index < BUCKET_BOUNDS_MILLIS.length && millis >= BUCKET_BOUNDS_MILLIS[index]) {
+                index++;
+            }
+            buckets[index].increment();
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        double meanMillis() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : sumNanos.sum() / (double) n / 1_000_000.0;
+        }
+
+        double maxMillis() {
+            return maxNanos.get() / 1_000_000.0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", count.sum());
+            map.put("meanMillis", meanMillis());
+            map.put("maxMillis", maxMillis());
+
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+                histogram.put("lt_" + BUCKET_BOUNDS_MILLIS[i] + "ms", buckets[i].sum());
+            }
+            histogram.put("ge_" + BUCKET_BOUNDS_MILLIS[BUCKET_BOUNDS_MILLIS.length - 1] + "ms",
+                          buckets[BUCKET_BOUNDS_MILLIS.length].sum());
+            map.put("buckets", histogram);
+            return map;
+        }
+    }
+}
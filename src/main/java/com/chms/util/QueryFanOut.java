@@ -0,0 +1,208 @@
+package com.chms.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent DAO calls for a single request concurrently under a shared deadline.
+ * Calls that fail, return null (the DAO convention for a failed query) or miss the deadline
+ * yield their fallback value and the fan-out is marked partial, so a page can still render
+ * with whatever data did arrive and tell the user the rest is missing.
+ *
+ * Tasks run on virtual threads when the JVM supports them (Java 21+), otherwise on a
+ * bounded platform thread pool. The read-your-writes pin of the submitting thread is
+ * carried over to the task.
+ */
+public class QueryFanOut {
+    private static final Logger logger = LoggerFactory.getLogger(QueryFanOut.class);
+
+    /** Default time budget for all queries of one dashboard view */
+    public static final long DEFAULT_DEADLINE_MILLIS = 2000;
+
+    private static final int PLATFORM_POOL_SIZE = 16;
+    private static final int PLATFORM_QUEUE_CAPACITY = 64;
+
+    private static final boolean virtualThreads;
+    private static final ExecutorService executor;
+
+    static {
+        ExecutorService virtual = createVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : createPlatformExecutor();
+        logger.info("Query fan-out executor using {}",
+                   virtualThreads ? "virtual threads" : PLATFORM_POOL_SIZE + " platform threads");
+    }
+
+    private final long deadlineNanos;
+    private final List<String> incompleteTasks = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param deadlineMillis Time budget, measured from now, shared by every task of this fan-out
+     */
+    public QueryFanOut(long deadlineMillis) {
+        this.deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+    }
+
+    /**
+     * Start a task
+     * @param name Name used in logs and in getIncompleteTasks()
+     * @param call DAO call to run
+     * @param fallback Value returned if the call fails, returns null or misses the deadline
+     * @return Handle used to collect the result
+     */
+    public <T> Result<T> submit(String name, Callable<T> call, T fallback) {
+        boolean pinned = DatabaseConnection.isReadPinnedToPrimary();
+        Callable<T> task = () -> {
+            boolean wasPinned = DatabaseConnection.isReadPinnedToPrimary();
+            if (pinned) {
+                DatabaseConnection.pinReadsToPrimary();
+            }
+            try {
+                return call.call();
+            } finally {
+                if (!wasPinned) {
+                    DatabaseConnection.clearPrimaryReadPin();
+                }
+            }
+        };
+
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            // Pool saturated: run on the request thread instead of failing the view
+            FutureTask<T> inline = new FutureTask<>(task);
+            inline.run();
+            future = inline;
+        }
+        return new Result<>(name, future, fallback);
+    }
+
+    /**
+     * @return true if any collected task failed or missed the deadline
+     */
+    public boolean isPartial() {
+        return !incompleteTasks.isEmpty();
+    }
+
+    /**
+     * @return Names of the tasks that fell back to their default value
+     */
+    public List<String> getIncompleteTasks() {
+        synchronized (incompleteTasks) {
+            return new ArrayList<>(incompleteTasks);
+        }
+    }
+
+    /**
+     * @return true if tasks run on virtual threads
+     */
+    public static boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stop accepting tasks (called on application shutdown)
+     */
+    public static void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Look up Executors.newVirtualThreadPerTaskExecutor() reflectively, since the
+     * project is compiled for Java 11
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        if (Runtime.version().feature() < 21) {
+            return null;
+        }
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Virtual threads unavailable, using platform threads: {}", e.toString());
+            return null;
+        }
+    }
+
+    private static ExecutorService createPlatformExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory threadFactory = r -> {
+            Thread t = new Thread(r, "chms-query-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(
+            PLATFORM_POOL_SIZE, PLATFORM_POOL_SIZE, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(PLATFORM_QUEUE_CAPACITY), threadFactory,
+            new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Handle for one submitted task
+     */
+    public final class Result<T> {
+        private final String name;
+        private final Future<T> future;
+        private final T fallback;
+
+        private Result(String name, Future<T> future, T fallback) {
+            this.name = name;
+            this.future = future;
+            this.fallback = fallback;
+        }
+
+        /**
+         * Wait for the task until the fan-out deadline.
+         * A task that misses the deadline is left to finish in the background rather
+         * than interrupted, so its pooled connection is returned in a clean state.
+         * @return The task's value, or the fallback if it failed, timed out or returned null (counted as incomplete)
+         */
+        public T get() {
+            try {
+                T value = future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (value != null) {
+                    return value;
+                }
+                logger.warn("Query '{}' returned no result, using fallback", name);
+            } catch (TimeoutException e) {
+                future.cancel(false);
+                logger.warn("Query '{}' missed its deadline, using fallback", name);
+            } catch (ExecutionException e) {
+                logger.error("Query '" + name + "' failed, using fallback", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.warn("Interrupted while waiting for query '{}'", name);
+            }
+            incompleteTasks.add(name);
+            return fallback;
+        }
+    }
+}
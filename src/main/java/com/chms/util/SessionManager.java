@@ -1,20 +1,37 @@
 package com.chms.util;
 
+import com.chms.dao.UserDAO;
+import com.chms.model.SessionPrincipal;
 import com.chms.model.User;
+import com.chms.session.ExternalSessions;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
 
 /**
  * Session Management Utility
  * Provides helper methods for session handling and user authentication state
+ *
+ * The session holds only a small SessionPrincipal (user ID, role, name); the full
+ * User is loaded through the UserDAO cache when a request asks for it. When an
+ * external session store is configured (see ExternalSessions), the HttpSession is
+ * only a node-local copy of the stored session.
  */
 public class SessionManager {
+    private static final Logger logger = LoggerFactory.getLogger(SessionManager.class);
     
     // Session attribute keys
-    public static final String SESSION_USER = "loggedInUser";
-    public static final String SESSION_USER_ID = "userId";
-    public static final String SESSION_USER_ROLE = "userRole";
-    public static final String SESSION_USER_NAME = "userName";
+    public static final String SESSION_PRINCIPAL = "principal";
+    public static final String SESSION_LAST_WRITE = "lastWriteAt";
+    
+    // Request attribute holding the user once loaded, so one request loads it at most once
+    private static final String REQUEST_USER = "com.chms.loggedInUser";
+    
+    private static final UserDAO userDAO = new UserDAO();
     
     // Session timeout (30 minutes in seconds)
     public static final int SESSION_TIMEOUT = 1800;
@@ -22,30 +39,78 @@ public class SessionManager {
     /**
      * Create a new session for the user after login
      * @param request HttpServletRequest
+     * @param response HttpServletResponse (receives the session cookie of an external store)
      * @param user User object
      */
-    public static void createUserSession(HttpServletRequest request, User user) {
+    public static void createUserSession(HttpServletRequest request, HttpServletResponse response, User user) {
         HttpSession session = request.getSession(true);
         session.setMaxInactiveInterval(SESSION_TIMEOUT);
         
-        // Store user information in session
-        session.setAttribute(SESSION_USER, user);
-        session.setAttribute(SESSION_USER_ID, user.getUserId());
-        session.setAttribute(SESSION_USER_ROLE, user.getRole().name());
-        session.setAttribute(SESSION_USER_NAME, user.getFullName());
+        // Store only the user's identity in session
+        SessionPrincipal principal = SessionPrincipal.of(user);
+        session.setAttribute(SESSION_PRINCIPAL, principal);
+        request.setAttribute(REQUEST_USER, user);
+        
+        if (ExternalSessions.isEnabled()) {
+            ExternalSessions.create(request, response, session, principal);
+        }
     }
     
     /**
-     * Get the logged in user from session
+     * Get the identity of the logged in user from session
      * @param request HttpServletRequest
-     * @return User object or null if not logged in
+     * @return SessionPrincipal or null if not logged in
      */
-    public static User getLoggedInUser(HttpServletRequest request) {
+    public static SessionPrincipal getPrincipal(HttpServletRequest request) {
         HttpSession session = request.getSession(false);
-        if (session != null) {
-            return (User) session.getAttribute(SESSION_USER);
+        SessionPrincipal principal = session != null ? (SessionPrincipal) session.getAttribute(SESSION_PRINCIPAL) : null;
+        
+        if (!ExternalSessions.isEnabled()) {
+            return principal;
+        }
+        if (principal == null) {
+            // Logged in through another node, or this node restarted
+            return ExternalSessions.restore(request);
         }
-        return null;
+        if (!ExternalSessions.revalidate(session)) {
+            // Logged out on another node
+            session.invalidate();
+            return null;
+        }
+        return principal;
+    }
+    
+    /**
+     * Get the logged in user (loaded through the user cache, at most once per request).
+     * If the user no longer exists, has been deactivated or no longer has the session's
+     * role, the session is ended, so that pages which check only {@link #isUserLoggedIn}
+     * send the user to the login page instead of back to a dashboard. On a database error
+     * the session is kept. Changes made on another node are seen once they expire from the
+     * user cache.
+     * @param request HttpServletRequest
+     * @return User object or null if not logged in, the session was ended or the user could not be read
+     */
+    public static User getLoggedInUser(HttpServletRequest request) {
+        User user = (User) request.getAttribute(REQUEST_USER);
+        if (user != null) {
+            return user;
+        }
+        SessionPrincipal principal = getPrincipal(request);
+        if (principal == null) {
+            return null;
+        }
+        try {
+            user = userDAO.findUserById(principal.getUserId());
+        } catch (SQLException e) {
+            logger.warn("Could not load logged-in user ID: {} - keeping the session", principal.getUserId(), e);
+            return null;
+        }
+        if (user == null || !user.isActive() || user.getRole() != principal.getRole()) {
+            invalidateSession(request, null);
+            return null;
+        }
+        request.setAttribute(REQUEST_USER, user);
+        return user;
     }
     
     /**
@@ -54,12 +119,8 @@ public class SessionManager {
      * @return User ID or 0 if not logged in
      */
     public static int getLoggedInUserId(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            Integer userId = (Integer) session.getAttribute(SESSION_USER_ID);
-            return userId != null ? userId : 0;
-        }
-        return 0;
+        SessionPrincipal principal = getPrincipal(request);
+        return principal != null ? principal.getUserId() : 0;
     }
     
     /**
@@ -68,11 +129,8 @@ public class SessionManager {
      * @return User role as String or null if not logged in
      */
     public static String getLoggedInUserRole(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        if (session != null) {
-            return (String) session.getAttribute(SESSION_USER_ROLE);
-        }
-        return null;
+        SessionPrincipal principal = getPrincipal(request);
+        return principal != null ? principal.getRole().name() : null;
     }
     
     /**
@@ -81,8 +139,7 @@ public class SessionManager {
      * @return true if user is logged in, false otherwise
      */
     public static boolean isUserLoggedIn(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        return session != null && session.getAttribute(SESSION_USER) != null;
+        return getPrincipal(request) != null;
     }
     
     /**
@@ -123,11 +180,53 @@ public class SessionManager {
         return hasRole(request, "ADMIN");
     }
     
+    /**
+     * Record that the user has just written data, so that their following
+     * requests read from the primary database instead of a lagging replica
+     * @param request HttpServletRequest
+     */
+    public static void recordWrite(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            long now = System.currentTimeMillis();
+            session.setAttribute(SESSION_LAST_WRITE, now);
+            // The next request may be served by another node, which only sees the stored session
+            if (ExternalSessions.isEnabled() && DatabaseConnection.isReplicaInUse()) {
+                ExternalSessions.recordWrite(session, now);
+            }
+        }
+        DatabaseConnection.pinReadsToPrimary();
+    }
+    
+    /**
+     * Get the time of the user's last recorded write
+     * @param request HttpServletRequest
+     * @return Time in milliseconds, or 0 if the user has not written anything
+     */
+    public static long getLastWriteTime(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return 0;
+        }
+        Long localWrite = (Long) session.getAttribute(SESSION_LAST_WRITE);
+        long lastWrite = localWrite != null ? localWrite : 0;
+        // A write made on another node is only known to the session store
+        if (ExternalSessions.isEnabled() && DatabaseConnection.isReplicaInUse()
+            && !DatabaseConnection.requiresPrimaryRead(lastWrite)) {
+            lastWrite = Math.max(lastWrite, ExternalSessions.getLastWriteTime(session));
+        }
+        return lastWrite;
+    }
+    
     /**
      * Invalidate user session (logout)
      * @param request HttpServletRequest
+     * @param response HttpServletResponse (the session cookie of an external store is cleared), or null
      */
-    public static void invalidateSession(HttpServletRequest request) {
+    public static void invalidateSession(HttpServletRequest request, HttpServletResponse response) {
+        if (ExternalSessions.isEnabled()) {
+            ExternalSessions.end(request, response);
+        }
         HttpSession session = request.getSession(false);
         if (session != null) {
             session.invalidate();
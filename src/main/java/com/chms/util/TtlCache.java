@@ -0,0 +1,210 @@
+package com.chms.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache with a time-to-live per entry
+ * Entries expire ttl after they are loaded; when the cache is full the least
+ * recently used entry is evicted. Every cache registers itself so its stats can
+ * be reported by the admin metrics endpoint.
+ *
+ * @param <K> Key type
+ * @param <V> Value type
+ */
+public class TtlCache<K, V> {
+
+    private static final List<TtlCache<?, ?>> registry = new CopyOnWriteArrayList<>();
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    // Bumped by every invalidation so loads that raced with one are not cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param name Name used in metrics
+     * @param maxSize Maximum number of entries
+     * @param ttl Time an entry stays valid after it is stored
+     * @param unit Unit of ttl
+     */
+    public TtlCache(String name, int maxSize, long ttl, TimeUnit unit) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = unit.toNanos(ttl);
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > TtlCache.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        registry.add(this);
+    }
+
+    /**
+     * Get a cached value
+     * @return The value, or null if absent or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.storedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Get a cached value, loading and storing it on a miss.
+     * The loader runs outside the cache lock; null results are not cached.
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        long version = invalidations.get();
+        value = loader.apply(key);
+        if (value != null) {
+            putIfNotInvalidated(key, value, version);
+        }
+        return value;
+    }
+
+    /**
+     * Current invalidation version, to be taken before loading a value stored with
+     * {@link #putIfNotInvalidated} (for loaders that cannot go through {@link #get(Object, Function)})
+     */
+    public long version() {
+        return invalidations.get();
+    }
+
+    /**
+     * Store a value unless the cache was invalidated since the given version was taken
+     */
+    public void putIfNotInvalidated(K key, V value, long version) {
+        synchronized (entries) {
+            if (invalidations.get() == version) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        }
+    }
+
+    /**
+     * Store a value
+     */
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Remove one entry
+     */
+    public void invalidate(K key) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Remove every entry matching the predicate (scans the whole cache)
+     */
+    public void invalidateIf(BiPredicate<? super K, ? super V> predicate) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<K, Entry<V>> e = it.next();
+                if (predicate.test(e.getKey(), e.getValue().value)) {
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove every entry
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Build a snapshot of the cache stats, suitable for JSON serialization
+     */
+    public Map<String, Object> snapshot() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", TimeUnit.NANOSECONDS.toSeconds(ttlNanos));
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRate", hitCount + missCount == 0 ? 0.0 : hitCount / (double) (hitCount + missCount));
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        return stats;
+    }
+
+    /**
+     * Stats of every cache created in this application
+     */
+    public static List<Map<String, Object>> snapshotAll() {
+        List<Map<String, Object>> all = new ArrayList<>();
+        for (TtlCache<?, ?> cache : registry) {
+            all.add(cache.snapshot());
+        }
+        return all;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long storedAt;
+
+        Entry(V value, long storedAt) {
+            this.value = value;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -11,6 +11,11 @@
     Integer totalMothers = (Integer) request.getAttribute("totalMothers");
     Integer totalDoctors = (Integer) request.getAttribute("totalDoctors");
     Integer totalAdmins = (Integer) request.getAttribute("totalAdmins");
+    Integer totalChildren = (Integer) request.getAttribute("totalChildren");
+    Integer openGrowthAlerts = (Integer) request.getAttribute("openGrowthAlerts");
+    Integer pendingAppointments = (Integer) request.getAttribute("pendingAppointments");
+    String nextCursor = (String) request.getAttribute("nextCursor");
+    boolean firstPage = request.getParameter("cursor") == null || request.getParameter("cursor").isEmpty();
     
     SimpleDateFormat dateFormatter = new SimpleDateFormat("MMM dd, yyyy HH:mm");
 %>
@@ -101,6 +106,13 @@
             <div class="col-12 mb-4">
                 <h2 class="text-white"><i class="fas fa-tachometer-alt"></i> Admin Dashboard</h2>
                 <p class="text-white">Welcome back, <%= admin.getFullName() %>!</p>
+                <% String errorMessage = (String) request.getAttribute("errorMessage"); %>
+                <% if (errorMessage != null) { %>
+                    <div class="alert alert-warning alert-dismissible fade show" role="alert">
+                        <i class="fas fa-exclamation-triangle"></i> <%= errorMessage %>
+                        <button type="button" class="btn-close" data-bs-dismiss="alert"></button>
+                    </div>
+                <% } %>
             </div>
         </div>
 
@@ -131,6 +143,26 @@
                 </div>
             </div>
         </div>
+        <div class="row">
+            <div class="col-md-4">
+                <div class="stat-card">
+                    <h3><%= totalChildren != null ? totalChildren : 0 %></h3>
+                    <p><i class="fas fa-baby"></i> Children</p>
+                </div>
+            </div>
+            <div class="col-md-4">
+                <div class="stat-card">
+                    <h3><%= openGrowthAlerts != null ? openGrowthAlerts : 0 %></h3>
+                    <p><i class="fas fa-exclamation-triangle"></i> Open Growth Alerts</p>
+                </div>
+            </div>
+            <div class="col-md-4">
+                <div class="stat-card">
+                    <h3><%= pendingAppointments != null ? pendingAppointments : 0 %></h3>
+                    <p><i class="fas fa-calendar-check"></i> Pending Appointments</p>
+                </div>
+            </div>
+        </div>
 
         <!-- User Management -->
         <div class="row">
@@ -205,6 +237,20 @@
                                     </tbody>
                                 </table>
                             </div>
+                            <div class="d-flex justify-content-between">
+                                <% if (!firstPage) { %>
+                                    <a class="btn btn-sm btn-outline-primary" href="<%= request.getContextPath() %>/admin/dashboard">
+                                        <i class="fas fa-angle-double-left"></i> Newest
+                                    </a>
+                                <% } else { %>
+                                    <span></span>
+                                <% } %>
+                                <% if (nextCursor != null) { %>
+                                    <a class="btn btn-sm btn-outline-primary" href="<%= request.getContextPath() %>/admin/dashboard?cursor=<%= java.net.URLEncoder.encode(nextCursor, "UTF-8") %>">
+                                        Older <i class="fas fa-angle-right"></i>
+                                    </a>
+                                <% } %>
+                            </div>
                         <% } %>
                     </div>
                 </div>
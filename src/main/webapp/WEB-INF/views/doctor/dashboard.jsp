@@ -1,5 +1,5 @@
 <%@ page contentType="text/html;charset=UTF-8" language="java" %>
-<%@ page import="com.chms.model.Child, com.chms.model.User, com.chms.model.Appointment, java.util.List, java.text.SimpleDateFormat" %>
+<%@ page import="com.chms.model.Child, com.chms.model.User, com.chms.model.Appointment, com.chms.model.GrowthAlert, java.util.List, java.text.SimpleDateFormat" %>
 <%
     User doctor = (User) request.getAttribute("doctor");
     if (doctor == null) {
@@ -13,11 +13,16 @@
     List<Appointment> upcomingAppointments = (List<Appointment>) request.getAttribute("upcomingAppointments");
     @SuppressWarnings("unchecked")
     List<Child> patients = (List<Child>) request.getAttribute("patients");
+    @SuppressWarnings("unchecked")
+    List<GrowthAlert> urgentAlerts = (List<GrowthAlert>) request.getAttribute("urgentAlerts");
+    Integer urgentAlertCount = (Integer) request.getAttribute("urgentAlertCount");
     
     // Initialize lists if null
     if (todayAppointments == null) todayAppointments = new java.util.ArrayList<>();
     if (upcomingAppointments == null) upcomingAppointments = new java.util.ArrayList<>();
     if (patients == null) patients = new java.util.ArrayList<>();
+    if (urgentAlerts == null) urgentAlerts = new java.util.ArrayList<>();
+    if (urgentAlertCount == null) urgentAlertCount = 0;
     
     SimpleDateFormat dateFormatter = new SimpleDateFormat("MMM dd, yyyy");
     SimpleDateFormat timeFormatter = new SimpleDateFormat("hh:mm a");
@@ -51,6 +56,13 @@
             border-radius: 15px;
             margin-bottom: 20px;
         }
+        .alert-item {
+            padding: 15px;
+            border-left: 4px solid #dc3545;
+            margin-bottom: 10px;
+            background-color: #f8f9fa;
+            border-radius: 5px;
+        }
         .appointment-item {
             padding: 15px;
             border-left: 4px solid #667eea;
@@ -123,6 +135,40 @@
             </div>
         </div>
 
+        <!-- Urgent Growth Alerts -->
+        <div class="row">
+            <div class="col-12">
+                <div class="card">
+                    <div class="card-header bg-danger text-white">
+                        <h5 class="mb-0"><i class="fas fa-exclamation-circle"></i> Urgent Growth Alerts (<%= urgentAlertCount %> open)</h5>
+                    </div>
+                    <div class="card-body">
+                        <% if (urgentAlerts.isEmpty()) { %>
+                            <div class="text-center text-muted py-4">
+                                <i class="fas fa-check-circle fa-3x mb-3"></i>
+                                <p>No urgent growth alerts</p>
+                            </div>
+                        <% } else { %>
+                            <% for (GrowthAlert alert : urgentAlerts) { %>
+                                <div class="alert-item">
+                                    <h6><i class="fas fa-child"></i> <%= alert.getChildName() %>
+                                        <span class="badge bg-danger"><%= alert.getSeverity() %></span>
+                                        <span class="badge bg-secondary"><%= alert.getAlertType() %></span>
+                                    </h6>
+                                    <p class="mb-1"><%= alert.getDescription() %></p>
+                                    <p class="mb-0 text-muted">
+                                        <i class="fas fa-user"></i> Mother: <%= alert.getMotherName() %>
+                                        <% if (alert.getMotherPhone() != null) { %>(<%= alert.getMotherPhone() %>)<% } %>
+                                        &middot; <i class="fas fa-calendar"></i> <%= alert.getCreatedAt() != null ? dateFormatter.format(alert.getCreatedAt()) : "N/A" %>
+                                    </p>
+                                </div>
+                            <% } %>
+                        <% } %>
+                    </div>
+                </div>
+            </div>
+        </div>
+
         <!-- Today's Appointments -->
         <div class="row">
             <div class="col-lg-6">
@@ -115,6 +115,13 @@
                             <p class="text-muted mb-0">Here's an overview of your children's health</p>
                         </div>
                     </div>
+                    <% String errorMessage = (String) request.getAttribute("errorMessage"); %>
+                    <% if (errorMessage != null) { %>
+                        <div class="alert alert-warning alert-dismissible fade show mt-3" role="alert">
+                            <i class="fas fa-exclamation-triangle"></i> <%= errorMessage %>
+                            <button type="button" class="btn-close" data-bs-dismiss="alert"></button>
+                        </div>
+                    <% } %>
                 </div>
             </div>
 
@@ -137,7 +144,7 @@
                 <div class="col-md-4">
                     <div class="card stat-card">
                         <i class="fas fa-bell text-warning"></i>
-                        <h3><%= notifications != null ? notifications.size() : 0 %></h3>
+                        <h3 id="unreadCount"><%= notifications != null ? notifications.size() : 0 %></h3>
                         <p class="text-muted mb-0">New Notifications</p>
                     </div>
                 </div>
@@ -239,12 +246,15 @@
                 <!-- Notifications Section -->
                 <div class="col-lg-4">
                     <div class="card">
-                        <div class="card-header">
-                            <i class="fas fa-bell"></i> Recent Notifications
+                        <div class="card-header d-flex justify-content-between align-items-center">
+                            <span><i class="fas fa-bell"></i> Recent Notifications</span>
+                            <button type="button" class="btn btn-sm btn-outline-secondary" onclick="markAllNotificationsRead()">
+                                Mark all read
+                            </button>
                         </div>
-                        <div class="card-body">
+                        <div class="card-body" id="notificationList">
                             <% if (notifications == null || notifications.isEmpty()) { %>
-                                <p class="text-muted text-center">No new notifications</p>
+                                <p class="text-muted text-center" id="noNotifications">No new notifications</p>
                             <% } else { %>
                                 <% for (Notification notif : notifications) { %>
                                     <div class="notification-item">
@@ -262,5 +272,61 @@
     </div>
 
     <script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.0/dist/js/bootstrap.bundle.min.js"></script>
+    <script>
+        function markAllNotificationsRead() {
+            fetch('<%= request.getContextPath() %>/notifications/mark-read', {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/x-www-form-urlencoded' },
+                body: 'all=true'
+            })
+            .then(response => response.json())
+            .then(data => {
+                if (data.success) {
+                    document.getElementById('unreadCount').textContent = 0;
+                    const list = document.getElementById('notificationList');
+                    list.innerHTML = '<p class="text-muted text-center" id="noNotifications">No new notifications</p>';
+                }
+            });
+        }
+
+        // Live notifications pushed by the server (server-sent events)
+        if (window.EventSource) {
+            const stream = new EventSource('<%= request.getContextPath() %>/notifications/stream');
+            const shown = new Set();
+
+            stream.addEventListener('unread', function(event) {
+                document.getElementById('unreadCount').textContent = JSON.parse(event.data).unreadCount;
+            });
+
+            stream.addEventListener('notification', function(event) {
+                const notification = JSON.parse(event.data);
+                if (shown.has(notification.notificationId)) {
+                    return;
+                }
+                shown.add(notification.notificationId);
+                if (notification.unreadCount !== undefined) {
+                    document.getElementById('unreadCount').textContent = notification.unreadCount;
+                }
+
+                const empty = document.getElementById('noNotifications');
+                if (empty) {
+                    empty.remove();
+                }
+                const item = document.createElement('div');
+                item.className = 'notification-item';
+                const title = document.createElement('h6');
+                title.className = 'mb-1';
+                title.textContent = notification.title;
+                const message = document.createElement('p');
+                message.className = 'small mb-1';
+                message.textContent = notification.message;
+                const time = document.createElement('small');
+                time.className = 'text-muted';
+                time.textContent = new Date(notification.createdAt).toLocaleString();
+                item.append(title, message, time);
+                document.getElementById('notificationList').prepend(item);
+            });
+        }
+    </script>
 </body>
 </html>
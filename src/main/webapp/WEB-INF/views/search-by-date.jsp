@@ -17,6 +17,7 @@
     String error = (String) request.getAttribute("error");
     Integer resultCount = (Integer) request.getAttribute("resultCount");
     String searchMode = (String) request.getAttribute("searchMode");
+    String nextCursor = (String) request.getAttribute("nextCursor");
     
     List<Appointment> appointments = (List<Appointment>) request.getAttribute("appointments");
     List<Child> children = (List<Child>) request.getAttribute("children");
@@ -333,10 +334,28 @@
             });
         </script>
         
-        <% if (resultCount != null) { %>
+        <% if (resultCount != null) {
+            // Current search as a URL, reused by the paging and export links
+            StringBuilder searchUrl = new StringBuilder(request.getContextPath()).append("/search-by-date?type=")
+                .append(java.net.URLEncoder.encode(searchType, "UTF-8"));
+            for (String param : new String[] {"date", "startDate", "endDate", "name", "startTime", "endTime"}) {
+                String value = request.getParameter(param);
+                if (value != null && !value.isEmpty()) {
+                    searchUrl.append('&').append(param).append('=').append(java.net.URLEncoder.encode(value, "UTF-8"));
+                }
+            }
+            boolean canExport = ("appointments".equals(searchType) || "children".equals(searchType)) &&
+                (loggedInUser.getRole() == User.Role.ADMIN || loggedInUser.getRole() == User.Role.DOCTOR);
+        %>
             <div class="results-header">
                 <h2>Search Results</h2>
-                <span class="result-count"><%= resultCount %> record(s) found</span>
+                <span class="result-count"><%= resultCount %><%= nextCursor != null ? "+" : "" %> record(s) found</span>
+                <% if (canExport) { %>
+                    <span>
+                        Export: <a href="<%= searchUrl %>&export=csv">CSV</a> |
+                        <a href="<%= searchUrl %>&export=json">JSON</a>
+                    </span>
+                <% } %>
             </div>
             
             <!-- Show active filters -->
@@ -400,6 +419,11 @@
                             <% } %>
                         </tbody>
                     </table>
+                    <% if (nextCursor != null) { %>
+                        <div style="text-align: right; margin-top: 15px;">
+                            <a href="<%= searchUrl %>&cursor=<%= java.net.URLEncoder.encode(nextCursor, "UTF-8") %>">Next page &raquo;</a>
+                        </div>
+                    <% } %>
                 <% } %>
             <% } %>
             
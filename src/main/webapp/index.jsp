@@ -54,7 +54,15 @@
                     <div class="p-5">
                         <h4 class="text-center mb-4">Sign In</h4>
                         
-                        <% if (request.getParameter("error") != null) { %>
+                        <% if ("throttled".equals(request.getParameter("error"))) { %>
+                            <div class="alert alert-warning" role="alert">
+                                Too many sign-in attempts. Please wait a minute and try again.
+                            </div>
+                        <% } else if ("busy".equals(request.getParameter("error"))) { %>
+                            <div class="alert alert-warning" role="alert">
+                                The system is busy. Please try again in a moment.
+                            </div>
+                        <% } else if (request.getParameter("error") != null) { %>
                             <div class="alert alert-danger" role="alert">
                                 Invalid email or password. Please try again.
                             </div>